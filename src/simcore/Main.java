@@ -4,12 +4,21 @@ import simcore.config.SimulationConfig;
 import simcore.config.SystemParameters;
 import simcore.config.SystemParametersBuilder;
 import simcore.engine.*;
+import simcore.engine.failures.ImportanceSampling;
+import simcore.engine.failures.SeedScheme;
+import simcore.engine.trace.BinaryTraceWriter;
+import simcore.engine.trace.ColumnarTraceSession;
+import simcore.engine.trace.FilteredTraceSession;
+import simcore.engine.trace.StreamingTraceSession;
+import simcore.engine.trace.TraceFilter;
+import simcore.io.SweepResultJournal;
 import simcore.io.SweepResultsExcelWriter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import simcore.config.BusSystemType;
 import simcore.regression.RegressionRunner;
 
@@ -34,13 +43,39 @@ public class Main {
         String loadFilePath;
         String windFilePath = "D:/08_ModelingData/02_Wind.txt";
         String resultsXlsxPath = "D:/results.xlsx";
+        // журнал готовых точек sweep: после падения перезапуск досчитывает только недостающие точки;
+        // null — без журнала
+        String journalPath = resultsXlsxPath + ".journal";
         String traceCsvPath = "D:/trace.csv";
+        // если задан — trace пишется в бинарном формате; CSV из него: MainTraceCsv <bin> <csv>
+        String traceBinPath = null;
+        // фильтр часов trace: null — все часы; с фильтром trace доступен и при mcIterations > 1
+        // (пишется итерация 0), например TraceFilter.events(24, TraceEvent.ENS, TraceEvent.FAILURE)
+        TraceFilter traceFilter = null;
 
         LoadType loadType = LoadType.SELHOZ;
         RunMode mode = RunMode.SINGLE;
         BusSystemType busType = BusSystemType.DOUBLE_BUS;
 
         int mcIterations = 1;
+        // Адаптивная остановка MC по CI: null — ровно mcIterations итераций,
+        // иначе mcIterations — максимум (например, AdaptiveStopping.ens(50, 50)).
+        AdaptiveStopping adaptiveStopping = null;
+        // схема seed'ов: LEGACY — прежние результаты; SPLITTABLE — независимые потоки у каждого места
+        // компонента (шина, номер), т.е. common random numbers между точками sweep: разности соседних
+        // точек (ENS от ёмкости АКБ, числа ДГУ) шумят намного меньше при том же mcIterations
+        SeedScheme seedScheme = SeedScheme.LEGACY;
+        // антитетические пары итераций (u и 1 - u для времён отказов): меньше итераций до relativeError
+        boolean antithetic = false;
+        // importance sampling редких отказов: null — выкл., например ImportanceSampling.network(10)
+        // (отказы шин, помещений и автомата в 10 раз чаще, прогоны с весами отношения правдоподобия)
+        ImportanceSampling importanceSampling = null;
+        // контрольные переменные: ENS, топливо и моточасы корректируются по центрированным числам отказов
+        // прогона (их среднее ровно 0): при тех же итерациях CI уже; несовместимо с фильтром выбросов
+        boolean controlVariates = false;
+        // каталог кэша оценок MC между запусками (точки с теми же параметрами, рядами и seed не пересчитываются);
+        // null — без кэша. Код модели в ключ не входит: после его изменения каталог нужно очистить.
+        String mcCacheDir = null;
 
         // Режим регрессии: прокидываем управление в RegressionRunner и выходим
         if (args != null && args.length > 0) {
@@ -113,30 +148,64 @@ public class Main {
 
             List<SystemParameters> paramSets = buildParamSets(mode, baseParams, param1, param2, sweepCatsTriangle, catStep);
 
-            // trace: только 1 набор и mcIterations==1
-            boolean allowTrace = (mcIterations == 1) && (paramSets.size() == 1);
+            // trace: только 1 набор; при mcIterations > 1 — только с фильтром часов
+            boolean allowTrace = (paramSets.size() == 1) && (mcIterations == 1 || traceFilter != null);
 
-            // 4) общий пул
-            ExecutorService ex = Executors.newFixedThreadPool(threads);
+            // 4) общий пул: итерации всех точек sweep идут в один ForkJoinPool
+            ForkJoinPool ex = new ForkJoinPool(threads);
             try {
-                SingleRunSimulator sim = new SingleRunSimulator();
-                MonteCarloRunner mc = new MonteCarloRunner(ex, sim, false, 1.96, 0.1);
-                SimulationEngine engine = new SimulationEngine(mc);
-                List<MonteCarloEstimate> estimates = new ArrayList<>(paramSets.size());
-
-                for (int k = 0; k < paramSets.size(); k++) {
-                    SimInput in = baseInput.withSystemParameters(paramSets.get(k));
-                    MonteCarloEstimate est = engine.runMonteCarlo(in, mcIterations, mcBaseSeed, allowTrace);
-                    estimates.add(est);
-
-                    if (allowTrace
-                            && est.singleRun != null
-                            && est.singleRun.trace != null
-                            && !est.singleRun.trace.isEmpty()) {
-                        SimulationTraceExporter.exportToCsv(traceCsvPath, est.singleRun.trace);
+                // trace пишется на диск прямо по ходу прогона, в памяти не копится
+                SingleRunSimulator sim = allowTrace
+                        ? new SingleRunSimulator(() -> {
+                            StreamingTraceSession s = traceBinPath != null
+                                    ? new StreamingTraceSession(new BinaryTraceWriter(traceBinPath),
+                                                                StreamingTraceSession.DEFAULT_BLOCK_HOURS)
+                                    : new StreamingTraceSession(traceCsvPath);
+                            return traceFilter != null ? new FilteredTraceSession(traceFilter, s) : s;
+                        }, seedScheme, importanceSampling)
+                        : new SingleRunSimulator(ColumnarTraceSession::new, seedScheme, importanceSampling);
+                MonteCarloResultCache mcCache = (mcCacheDir != null) ? new MonteCarloResultCache(mcCacheDir) : null;
+                MonteCarloRunner mc = new MonteCarloRunner(ex, sim, false, 1.96, 0.1,
+                        adaptiveStopping, mcCache, antithetic, controlVariates);
+                SweepScheduler sweep = new SweepScheduler(mc);
+
+                List<SimInput> inputs = new ArrayList<>(paramSets.size());
+                for (SystemParameters p : paramSets) inputs.add(baseInput.withSystemParameters(p));
+
+                // журнал только для sweep: у одиночного прогона нечего досчитывать, а trace в журнал не попадает
+                List<MonteCarloEstimate> estimates;
+                if (journalPath != null && paramSets.size() > 1) {
+                    long runKey = SweepResultJournal.runKey(baseInput, mcIterations, mcBaseSeed, mc);
+                    try (SweepResultJournal journal = SweepResultJournal.open(journalPath, runKey, paramSets)) {
+                        List<Integer> pending = journal.pendingPoints();
+                        if (pending.size() < inputs.size()) {
+                            System.out.println("Journal: " + (inputs.size() - pending.size()) + "/" + inputs.size()
+                                    + " points already done (" + journalPath + ")");
+                        }
+
+                        List<SimInput> todo = new ArrayList<>(pending.size());
+                        for (int k : pending) todo.add(inputs.get(k));
+
+                        sweep.run(todo, mcIterations, mcBaseSeed, allowTrace, (k, est) -> {
+                            int point = pending.get(k);
+                            try {
+                                journal.append(point, est);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                            System.out.println("Point " + (point + 1) + "/" + inputs.size() + " done");
+                        });
+                        estimates = journal.estimates();
                     }
+                } else {
+                    estimates = sweep.run(inputs, mcIterations, mcBaseSeed, allowTrace,
+                            (k, est) -> System.out.println("Point " + (k + 1) + "/" + inputs.size() + " done"));
                 }
 
+                // при mcIterations > 1 выборка идёт без trace: итерация 0 повторяется с trace (тот же seed)
+                if (allowTrace && mcIterations > 1) mc.traceIteration(inputs.get(0), mcBaseSeed, 0);
+                if (allowTrace) System.out.println("Trace saved: " + (traceBinPath != null ? traceBinPath : traceCsvPath));
+
                 // Передаём param1/param2 как оси: для треугольника это сетки k1,k2.
                 SweepResultsExcelWriter.writeXlsx(resultsXlsxPath, mode, cfg, baseParams, paramSets, estimates, param1, param2);
                 System.out.println("Saved: " + resultsXlsxPath);
@@ -10,8 +10,7 @@ import simcore.engine.SimInput;
 import simcore.sobol.*;
 
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 
 public final class MainSobol {
 
@@ -27,7 +26,7 @@ public final class MainSobol {
         long mcBaseSeed = 1_000_000L;
         int threads = Runtime.getRuntime().availableProcessors();
 
-        ExecutorService ex = null;
+        ForkJoinPool ex = null;
 
         try {
             // 1) входные данные
@@ -60,8 +59,8 @@ public final class MainSobol {
             SimulationConfig cfg = ScenarioFactory.defaultConfig(li.windMs(), sobolCfg.getMcIterations(), sobolCfg.getThreads());
             SimInput baseInput = new SimInput(cfg, baseParams, li.totalLoadKw());
 
-            // 5) shared executor for MC across the whole Sobol experiment
-            ex = Executors.newFixedThreadPool(sobolCfg.getThreads());
+            // 5) shared work-stealing pool for all (row, MC-iteration) tasks of the Sobol experiment
+            ex = new ForkJoinPool(sobolCfg.getThreads());
 
             // 6) MC runner + Sobol analyzer
             SingleRunSimulator sim = new SingleRunSimulator();
@@ -0,0 +1,21 @@
+package simcore;
+
+import simcore.engine.SimulationTraceExporter;
+
+/**
+ * Перевод бинарной трассы (см. {@link simcore.engine.trace.BinaryTraceWriter}) в CSV по запросу.
+ */
+public final class MainTraceCsv {
+
+    private MainTraceCsv() {}
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: MainTraceCsv <trace.bin> <trace.csv>");
+            System.exit(2);
+        }
+
+        SimulationTraceExporter.convertBinaryToCsv(args[0], args[1]);
+        System.out.println("Saved: " + args[1]);
+    }
+}
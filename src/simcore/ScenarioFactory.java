@@ -2,14 +2,14 @@ package simcore;
 
 import simcore.config.*;
 import simcore.io.InputData;
-import simcore.io.InputDataLoader;
+import simcore.io.InputDataCache;
 
 public final class ScenarioFactory {
 
     private ScenarioFactory() {}
 
     public static LoadedInput load(String loadPath, String windPath) throws Exception {
-        InputData input = new InputDataLoader().load(loadPath, windPath);
+        InputData input = InputDataCache.load(loadPath, windPath);
 
         double[] load = input.getLoadKw();
         double[] wind = input.getWindMs();
@@ -0,0 +1,106 @@
+package simcore.config;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Канонический SHA-256 по параметрам прогона: для ключей кэшей и журналов результатов.
+ *
+ * Значения подаются в дайджест в фиксированном порядке как little-endian биты
+ * (double — через doubleToLongBits), поэтому ключ стабилен между запусками и JVM.
+ * При добавлении полей в {@link SystemParameters} или {@link SimulationConfig}
+ * их нужно добавить и сюда, иначе точки с разными значениями получат один ключ.
+ */
+public final class ParameterDigest {
+
+    private ParameterDigest() {}
+
+    public static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /** Все поля параметров системы. */
+    public static void update(MessageDigest md, SystemParameters p) {
+        update(md, p.getBusSystemType().ordinal());
+        update(md, p.getFirstCat());
+        update(md, p.getSecondCat());
+        update(md, p.getTotalWindTurbineCount());
+        update(md, p.getWindTurbinePowerKw());
+        update(md, p.getTotalDieselGeneratorCount());
+        update(md, p.getDieselGeneratorPowerKw());
+        update(md, p.getBatteryCapacityKwhPerBus());
+        update(md, p.getWindTurbineFailureRatePerYear());
+        update(md, p.getWindTurbineRepairTimeHours());
+        update(md, p.getDieselGeneratorFailureRatePerYear());
+        update(md, p.getDieselGeneratorRepairTimeHours());
+        update(md, p.getBatteryFailureRatePerYear());
+        update(md, p.getBatteryRepairTimeHours());
+        update(md, p.getBusFailureRatePerYear());
+        update(md, p.getBusRepairTimeHours());
+        update(md, p.getBreakerFailureRatePerYear());
+        update(md, p.getBreakerRepairTimeHours());
+        update(md, p.getSwitchgearRoomFailureRatePerYear());
+        update(md, p.getSwitchgearRoomRepairTimeHours());
+        update(md, p.getBusCcfBetaSectional());
+        update(md, p.getBusCcfBetaDouble());
+        update(md, p.getMaxChargeCurrent());
+        update(md, p.getMaxDischargeCurrent());
+        update(md, p.getNonReserveDischargeLevel());
+    }
+
+    /** Флаги модели; ряд ветра и число итераций не входят (их учитывает вызывающий). */
+    public static void updateFlags(MessageDigest md, SimulationConfig cfg) {
+        update(md, cfg.isConsiderFailures() ? 1 : 0);
+        update(md, cfg.isConsiderMaintenance() ? 1 : 0);
+        update(md, cfg.isConsiderChargeByDg() ? 1 : 0);
+        update(md, cfg.isConsiderHotReserve() ? 1 : 0);
+        update(md, cfg.isConsiderBatteryDegradation() ? 1 : 0);
+        update(md, cfg.isConsiderRotationReserve() ? 1 : 0);
+    }
+
+    /** Длина и все значения ряда. */
+    public static void update(MessageDigest md, double[] a) {
+        update(md, a.length);
+        ByteBuffer b = ByteBuffer.allocate(8192).order(ByteOrder.LITTLE_ENDIAN);
+        for (double v : a) {
+            if (!b.hasRemaining()) {
+                b.flip();
+                md.update(b);
+                b.clear();
+            }
+            b.putDouble(v);
+        }
+        b.flip();
+        md.update(b);
+    }
+
+    public static void update(MessageDigest md, double v) {
+        update(md, Double.doubleToLongBits(v));
+    }
+
+    public static void update(MessageDigest md, long v) {
+        for (int i = 0; i < Long.BYTES; i++) {
+            md.update((byte) (v >>> (8 * i)));
+        }
+    }
+
+    public static void update(MessageDigest md, String s) {
+        update(md, s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            md.update((byte) c);
+            md.update((byte) (c >>> 8));
+        }
+    }
+
+    /** Первые 8 байт дайджеста как long (для компактных отпечатков). */
+    public static long toLong(byte[] digest) {
+        return ByteBuffer.wrap(digest, 0, Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).getLong();
+    }
+}
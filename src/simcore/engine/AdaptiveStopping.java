@@ -0,0 +1,77 @@
+package simcore.engine;
+
+import simcore.config.ParameterDigest;
+
+import java.security.MessageDigest;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Адаптивная остановка Monte Carlo: итерации выполняются волнами, после каждой волны
+ * проверяется текущий CI (с контрольными переменными — скорректированный). Остановка — когда у всех
+ * выбранных метрик полуширина CI не больше relativeError * |mean| (или все наблюдения равны одному
+ * ненулевому значению); mcIterations задаёт жёсткий максимум.
+ * Выборка из одних нулей не сходится: для редких событий (ENS) это значит лишь, что их ещё не было,
+ * и MC идёт до mcIterations.
+ *
+ * @param minIterations сколько итераций выполнить до первой проверки (не меньше 2)
+ * @param waveSize      размер следующих волн
+ * @param metrics       метрики, по которым проверяется сходимость
+ */
+public record AdaptiveStopping(int minIterations, int waveSize, Set<MonteCarloMetric> metrics) {
+
+    public AdaptiveStopping {
+        if (minIterations < 2) {
+            throw new IllegalArgumentException("minIterations must be >= 2");
+        }
+        if (waveSize <= 0) {
+            throw new IllegalArgumentException("waveSize must be > 0");
+        }
+        if (metrics == null || metrics.isEmpty()) {
+            throw new IllegalArgumentException("metrics must not be empty");
+        }
+        metrics = Set.copyOf(EnumSet.copyOf(metrics));
+    }
+
+    /** Сходимость только по ENS. */
+    public static AdaptiveStopping ens(int minIterations, int waveSize) {
+        return new AdaptiveStopping(minIterations, waveSize, EnumSet.of(MonteCarloMetric.ENS_KWH));
+    }
+
+    /** Настройки остановки в ключ кэша или журнала ({@link ParameterDigest}). */
+    public void updateDigest(MessageDigest md) {
+        ParameterDigest.update(md, minIterations);
+        ParameterDigest.update(md, waveSize);
+        for (MonteCarloMetric m : MonteCarloMetric.values()) {
+            ParameterDigest.update(md, metrics.contains(m) ? 1 : 0);
+        }
+    }
+
+    /**
+     * true, если все выбранные метрики достигли целевой относительной погрешности.
+     */
+    boolean isConverged(MetricsAccumulator acc, double tScore, double relativeError) {
+        for (MonteCarloMetric metric : metrics) {
+            RunningStats s = acc.get(metric);
+            long n = s.getCount();
+            if (n < 2) return false;
+
+            double mean = s.getMean();
+            double std = s.getStd();
+            ControlVariateStats.Estimate cv = acc.adjusted(metric);
+            if (cv != null) {
+                mean = cv.mean();
+                std = cv.std();
+            }
+            if (std == 0.0) {
+                // нулевой разброс при нулевом среднем — событий ещё не было, относительная точность не достигнута
+                if (mean == 0.0) return false;
+                continue;
+            }
+
+            double margin = tScore * std / Math.sqrt(n);
+            if (margin > relativeError * Math.abs(mean)) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,262 @@
+package simcore.engine;
+
+import simcore.engine.failures.FailureStepper;
+
+import java.util.Arrays;
+
+/**
+ * Оценка с контрольными переменными: отклики (ENS, топливо, моточасы) регрессируются на
+ * центрированные числа отказов c ({@link SimulationMetrics#failureControls}, E[c] = 0 точно),
+ * наблюдение заменяется остатком e = y - βᵀ c, среднее и CI считаются по остаткам.
+ *
+ * β подбирается перекрёстно (cross-fitting): наблюдения делятся на {@link #FOLDS} частей по номеру
+ * (unit mod FOLDS), остатки части считаются с β, оценённым по остальным частям. β не зависит
+ * от наблюдений, к которым применяется, поэтому оценка несмещённая, а дисперсия остатков —
+ * честная. β по всей выборке здесь не годится: ENS — редкие события, и регрессия на нескольких
+ * прогонах с отказами подгоняется под них, занижая CI в разы.
+ *
+ * Контроль исключается, если в обучающих частях он почти постоянен (отказов этого типа меньше
+ * ~{@link #MIN_CONTROL_SUM_OF_SQUARES}: иначе β по паре отказов огромен и ломает оценку части, где отказ был)
+ * или линейно зависим от остальных; пока наблюдений не больше числа контролей, β части = 0.
+ *
+ * Накопление потоковое: средние и совместные центральные моменты по частям (Welford; слияние — Chan и др.),
+ * так что чанки сливаются так же, как {@link RunningStats}, и итог не зависит от числа потоков.
+ */
+final class ControlVariateStats {
+
+    /** Отклики — метрики, для которых считается оценка с контрольными переменными. */
+    static final MonteCarloMetric[] RESPONSES = {
+            MonteCarloMetric.ENS_KWH,
+            MonteCarloMetric.ENS_CAT1_KWH,
+            MonteCarloMetric.ENS_CAT2_KWH,
+            MonteCarloMetric.FUEL_LITERS,
+            MonteCarloMetric.MOTO_HOURS
+    };
+
+    /** Число частей для перекрёстной оценки β. */
+    static final int FOLDS = 10;
+
+    /** Среднее остатков и их стандартное отклонение (одного наблюдения). */
+    record Estimate(double mean, double std) {}
+
+    private static final int Q = RESPONSES.length;
+    private static final int P = FailureStepper.FAILURE_CONTROLS;
+    private static final int D = Q + P;
+
+    /**
+     * Минимальная сумма квадратов отклонений контроля в обучающей части. Каждый отказ даёт в неё
+     * около 1, так что это примерно минимальное число отказов типа.
+     */
+    static final double MIN_CONTROL_SUM_OF_SQUARES = 10.0;
+
+    /** Контроль исключается, если его остаточная дисперсия меньше этой доли собственной. */
+    private static final double PIVOT_TOLERANCE = 1e-9;
+
+    /** Моменты по частям; null — в часть ещё ничего не попало. */
+    private final Moments[] folds = new Moments[FOLDS];
+
+    private final double[] z = new double[D];
+
+    /** Индекс метрики в {@link #RESPONSES}; -1 — не отклик. */
+    static int responseIndex(MonteCarloMetric metric) {
+        for (int q = 0; q < Q; q++) {
+            if (RESPONSES[q] == metric) return q;
+        }
+        return -1;
+    }
+
+    /**
+     * Наблюдение прогона: взвешенные отклики w * y и контроли (без веса — их среднее 0 и при смещённых
+     * интенсивностях importance sampling).
+     *
+     * @param unit номер наблюдения в выборке (определяет часть)
+     */
+    void add(SimulationMetrics m, long unit) {
+        for (int q = 0; q < Q; q++) z[q] = m.weight * RESPONSES[q].valueOf(m);
+        for (int p = 0; p < P; p++) z[Q + p] = control(m, p);
+        fold(unit).add(z);
+    }
+
+    /** Наблюдение антитетической пары — среднее откликов и контролей двух прогонов. */
+    void addPair(SimulationMetrics a, SimulationMetrics b, long unit) {
+        for (int q = 0; q < Q; q++) {
+            z[q] = 0.5 * (a.weight * RESPONSES[q].valueOf(a) + b.weight * RESPONSES[q].valueOf(b));
+        }
+        for (int p = 0; p < P; p++) z[Q + p] = 0.5 * (control(a, p) + control(b, p));
+        fold(unit).add(z);
+    }
+
+    void merge(ControlVariateStats other) {
+        for (int f = 0; f < FOLDS; f++) {
+            if (other.folds[f] == null) continue;
+            if (folds[f] == null) folds[f] = new Moments();
+            folds[f].merge(other.folds[f]);
+        }
+    }
+
+    /**
+     * Оценка для отклика q по остаткам с перекрёстным β; null, если наблюдений меньше двух.
+     */
+    Estimate estimate(int q) {
+        long n = 0;
+        for (Moments f : folds) {
+            if (f != null) n += f.n;
+        }
+        if (n < 2) return null;
+
+        // остатки части f: e = a_fᵀ z, a_f = (1 на месте q, -β_f на местах контролей)
+        double[] a = new double[D];
+        double[] residualMean = new double[FOLDS];
+        double[] residualSs = new double[FOLDS];
+        double sum = 0.0;
+        for (int f = 0; f < FOLDS; f++) {
+            Moments fold = folds[f];
+            if (fold == null) continue;
+
+            Moments rest = new Moments();
+            for (int g = 0; g < FOLDS; g++) {
+                if (g != f && folds[g] != null) rest.merge(folds[g]);
+            }
+            double[] beta = rest.regression(q);
+
+            Arrays.fill(a, 0.0);
+            a[q] = 1.0;
+            for (int p = 0; p < P; p++) a[Q + p] = -beta[p];
+
+            residualMean[f] = fold.mean(a);
+            residualSs[f] = fold.sumOfSquares(a);
+            sum += fold.n * residualMean[f];
+        }
+
+        double mean = sum / n;
+        double ss = 0.0;
+        for (int f = 0; f < FOLDS; f++) {
+            if (folds[f] == null) continue;
+            double d = residualMean[f] - mean;
+            ss += residualSs[f] + folds[f].n * d * d;
+        }
+        return new Estimate(mean, Math.sqrt(Math.max(0.0, ss) / (n - 1)));
+    }
+
+    private Moments fold(long unit) {
+        int f = (int) (unit % FOLDS);
+        if (folds[f] == null) folds[f] = new Moments();
+        return folds[f];
+    }
+
+    private static double control(SimulationMetrics m, int p) {
+        return (m.failureControls == null) ? 0.0 : m.failureControls[p];
+    }
+
+    /**
+     * Средние и суммы произведений отклонений z = (отклики, контроли) одной части выборки.
+     */
+    private static final class Moments {
+        private long n;
+        private final double[] mean = new double[D];
+        /** D x D по строкам */
+        private final double[] m2 = new double[D * D];
+        private final double[] delta = new double[D];
+
+        void add(double[] z) {
+            n++;
+            for (int i = 0; i < D; i++) {
+                delta[i] = z[i] - mean[i];
+                mean[i] += delta[i] / n;
+            }
+            for (int i = 0; i < D; i++) {
+                for (int j = 0; j < D; j++) {
+                    m2[i * D + j] += delta[i] * (z[j] - mean[j]);
+                }
+            }
+        }
+
+        void merge(Moments other) {
+            if (other.n == 0) return;
+            if (n == 0) {
+                n = other.n;
+                System.arraycopy(other.mean, 0, mean, 0, D);
+                System.arraycopy(other.m2, 0, m2, 0, D * D);
+                return;
+            }
+            long total = n + other.n;
+            double f = (double) n * other.n / total;
+            for (int i = 0; i < D; i++) delta[i] = other.mean[i] - mean[i];
+            for (int i = 0; i < D; i++) {
+                for (int j = 0; j < D; j++) {
+                    m2[i * D + j] += other.m2[i * D + j] + delta[i] * delta[j] * f;
+                }
+            }
+            for (int i = 0; i < D; i++) mean[i] += delta[i] * other.n / total;
+            n = total;
+        }
+
+        /** Среднее aᵀ z. */
+        double mean(double[] a) {
+            double s = 0.0;
+            for (int i = 0; i < D; i++) s += a[i] * mean[i];
+            return s;
+        }
+
+        /** Сумма квадратов отклонений aᵀ z от среднего: aᵀ M2 a. */
+        double sumOfSquares(double[] a) {
+            double s = 0.0;
+            for (int i = 0; i < D; i++) {
+                if (a[i] == 0.0) continue;
+                for (int j = 0; j < D; j++) s += a[i] * m2[i * D + j] * a[j];
+            }
+            return s;
+        }
+
+        /**
+         * МНК-коэффициенты отклика q по контролям (нули у исключённых контролей или все нули,
+         * если наблюдений не больше числа контролей). Холецкий с пропуском вырожденных контролей.
+         */
+        double[] regression(int q) {
+            double[] l = new double[P * P];
+            boolean[] active = new boolean[P];
+            int activeCount = 0;
+            for (int i = 0; i < P; i++) {
+                double sii = m2[(Q + i) * D + Q + i];
+                if (!(sii >= MIN_CONTROL_SUM_OF_SQUARES)) continue;
+                for (int j = 0; j <= i; j++) {
+                    if (j < i && !active[j]) continue;
+                    double s = m2[(Q + i) * D + Q + j];
+                    for (int k = 0; k < j; k++) {
+                        if (active[k]) s -= l[i * P + k] * l[j * P + k];
+                    }
+                    if (j < i) {
+                        l[i * P + j] = s / l[j * P + j];
+                    } else if (s > PIVOT_TOLERANCE * sii) {
+                        l[i * P + i] = Math.sqrt(s);
+                        active[i] = true;
+                        activeCount++;
+                    }
+                }
+            }
+
+            double[] beta = new double[P];
+            if (activeCount == 0 || n - 1 - activeCount <= 0) return beta;
+
+            // L Lᵀ β = S_cy
+            double[] y = new double[P];
+            for (int i = 0; i < P; i++) {
+                if (!active[i]) continue;
+                double s = m2[(Q + i) * D + q];
+                for (int k = 0; k < i; k++) {
+                    if (active[k]) s -= l[i * P + k] * y[k];
+                }
+                y[i] = s / l[i * P + i];
+            }
+            for (int i = P - 1; i >= 0; i--) {
+                if (!active[i]) continue;
+                double s = y[i];
+                for (int k = i + 1; k < P; k++) {
+                    if (active[k]) s -= l[k * P + i] * beta[k];
+                }
+                beta[i] = s / l[i * P + i];
+            }
+            return beta;
+        }
+    }
+}
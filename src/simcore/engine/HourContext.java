@@ -4,16 +4,19 @@ import simcore.config.SystemParameters;
 import simcore.engine.trace.TraceSession;
 
 /**
- * Immutable context for one simulation hour.
+ * Context for the simulation hours of one run.
  *
  * The purpose is to reduce huge argument lists and prevent accidental parameter mixups.
  * This class is deliberately a plain data holder; it must not contain logic.
+ * It is created once per run: run-level values are final, the per-hour values
+ * ({@link #windPerTurbineKw}, {@link #hourWreKwh}) are overwritten at the start of every hour.
  */
 final class HourContext {
 
     final SystemParameters sp;
 
-    final double windV;
+    /** Выдача одной исправной ВЭУ в этом часу, кВт. */
+    double windPerTurbineKw;
 
     final boolean considerDegradation;
     final boolean considerChargeByDg;
@@ -29,13 +32,15 @@ final class HourContext {
     final double dgStartDelayHours;
 
     final Totals totals;
-    /** A single-element array used as a mutable accumulator for WRE per-hour in tracing paths. */
-    final double[] hourWreRef;
+    /** WRE accumulated over the buses in the current hour (used by tracing). */
+    double hourWreKwh;
     final TraceSession trace;
 
+    /** Scratch buffers reused every hour. */
+    final RunWorkspace work;
+
     HourContext(
             SystemParameters sp,
-            double windV,
             boolean considerDegradation,
             boolean considerChargeByDg,
             boolean considerRotationReserve,
@@ -47,11 +52,10 @@ final class HourContext {
             double perDgOptimalKw,
             double dgStartDelayHours,
             Totals totals,
-            double[] hourWreRef,
-            TraceSession trace
+            TraceSession trace,
+            RunWorkspace work
     ) {
         this.sp = sp;
-        this.windV = windV;
         this.considerDegradation = considerDegradation;
         this.considerChargeByDg = considerChargeByDg;
         this.considerRotationReserve = considerRotationReserve;
@@ -63,7 +67,7 @@ final class HourContext {
         this.perDgOptimalKw = perDgOptimalKw;
         this.dgStartDelayHours = dgStartDelayHours;
         this.totals = totals;
-        this.hourWreRef = hourWreRef;
         this.trace = trace;
+        this.work = work;
     }
 }
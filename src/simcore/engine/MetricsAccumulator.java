@@ -0,0 +1,106 @@
+package simcore.engine;
+
+/**
+ * Потоковые статистики всех {@link MonteCarloMetric} по части MC-выборки.
+ * Каждый чанк ведёт свой аккумулятор; итог получается слиянием чанков по порядку.
+ * С контрольными переменными ({@link ControlVariateStats}) средние и CI откликов
+ * (ENS, топливо, моточасы) — скорректированные; {@link #get} по-прежнему даёт выборочные моменты.
+ */
+public final class MetricsAccumulator {
+
+    private static final MonteCarloMetric[] METRICS = MonteCarloMetric.values();
+
+    private final RunningStats[] stats = new RunningStats[METRICS.length];
+
+    /** null — без контрольных переменных. */
+    private final ControlVariateStats controls;
+
+    public MetricsAccumulator() {
+        this(false);
+    }
+
+    /**
+     * @param controlVariates копить совместные моменты откликов и центрированных чисел отказов
+     */
+    public MetricsAccumulator(boolean controlVariates) {
+        for (int i = 0; i < stats.length; i++) stats[i] = new RunningStats();
+        this.controls = controlVariates ? new ControlVariateStats() : null;
+    }
+
+    /** Наблюдение прогона с весом importance sampling: w * x (без смещения w = 1). */
+    public void add(SimulationMetrics m) {
+        add(m, getCount());
+    }
+
+    /**
+     * @param unit номер наблюдения во всей выборке (часть перекрёстной оценки контрольных переменных);
+     *             чанк передаёт свой индекс итерации, чтобы итог не зависел от разбиения на чанки
+     */
+    public void add(SimulationMetrics m, long unit) {
+        for (int i = 0; i < stats.length; i++) {
+            stats[i].add(m.weight * METRICS[i].valueOf(m));
+        }
+        if (controls != null) controls.add(m, unit);
+    }
+
+    /** Одно наблюдение — среднее (взвешенных) значений антитетической пары прогонов. */
+    public void addPair(SimulationMetrics a, SimulationMetrics b) {
+        addPair(a, b, getCount());
+    }
+
+    public void addPair(SimulationMetrics a, SimulationMetrics b, long unit) {
+        for (int i = 0; i < stats.length; i++) {
+            stats[i].add(0.5 * (a.weight * METRICS[i].valueOf(a) + b.weight * METRICS[i].valueOf(b)));
+        }
+        if (controls != null) controls.addPair(a, b, unit);
+    }
+
+    public void merge(MetricsAccumulator other) {
+        for (int i = 0; i < stats.length; i++) {
+            stats[i].merge(other.stats[i]);
+        }
+        if (controls != null && other.controls != null) controls.merge(other.controls);
+    }
+
+    public long getCount() {
+        return stats[0].getCount();
+    }
+
+    public RunningStats get(MonteCarloMetric metric) {
+        return stats[metric.ordinal()];
+    }
+
+    /** Среднее метрики (для откликов с контрольными переменными — скорректированное). */
+    public double mean(MonteCarloMetric metric) {
+        ControlVariateStats.Estimate cv = adjusted(metric);
+        return (cv != null) ? cv.mean() : get(metric).getMean();
+    }
+
+    /**
+     * Оценка с контрольными переменными или null (они выключены, метрика не отклик
+     * или наблюдений пока слишком мало).
+     */
+    ControlVariateStats.Estimate adjusted(MonteCarloMetric metric) {
+        if (controls == null) return null;
+        int q = ControlVariateStats.responseIndex(metric);
+        return (q < 0) ? null : controls.estimate(q);
+    }
+
+    /** Статистика (mean, CI, requiredN) одной метрики. */
+    public MonteCarloStats.Stats toStats(MonteCarloMetric metric, double tScore, double relativeError) {
+        ControlVariateStats.Estimate cv = adjusted(metric);
+        if (cv == null) return get(metric).toStats(tScore, relativeError);
+        return MonteCarloStats.fromMoments(cv.mean(), cv.std(), (int) getCount(), tScore, relativeError);
+    }
+
+    /**
+     * Статистики (mean, CI, requiredN) по всем метрикам, индекс — {@link MonteCarloMetric#ordinal()}.
+     */
+    public MonteCarloStats.Stats[] toStats(double tScore, double relativeError) {
+        MonteCarloStats.Stats[] out = new MonteCarloStats.Stats[stats.length];
+        for (int i = 0; i < stats.length; i++) {
+            out[i] = toStats(METRICS[i], tScore, relativeError);
+        }
+        return out;
+    }
+}
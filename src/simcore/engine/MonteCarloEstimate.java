@@ -8,6 +8,7 @@ import simcore.sobol.ParameterSet;
  * - средний Fuel / Moto / WRE
  * - доли WT/DG/BT (в % от нагрузки)
  * - singleRun (если mcIterations == 1 и включён trace)
+ * - mean/CI/requiredN по каждой {@link MonteCarloMetric} (если посчитаны)
  */
 public final class MonteCarloEstimate {
 
@@ -52,6 +53,9 @@ public final class MonteCarloEstimate {
     public final double meanFailBrk;
     public final double meanRepBt;
 
+    /** Статистики по метрикам, индекс — {@link MonteCarloMetric#ordinal()}; null, если не считались. */
+    private final MonteCarloStats.Stats[] metricStats;
+
 
     public MonteCarloEstimate(ParameterSet theta,
                               MonteCarloStats.Stats ensStats,
@@ -71,6 +75,32 @@ public final class MonteCarloEstimate {
                               double meanFailBt,
                               double meanFailBrk,
                               double meanRepBt
+    ) {
+        this(theta, ensStats, meanEnsCat1Kwh, meanEnsCat2Kwh, meanFuelLiters, meanMotoHours,
+                meanWre, meanWtPct, meanDgPct, meanBtPct, singleRun,
+                meanFailRoom, meanFailBus, meanFailDg, meanFailWt, meanFailBt, meanFailBrk, meanRepBt,
+                null);
+    }
+
+    public MonteCarloEstimate(ParameterSet theta,
+                              MonteCarloStats.Stats ensStats,
+                              double meanEnsCat1Kwh,
+                              double meanEnsCat2Kwh,
+                              double meanFuelLiters,
+                              double meanMotoHours,
+                              double meanWre,
+                              double meanWtPct,
+                              double meanDgPct,
+                              double meanBtPct,
+                              SingleRunMetrics singleRun,
+                              double meanFailRoom,
+                              double meanFailBus,
+                              double meanFailDg,
+                              double meanFailWt,
+                              double meanFailBt,
+                              double meanFailBrk,
+                              double meanRepBt,
+                              MonteCarloStats.Stats[] metricStats
     ) {
         this.theta = theta;
         this.ensStats = ensStats;
@@ -90,5 +120,13 @@ public final class MonteCarloEstimate {
         this.meanFailBt = meanFailBt;
         this.meanFailBrk = meanFailBrk;
         this.meanRepBt = meanRepBt;
+        this.metricStats = metricStats;
+    }
+
+    /**
+     * Mean, CI и требуемый объём выборки по метрике; null, если статистики по метрикам не считались.
+     */
+    public MonteCarloStats.Stats getStats(MonteCarloMetric metric) {
+        return (metricStats == null) ? null : metricStats[metric.ordinal()];
     }
 }
@@ -0,0 +1,50 @@
+package simcore.engine;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Метрики одного прогона, по которым накапливается MC-статистика ({@link MetricsAccumulator}).
+ * Доли источников (*_PCT) — в % от нагрузки прогона.
+ */
+public enum MonteCarloMetric {
+
+    LOAD_KWH(m -> m.loadKwh),
+    ENS_KWH(m -> m.ensKwh),
+    ENS_CAT1_KWH(m -> m.ensCat1Kwh),
+    ENS_CAT2_KWH(m -> m.ensCat2Kwh),
+    WRE_KWH(m -> m.wreKwh),
+    WT_TO_LOAD_KWH(m -> m.wtToLoadKwh),
+    DG_TO_LOAD_KWH(m -> m.dgToLoadKwh),
+    BT_TO_LOAD_KWH(m -> m.btToLoadKwh),
+    FUEL_LITERS(m -> m.fuelLiters),
+    MOTO_HOURS(m -> (double) m.totalMotoHours),
+
+    WRE_PCT(m -> MonteCarloRunner.pct(m.wreKwh, m.loadKwh)),
+    WT_PCT(m -> MonteCarloRunner.pct(m.wtToLoadKwh, m.loadKwh)),
+    DG_PCT(m -> MonteCarloRunner.pct(m.dgToLoadKwh, m.loadKwh)),
+    BT_PCT(m -> MonteCarloRunner.pct(m.btToLoadKwh, m.loadKwh)),
+
+    FAIL_ROOM(m -> m.failRoom),
+    FAIL_BUS(m -> m.failBus),
+    FAIL_DG(m -> m.failDg),
+    FAIL_WT(m -> m.failWt),
+    FAIL_BT(m -> m.failBt),
+    FAIL_BRK(m -> m.failBrk),
+    REP_BT(m -> m.repBt),
+
+    /**
+     * Вес прогона при importance sampling: наблюдение w * 1 = w. Среднее должно быть около 1;
+     * если оно заметно меньше, а CI широкий — веса вырождены, коэффициенты смещения слишком велики.
+     */
+    IS_WEIGHT(m -> 1.0);
+
+    private final ToDoubleFunction<SimulationMetrics> extractor;
+
+    MonteCarloMetric(ToDoubleFunction<SimulationMetrics> extractor) {
+        this.extractor = extractor;
+    }
+
+    public double valueOf(SimulationMetrics m) {
+        return extractor.applyAsDouble(m);
+    }
+}
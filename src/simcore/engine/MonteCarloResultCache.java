@@ -0,0 +1,251 @@
+package simcore.engine;
+
+import simcore.config.ParameterDigest;
+import simcore.sobol.ParameterSet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Кэш итогов MC между запусками: каталог файлов {@code <sha256>.mce}, имя файла — ключ
+ * (см. {@link MonteCarloRunner} — параметры системы, флаги модели, хэш входных рядов, схема seed,
+ * mcIterations и настройки оценки). Повторный sweep с пересекающимися точками берёт готовые оценки.
+ *
+ * Вытеснение LRU по размеру каталога: при попадании у файла обновляется время изменения,
+ * при превышении maxBytes удаляются самые давно использованные файлы (до 90% лимита).
+ *
+ * Код модели в ключ не входит: после изменения расчёта каталог кэша нужно очистить
+ * (или поднять {@link #FORMAT_VERSION}). Кэш — только ускорение: ошибки чтения считаются
+ * промахом, ошибки записи выводятся в stderr и не прерывают прогон.
+ *
+ * Формат файла (little-endian): "SCMC", int32 version, int32 metricCount (0 — без статистик по метрикам),
+ * byte[32] ключ, ENS (double mean, ciLow, ciHigh, int32 requiredN, actualN), 15 x double средних,
+ * metricCount x ENS-подобная статистика, int32 CRC32 предыдущих байт.
+ */
+public final class MonteCarloResultCache {
+
+    /** входит в ключ: смена версии делает недействительными все прежние записи */
+    public static final int FORMAT_VERSION = 1;
+
+    public static final long DEFAULT_MAX_BYTES = 64L << 20;
+
+    private static final int MAGIC = 'S' | ('C' << 8) | ('M' << 16) | ('C' << 24);
+    private static final String SUFFIX = ".mce";
+    private static final int KEY_BYTES = 32;
+    private static final int STATS_BYTES = 3 * Double.BYTES + 2 * Integer.BYTES;
+    private static final int MEANS = 15;
+
+    private final Path dir;
+    private final long maxBytes;
+
+    /** размер каталога по оценке этого процесса; пересчитывается при вытеснении */
+    private long approxBytes;
+
+    /** хэши входных рядов по идентичности массива: ряды общие для всех точек и не меняются */
+    private final Map<double[], byte[]> seriesHashes = new WeakHashMap<>();
+
+    public MonteCarloResultCache(String dir) throws IOException {
+        this(dir, DEFAULT_MAX_BYTES);
+    }
+
+    public MonteCarloResultCache(String dir, long maxBytes) throws IOException {
+        if (maxBytes <= 0) throw new IllegalArgumentException("maxBytes must be > 0");
+        this.dir = Path.of(dir);
+        this.maxBytes = maxBytes;
+        Files.createDirectories(this.dir);
+        this.approxBytes = directorySize();
+    }
+
+    /** Хэш входного ряда (считается один раз на массив). */
+    synchronized byte[] seriesHash(double[] series) {
+        byte[] h = seriesHashes.get(series);
+        if (h == null) {
+            MessageDigest md = ParameterDigest.sha256();
+            ParameterDigest.update(md, series);
+            h = md.digest();
+            seriesHashes.put(series, h);
+        }
+        return h;
+    }
+
+    /** Оценка по ключу или null; theta подставляется вызывающим (в ключ входит уже применённый theta). */
+    MonteCarloEstimate get(byte[] key, ParameterSet theta) {
+        Path file = fileFor(key);
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file);
+        } catch (IOException e) {
+            // нет записи (или её только что вытеснили)
+            return null;
+        }
+
+        MonteCarloEstimate est = decode(bytes, key, theta);
+        if (est != null) {
+            try {
+                Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            } catch (IOException ignored) {
+                // файл мог вытеснить другой процесс — оценка уже прочитана
+            }
+        }
+        return est;
+    }
+
+    void put(byte[] key, MonteCarloEstimate e) {
+        byte[] bytes = encode(key, e);
+        Path file = fileFor(key);
+        try {
+            Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+            try {
+                Files.write(tmp, bytes);
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException ex) {
+            System.err.println("Не удалось записать кэш MC " + file + ": " + ex.getMessage());
+            return;
+        }
+
+        boolean evict;
+        synchronized (this) {
+            approxBytes += bytes.length;
+            evict = approxBytes > maxBytes;
+        }
+        if (evict) evict();
+    }
+
+    /** Удалить самые давно использованные записи, пока каталог не станет меньше 90% лимита. */
+    private synchronized void evict() {
+        List<Path> files = new ArrayList<>();
+        List<BasicFileAttributes> attrs = new ArrayList<>();
+        long total = 0;
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+            for (Path p : ds) {
+                try {
+                    BasicFileAttributes a = Files.readAttributes(p, BasicFileAttributes.class);
+                    files.add(p);
+                    attrs.add(a);
+                    total += a.size();
+                } catch (IOException ignored) {
+                    // удалён параллельно
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Не удалось прочитать каталог кэша MC " + dir + ": " + e.getMessage());
+            return;
+        }
+
+        Integer[] order = new Integer[files.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparing(i -> attrs.get(i).lastModifiedTime()));
+
+        long target = maxBytes - maxBytes / 10;
+        for (int i = 0; i < order.length && total > target; i++) {
+            try {
+                Files.deleteIfExists(files.get(order[i]));
+                total -= attrs.get(order[i]).size();
+            } catch (IOException ignored) {
+                // занят или уже удалён
+            }
+        }
+        approxBytes = total;
+    }
+
+    private long directorySize() throws IOException {
+        long total = 0;
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+            for (Path p : ds) total += Files.size(p);
+        }
+        return total;
+    }
+
+    private Path fileFor(byte[] key) {
+        return dir.resolve(HexFormat.of().formatHex(key) + SUFFIX);
+    }
+
+    // ===== формат =====
+
+    private static byte[] encode(byte[] key, MonteCarloEstimate e) {
+        MonteCarloMetric[] metrics = MonteCarloMetric.values();
+        boolean withMetrics = e.getStats(metrics[0]) != null;
+        int metricCount = withMetrics ? metrics.length : 0;
+
+        ByteBuffer b = ByteBuffer.allocate(3 * Integer.BYTES + KEY_BYTES + STATS_BYTES + MEANS * Double.BYTES
+                + metricCount * STATS_BYTES + Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        b.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(metricCount).put(key);
+        putStats(b, e.ensStats);
+        b.putDouble(e.meanEnsCat1Kwh).putDouble(e.meanEnsCat2Kwh)
+                .putDouble(e.meanFuelLiters).putDouble(e.meanMotoHours)
+                .putDouble(e.meanWre)
+                .putDouble(e.meanWtPct).putDouble(e.meanDgPct).putDouble(e.meanBtPct)
+                .putDouble(e.meanFailRoom).putDouble(e.meanFailBus).putDouble(e.meanFailDg)
+                .putDouble(e.meanFailWt).putDouble(e.meanFailBt).putDouble(e.meanFailBrk)
+                .putDouble(e.meanRepBt);
+        for (int i = 0; i < metricCount; i++) putStats(b, e.getStats(metrics[i]));
+
+        CRC32 crc = new CRC32();
+        crc.update(b.array(), 0, b.position());
+        b.putInt((int) crc.getValue());
+        return b.array();
+    }
+
+    private static MonteCarloEstimate decode(byte[] bytes, byte[] key, ParameterSet theta) {
+        int fixed = 3 * Integer.BYTES + KEY_BYTES + STATS_BYTES + MEANS * Double.BYTES + Integer.BYTES;
+        if (bytes.length < fixed) return null;
+
+        ByteBuffer b = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        if (b.getInt() != MAGIC || b.getInt() != FORMAT_VERSION) return null;
+        int metricCount = b.getInt();
+        if (metricCount != 0 && metricCount != MonteCarloMetric.values().length) return null;
+        if (bytes.length != fixed + metricCount * STATS_BYTES) return null;
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - Integer.BYTES);
+        if ((int) crc.getValue() != b.getInt(bytes.length - Integer.BYTES)) return null;
+
+        byte[] stored = new byte[KEY_BYTES];
+        b.get(stored);
+        if (!Arrays.equals(stored, key)) return null;
+
+        MonteCarloStats.Stats ens = getStats(b);
+        double[] m = new double[MEANS];
+        for (int i = 0; i < MEANS; i++) m[i] = b.getDouble();
+
+        MonteCarloStats.Stats[] metricStats = null;
+        if (metricCount > 0) {
+            metricStats = new MonteCarloStats.Stats[metricCount];
+            for (int i = 0; i < metricCount; i++) metricStats[i] = getStats(b);
+        }
+
+        return new MonteCarloEstimate(theta, ens,
+                m[0], m[1], m[2], m[3], m[4], m[5], m[6], m[7],
+                null,
+                m[8], m[9], m[10], m[11], m[12], m[13], m[14],
+                metricStats);
+    }
+
+    private static void putStats(ByteBuffer b, MonteCarloStats.Stats s) {
+        b.putDouble(s.getMean()).putDouble(s.getCiLow()).putDouble(s.getCiHigh())
+                .putInt(s.getRequiredSampleSize()).putInt(s.getActualSampleSize());
+    }
+
+    private static MonteCarloStats.Stats getStats(ByteBuffer b) {
+        return new MonteCarloStats.Stats(b.getDouble(), b.getDouble(), b.getDouble(), b.getInt(), b.getInt());
+    }
+}
@@ -1,20 +1,21 @@
 // File: simcore/engine/MonteCarloRunner.java
 package simcore.engine;
 
+import simcore.config.ParameterDigest;
 import simcore.config.SimulationConstants;
 import simcore.config.SystemParameters;
+import simcore.engine.failures.ImportanceSampling;
 import simcore.sobol.ParameterSet;
 import simcore.sobol.SobolConfig;
 
+import java.security.MessageDigest;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.*;
 
 public final class MonteCarloRunner {
 
-    private static final long MC_SEED_STRIDE = 10_000L;
-    private static final long SOBOL_ROW_SEED_STRIDE = 10_000_000_000L; // 1e10
-
     private final ExecutorService executor;
     private final SingleRunSimulator simulator;
 
@@ -22,16 +23,101 @@ public final class MonteCarloRunner {
     private final double tScore;
     private final double relativeError;
 
+    /** null — фиксированное число итераций mcIterations. */
+    private final AdaptiveStopping adaptiveStopping;
+
+    /** null — без кэша итогов между запусками. */
+    private final MonteCarloResultCache cache;
+
+    /**
+     * Антитетические пары: итерации 2k и 2k+1 идут с одним seed, во второй каждое u отказов
+     * заменено на 1 - u; в статистику попадает среднее пары.
+     */
+    private final boolean antithetic;
+
+    /**
+     * Контрольные переменные: ENS, топливо и моточасы регрессируются на центрированные числа отказов
+     * прогона (β — перекрёстно по частям выборки, {@link ControlVariateStats}),
+     * в итог идут скорректированные средние и CI.
+     */
+    private final boolean controlVariates;
+
     public MonteCarloRunner(ExecutorService executor,
                             SingleRunSimulator simulator,
                             boolean removeOutliers,
                             double tScore,
                             double relativeError) {
+        this(executor, simulator, removeOutliers, tScore, relativeError, null);
+    }
+
+    /**
+     * @param adaptiveStopping адаптивная остановка по CI (mcIterations становится жёстким максимумом);
+     *                         null — фиксированное число итераций
+     */
+    public MonteCarloRunner(ExecutorService executor,
+                            SingleRunSimulator simulator,
+                            boolean removeOutliers,
+                            double tScore,
+                            double relativeError,
+                            AdaptiveStopping adaptiveStopping) {
+        this(executor, simulator, removeOutliers, tScore, relativeError, adaptiveStopping, null);
+    }
+
+    /**
+     * @param cache кэш итогов между запусками (точка с тем же ключом не пересчитывается); null — без кэша
+     */
+    public MonteCarloRunner(ExecutorService executor,
+                            SingleRunSimulator simulator,
+                            boolean removeOutliers,
+                            double tScore,
+                            double relativeError,
+                            AdaptiveStopping adaptiveStopping,
+                            MonteCarloResultCache cache) {
+        this(executor, simulator, removeOutliers, tScore, relativeError, adaptiveStopping, cache, false);
+    }
+
+    /**
+     * @param antithetic режим антитетических пар: mcIterations прогонов дают mcIterations / 2 наблюдений
+     *                   (средних пар); N и requiredN в статистиках считаются в парах,
+     *                   размеры волн адаптивной остановки — по-прежнему в прогонах
+     */
+    public MonteCarloRunner(ExecutorService executor,
+                            SingleRunSimulator simulator,
+                            boolean removeOutliers,
+                            double tScore,
+                            double relativeError,
+                            AdaptiveStopping adaptiveStopping,
+                            MonteCarloResultCache cache,
+                            boolean antithetic) {
+        this(executor, simulator, removeOutliers, tScore, relativeError, adaptiveStopping, cache, antithetic, false);
+    }
+
+    /**
+     * @param controlVariates оценка с контрольными переменными (центрированные числа отказов);
+     *                        несовместима с removeOutliers — фильтр выбросов меняет выборку ENS,
+     *                        а не регрессию
+     */
+    public MonteCarloRunner(ExecutorService executor,
+                            SingleRunSimulator simulator,
+                            boolean removeOutliers,
+                            double tScore,
+                            double relativeError,
+                            AdaptiveStopping adaptiveStopping,
+                            MonteCarloResultCache cache,
+                            boolean antithetic,
+                            boolean controlVariates) {
+        if (removeOutliers && controlVariates) {
+            throw new IllegalArgumentException("controlVariates cannot be combined with removeOutliers");
+        }
         this.executor = executor;
         this.simulator = simulator;
         this.removeOutliers = removeOutliers;
         this.tScore = tScore;
         this.relativeError = relativeError;
+        this.adaptiveStopping = adaptiveStopping;
+        this.cache = cache;
+        this.antithetic = antithetic;
+        this.controlVariates = controlVariates;
     }
 
     public MonteCarloEstimate evaluateForTheta(SimInput baseInput,
@@ -58,18 +144,143 @@ public final class MonteCarloRunner {
                                                boolean traceIfSingle)
             throws InterruptedException, ExecutionException {
 
-        // apply theta
-        SimInput input = baseInput;
-        if (theta != null && sobolCfg != null) {
-            SystemParameters baseParams = baseInput.getSystemParameters();
-            SystemParameters tuned = theta.applyTo(baseParams, sobolCfg);
-            input = baseInput.withSystemParameters(tuned);
-        }
+        SimInput input = applyTheta(baseInput, theta, sobolCfg);
 
         if (mcIterations <= 0) {
             throw new IllegalArgumentException("mcIterations must be > 0");
         }
 
+        byte[] key = cacheKey(input, mcIterations, mcBaseSeed, sobolRowIdx, traceIfSingle);
+        MonteCarloEstimate cached = cached(key, theta);
+        if (cached != null) return cached;
+
+        MonteCarloEstimate estimate = sample(input, theta, mcIterations, mcBaseSeed, sobolRowIdx, traceIfSingle);
+        store(key, estimate);
+        return estimate;
+    }
+
+    private MonteCarloEstimate sample(SimInput input,
+                                      ParameterSet theta,
+                                      int mcIterations,
+                                      long mcBaseSeed,
+                                      long sobolRowIdx,
+                                      boolean traceIfSingle)
+            throws InterruptedException, ExecutionException {
+
+        MonteCarloEstimate withoutSampling = evaluateWithoutSampling(
+                input, theta, mcIterations, mcBaseSeed, sobolRowIdx, traceIfSingle);
+        if (withoutSampling != null) return withoutSampling;
+
+        int units = sampleUnits(mcIterations);
+        double[] ens = newEnsSample(units);
+        MetricsAccumulator total = newAccumulator();
+
+        int done = 0;
+        for (int end = firstWaveEnd(units); end > done; end = nextWaveEnd(done, units, total)) {
+            runRange(input, mcBaseSeed, sobolRowIdx, done, end, total, ens);
+            done = end;
+        }
+
+        return summarize(theta, total, ens, done);
+    }
+
+    /**
+     * Повторить итерацию mcIdx с trace: seed тот же, что в выборке, так что trace соответствует
+     * этой итерации многократного MC (в режиме пар нечётная итерация — антитетический двойник
+     * предыдущей). Trace пишется в сессию, которую создаёт симулятор.
+     */
+    public SimulationMetrics traceIteration(SimInput input, long mcBaseSeed, int mcIdx) {
+        if (antithetic) {
+            return simulator.simulate(input, seedFor(mcBaseSeed, 0L, mcIdx & ~1), (mcIdx & 1) != 0, true);
+        }
+        return simulator.simulate(input, seedFor(mcBaseSeed, 0L, mcIdx), true);
+    }
+
+    ExecutorService executor() {
+        return executor;
+    }
+
+    /**
+     * Ключ точки в кэше: параметры системы (theta уже применён), флаги модели, хэши рядов нагрузки
+     * и ветра, базовый seed и строка, mcIterations и настройки runner'а ({@link #updateSettingsDigest}).
+     *
+     * @return null, если кэша нет или нужен trace (его даёт только настоящий прогон)
+     */
+    byte[] cacheKey(SimInput input, int mcIterations, long mcBaseSeed, long sobolRowIdx, boolean traceIfSingle) {
+        if (cache == null || (traceIfSingle && mcIterations == 1)) return null;
+
+        MessageDigest md = ParameterDigest.sha256();
+        ParameterDigest.update(md, MonteCarloResultCache.FORMAT_VERSION);
+        ParameterDigest.update(md, input.getSystemParameters());
+        ParameterDigest.updateFlags(md, input.getConfig());
+        md.update(cache.seriesHash(input.getTotalLoadKw()));
+        md.update(cache.seriesHash(input.getConfig().getWindMs()));
+
+        ParameterDigest.update(md, mcBaseSeed);
+        ParameterDigest.update(md, sobolRowIdx);
+        ParameterDigest.update(md, mcIterations);
+        updateSettingsDigest(md);
+        return md.digest();
+    }
+
+    /**
+     * Настройки, от которых зависят оценки при тех же входе, seed и mcIterations:
+     * схема seed, антитетические пары, importance sampling, контрольные переменные, фильтр выбросов,
+     * CI, адаптивная остановка.
+     */
+    public void updateSettingsDigest(MessageDigest md) {
+        ParameterDigest.update(md, simulator.getSeedScheme().name());
+        ParameterDigest.update(md, antithetic ? 1 : 0);
+        ParameterDigest.update(md, controlVariates ? 1 : 0);
+        ImportanceSampling is = simulator.getImportanceSampling();
+        if (is == null) {
+            ParameterDigest.update(md, -1);
+        } else {
+            is.updateDigest(md);
+        }
+
+        ParameterDigest.update(md, removeOutliers ? 1 : 0);
+        ParameterDigest.update(md, tScore);
+        ParameterDigest.update(md, relativeError);
+        if (adaptiveStopping == null) {
+            ParameterDigest.update(md, -1);
+        } else {
+            adaptiveStopping.updateDigest(md);
+        }
+    }
+
+    /** Оценка из кэша или null (нет кэша, ключа или записи). */
+    MonteCarloEstimate cached(byte[] key, ParameterSet theta) {
+        return (key == null) ? null : cache.get(key, theta);
+    }
+
+    void store(byte[] key, MonteCarloEstimate estimate) {
+        if (key != null) cache.put(key, estimate);
+    }
+
+    /** Вход с параметрами, изменёнными по theta (без theta/sobolCfg — baseInput как есть). */
+    public static SimInput applyTheta(SimInput baseInput, ParameterSet theta, SobolConfig sobolCfg) {
+        if (theta != null && sobolCfg != null) {
+            SystemParameters baseParams = baseInput.getSystemParameters();
+            SystemParameters tuned = theta.applyTo(baseParams, sobolCfg);
+            return baseInput.withSystemParameters(tuned);
+        }
+        return baseInput;
+    }
+
+    /**
+     * Случаи без MC-выборки: одна итерация (возможно с trace) или результат, не зависящий от seed.
+     * Все метрики здесь — значения прогона без веса importance sampling (и {@link MonteCarloMetric#IS_WEIGHT} = 1):
+     * по одному прогону взвешенное среднее ничего не оценивает.
+     *
+     * @return оценка или null, если нужна обычная выборка
+     */
+    MonteCarloEstimate evaluateWithoutSampling(SimInput input,
+                                               ParameterSet theta,
+                                               int mcIterations,
+                                               long mcBaseSeed,
+                                               long sobolRowIdx,
+                                               boolean traceIfSingle) {
         if (mcIterations == 1) {
             long seed = seedFor(mcBaseSeed, sobolRowIdx, 0);
             SimulationMetrics m = simulator.simulate(input, seed, traceIfSingle);
@@ -77,245 +288,224 @@ public final class MonteCarloRunner {
             double[] ensArr = new double[]{m.ensKwh};
             MonteCarloStats.Stats ensStats = MonteCarloStats.compute(ensArr, removeOutliers, tScore, relativeError);
 
-            double wtPct = pct(m.wtToLoadKwh, m.loadKwh);
-            double dgPct = pct(m.dgToLoadKwh, m.loadKwh);
-            double btPct = pct(m.btToLoadKwh, m.loadKwh);
-            double wrePct = pct(m.wreKwh, m.loadKwh);
-
             SingleRunMetrics singleRun = (m.trace != null) ? new SingleRunMetrics(m.trace) : null;
+            return fromSingleRun(theta, m, ensStats, singleRun, constantStats(m, 1));
+        }
 
-            return new MonteCarloEstimate(
-                    theta,
-                    ensStats,
-                    m.ensCat1Kwh,
-                    m.ensCat2Kwh,
-                    m.fuelLiters,
-                    (double) m.totalMotoHours,
-                    wrePct,
-                    wtPct,
-                    dgPct,
-                    btPct,
-                    singleRun,
-                    (double) m.failRoom,
-                    (double) m.failBus,
-                    (double) m.failDg,
-                    (double) m.failWt,
-                    (double) m.failBt,
-                    (double) m.failBrk,
-                    (double) m.repBt
-            );
+        // Без отказов seed ни на что не влияет: все итерации дали бы одинаковый результат.
+        if (isSeedIndependent(input)) {
+            long seed = seedFor(mcBaseSeed, sobolRowIdx, 0);
+            SimulationMetrics m = simulator.simulate(input, seed, false);
+
+            MonteCarloStats.Stats ensStats = MonteCarloStats.constant(m.ensKwh, mcIterations);
+            return fromSingleRun(theta, m, ensStats, null, constantStats(m, mcIterations));
         }
 
-        final SimInput inputFinal = input;
+        return null;
+    }
+
+    /**
+     * Число наблюдений выборки для mcIterations прогонов: сами прогоны или (в режиме пар)
+     * антитетические пары, ceil(mcIterations / 2). Волны, чанки и ENS-выборка считаются в наблюдениях.
+     */
+    int sampleUnits(int iterations) {
+        return antithetic ? (iterations + 1) / 2 : iterations;
+    }
+
+    /** Аккумулятор выборки (с совместными моментами для контрольных переменных, если они включены). */
+    MetricsAccumulator newAccumulator() {
+        return new MetricsAccumulator(controlVariates);
+    }
+
+    /** Полная выборка ENS нужна только для IQR-фильтра выбросов; остальное считается потоково. */
+    double[] newEnsSample(int units) {
+        return removeOutliers ? new double[units] : null;
+    }
+
+    /** Конец первой волны наблюдений (без адаптивной остановки — сразу все units). */
+    int firstWaveEnd(int units) {
+        return (adaptiveStopping == null)
+                ? units
+                : Math.min(sampleUnits(adaptiveStopping.minIterations()), units);
+    }
+
+    /**
+     * Конец следующей волны после done наблюдений; done — если выборка закончена
+     * (достигнут максимум или, в адаптивном режиме, целевая точность).
+     * Границы волн фиксированы: число итераций (и результат) не зависит от потоков.
+     */
+    int nextWaveEnd(int done, int units, MetricsAccumulator total) {
+        if (adaptiveStopping == null || done >= units) return done;
+        if (adaptiveStopping.isConverged(total, tScore, relativeError)) return done;
+        return Math.min(units, done + sampleUnits(adaptiveStopping.waveSize()));
+    }
+
+    /**
+     * Итоговая оценка по накопленной выборке из done наблюдений.
+     */
+    MonteCarloEstimate summarize(ParameterSet theta, MetricsAccumulator total, double[] ens, int done) {
+        if (ens != null && done < ens.length) ens = Arrays.copyOf(ens, done);
+
+        MonteCarloStats.Stats ensStats = (ens != null)
+                ? MonteCarloStats.compute(ens, true, tScore, relativeError)
+                : total.toStats(MonteCarloMetric.ENS_KWH, tScore, relativeError);
+
+        return new MonteCarloEstimate(
+                theta,
+                ensStats,
+                total.mean(MonteCarloMetric.ENS_CAT1_KWH),
+                total.mean(MonteCarloMetric.ENS_CAT2_KWH),
+                total.mean(MonteCarloMetric.FUEL_LITERS),
+                total.mean(MonteCarloMetric.MOTO_HOURS),
+                total.mean(MonteCarloMetric.WRE_PCT),
+                total.mean(MonteCarloMetric.WT_PCT),
+                total.mean(MonteCarloMetric.DG_PCT),
+                total.mean(MonteCarloMetric.BT_PCT),
+                null,
+                total.mean(MonteCarloMetric.FAIL_ROOM),
+                total.mean(MonteCarloMetric.FAIL_BUS),
+                total.mean(MonteCarloMetric.FAIL_DG),
+                total.mean(MonteCarloMetric.FAIL_WT),
+                total.mean(MonteCarloMetric.FAIL_BT),
+                total.mean(MonteCarloMetric.FAIL_BRK),
+                total.mean(MonteCarloMetric.REP_BT),
+                total.toStats(tScore, relativeError)
+        );
+    }
+
+    /**
+     * Итерации [from, to) параллельно по чанкам {@link SweepScheduler#DEFAULT_CHUNK_ITERATIONS};
+     * чанки сливаются в total по порядку, ENS (если ens != null) пишется по индексу итерации.
+     */
+    private void runRange(SimInput input,
+                          long mcBaseSeed,
+                          long sobolRowIdx,
+                          int from,
+                          int to,
+                          MetricsAccumulator total,
+                          double[] ens)
+            throws InterruptedException, ExecutionException {
 
-        int parallelism = estimateParallelism(executor);
-        int chunks = Math.min(mcIterations, Math.max(1, parallelism * 2));
-        int chunkSize = (int) Math.ceil(mcIterations / (double) chunks);
+        // размер чанка фиксирован, как в SweepScheduler: слияние не зависит от числа потоков,
+        // и оценка с тем же ключом кэша бит-в-бит совпадает на обоих путях
+        int chunkSize = SweepScheduler.DEFAULT_CHUNK_ITERATIONS;
+        int chunks = (to - from + chunkSize - 1) / chunkSize;
 
         List<Future<ChunkAgg>> futures = new ArrayList<>(chunks);
 
         for (int c = 0; c < chunks; c++) {
-            int from = c * chunkSize;
-            int to = Math.min(mcIterations, from + chunkSize);
-            if (from >= to) break;
+            int chunkFrom = from + c * chunkSize;
+            int chunkTo = Math.min(to, chunkFrom + chunkSize);
 
-            futures.add(executor.submit(() -> runChunk(inputFinal, mcBaseSeed, sobolRowIdx, from, to)));
+            futures.add(executor.submit(() -> runChunk(input, mcBaseSeed, sobolRowIdx, chunkFrom, chunkTo)));
         }
 
-        double[] ens = new double[mcIterations];
-        double ens1Sum = 0.0;
-        double ens2Sum = 0.0;
-        double fuelSum = 0.0;
-        double motoSum = 0.0;
-
-        double wrePctSum = 0.0;
-        double wtPctSum = 0.0;
-        double dgPctSum = 0.0;
-        double btPctSum = 0.0;
-
-        double failRoomSum = 0.0;
-        double failBusSum = 0.0;
-        double failDgSum = 0.0;
-        double failWtSum = 0.0;
-        double failBtSum = 0.0;
-        double failBrkSum = 0.0;
-        double repBtSum = 0.0;
-
         for (Future<ChunkAgg> f : futures) {
             ChunkAgg a = f.get();
-            fuelSum += a.fuelSum;
-            motoSum += a.motoSum;
-            ens1Sum += a.ens1Sum;
-            ens2Sum += a.ens2Sum;
-            wrePctSum += a.wrePctSum;
-            wtPctSum += a.wtPctSum;
-            dgPctSum += a.dgPctSum;
-            btPctSum += a.btPctSum;
-            failRoomSum += a.failRoomSum;
-            failBusSum  += a.failBusSum;
-            failDgSum   += a.failDgSum;
-            failWtSum   += a.failWtSum;
-            failBtSum   += a.failBtSum;
-            failBrkSum  += a.failBrkSum;
-            repBtSum += a.repBtSum;
-
-
-            System.arraycopy(a.ens, 0, ens, a.ensOffset, a.ens.length);
+            total.merge(a.metrics);
+            if (ens != null) System.arraycopy(a.ens, 0, ens, a.ensOffset, a.ens.length);
         }
+    }
 
-        MonteCarloStats.Stats ensStats = MonteCarloStats.compute(ens, removeOutliers, tScore, relativeError);
+    /**
+     * true, если результат прогона не зависит от seed (seed используется только моделью отказов).
+     */
+    static boolean isSeedIndependent(SimInput input) {
+        return !input.getConfig().isConsiderFailures();
+    }
 
-        double inv = 1.0 / mcIterations;
+    /** Статистики выборки из n одинаковых прогонов m (значения без веса). */
+    private static MonteCarloStats.Stats[] constantStats(SimulationMetrics m, int n) {
+        MonteCarloMetric[] metrics = MonteCarloMetric.values();
+        MonteCarloStats.Stats[] out = new MonteCarloStats.Stats[metrics.length];
+        for (MonteCarloMetric metric : metrics) {
+            out[metric.ordinal()] = MonteCarloStats.constant(metric.valueOf(m), n);
+        }
+        return out;
+    }
+
+    private static MonteCarloEstimate fromSingleRun(ParameterSet theta,
+                                                    SimulationMetrics m,
+                                                    MonteCarloStats.Stats ensStats,
+                                                    SingleRunMetrics singleRun,
+                                                    MonteCarloStats.Stats[] metricStats) {
+        double wtPct = pct(m.wtToLoadKwh, m.loadKwh);
+        double dgPct = pct(m.dgToLoadKwh, m.loadKwh);
+        double btPct = pct(m.btToLoadKwh, m.loadKwh);
+        double wrePct = pct(m.wreKwh, m.loadKwh);
 
         return new MonteCarloEstimate(
                 theta,
                 ensStats,
-                ens1Sum * inv,
-                ens2Sum * inv,
-                fuelSum * inv,
-                motoSum * inv,
-                wrePctSum * inv,
-                wtPctSum * inv,
-                dgPctSum * inv,
-                btPctSum * inv,
-                null,
-                failRoomSum * inv,
-                failBusSum * inv,
-                failDgSum * inv,
-                failWtSum * inv,
-                failBtSum * inv,
-                failBrkSum * inv,
-                repBtSum * inv
+                m.ensCat1Kwh,
+                m.ensCat2Kwh,
+                m.fuelLiters,
+                (double) m.totalMotoHours,
+                wrePct,
+                wtPct,
+                dgPct,
+                btPct,
+                singleRun,
+                (double) m.failRoom,
+                (double) m.failBus,
+                (double) m.failDg,
+                (double) m.failWt,
+                (double) m.failBt,
+                (double) m.failBrk,
+                (double) m.repBt,
+                metricStats
         );
-
     }
 
-    private ChunkAgg runChunk(SimInput input,
-                              long mcBaseSeed,
-                              long sobolRowIdx,
-                              int fromInclusive,
-                              int toExclusive) {
-
-        int n = toExclusive - fromInclusive;
-        double[] ens = new double[n];
-
-        double fuelSum = 0.0;
-        double motoSum = 0.0;
-        double ens1Sum = 0.0;
-        double ens2Sum = 0.0;
-        double wrePctSum = 0.0;
-        double wtPctSum = 0.0;
-        double dgPctSum = 0.0;
-        double btPctSum = 0.0;
-        double failRoomSum = 0.0;
-        double failBusSum = 0.0;
-        double failDgSum = 0.0;
-        double failWtSum = 0.0;
-        double failBtSum = 0.0;
-        double failBrkSum = 0.0;
-        double repBtSum = 0.0;
+    ChunkAgg runChunk(SimInput input,
+                      long mcBaseSeed,
+                      long sobolRowIdx,
+                      int fromInclusive,
+                      int toExclusive) {
 
+        double[] ens = removeOutliers ? new double[toExclusive - fromInclusive] : null;
+        MetricsAccumulator metrics = newAccumulator();
 
         for (int mcIdx = fromInclusive; mcIdx < toExclusive; mcIdx++) {
+            if (antithetic) {
+                // пара k: итерация 2k и её антитетический двойник 2k+1
+                long seed = seedFor(mcBaseSeed, sobolRowIdx, 2 * mcIdx);
+                SimulationMetrics m = simulator.simulate(input, seed, false, false);
+                SimulationMetrics twin = simulator.simulate(input, seed, true, false);
+
+                metrics.addPair(m, twin, mcIdx);
+                if (ens != null) ens[mcIdx - fromInclusive] = 0.5 * (m.weight * m.ensKwh + twin.weight * twin.ensKwh);
+                continue;
+            }
+
             long seed = seedFor(mcBaseSeed, sobolRowIdx, mcIdx);
             SimulationMetrics m = simulator.simulate(input, seed, false);
 
-            int k = mcIdx - fromInclusive;
-            ens[k] = m.ensKwh;
-            ens1Sum += m.ensCat1Kwh;
-            ens2Sum += m.ensCat2Kwh;
-
-            fuelSum += m.fuelLiters;
-            motoSum += (double) m.totalMotoHours;
-
-            wrePctSum += pct(m.wreKwh, m.loadKwh);
-            wtPctSum += pct(m.wtToLoadKwh, m.loadKwh);
-            dgPctSum += pct(m.dgToLoadKwh, m.loadKwh);
-            btPctSum += pct(m.btToLoadKwh, m.loadKwh);
-            failRoomSum += m.failRoom;
-            failBusSum  += m.failBus;
-            failDgSum   += m.failDg;
-            failWtSum   += m.failWt;
-            failBtSum   += m.failBt;
-            failBrkSum  += m.failBrk;
-            repBtSum += m.repBt;
-
+            metrics.add(m, mcIdx);
+            if (ens != null) ens[mcIdx - fromInclusive] = m.weight * m.ensKwh;
         }
 
-        return new ChunkAgg(fromInclusive, ens, ens1Sum, ens2Sum, fuelSum, motoSum,
-                wrePctSum, wtPctSum, dgPctSum, btPctSum,
-                failRoomSum, failBusSum, failDgSum, failWtSum, failBtSum, failBrkSum, repBtSum);
-
+        return new ChunkAgg(fromInclusive, ens, metrics);
     }
 
-    private static final class ChunkAgg {
+    static final class ChunkAgg {
         final int ensOffset;
+        /** ENS по итерациям чанка; null, если фильтр выбросов выключен. */
         final double[] ens;
-        final double ens1Sum;
-        final double ens2Sum;
-        final double fuelSum;
-        final double motoSum;
-        final double wrePctSum;
-        final double wtPctSum;
-        final double dgPctSum;
-        final double btPctSum;
-        final double failRoomSum;
-        final double failBusSum;
-        final double failDgSum;
-        final double failWtSum;
-        final double failBtSum;
-        final double failBrkSum;
-        final double repBtSum;
-
-        ChunkAgg(int ensOffset,
-                 double[] ens,
-                 double ens1Sum,
-                 double ens2Sum,
-                 double fuelSum,
-                 double motoSum,
-                 double wrePctSum,
-                 double wtPctSum,
-                 double dgPctSum,
-                 double btPctSum,
-                 double failRoomSum,
-                 double failBusSum,
-                 double failDgSum,
-                 double failWtSum,
-                 double failBtSum,
-                 double failBrkSum,
-                 double repBtSum) {
+        final MetricsAccumulator metrics;
+
+        ChunkAgg(int ensOffset, double[] ens, MetricsAccumulator metrics) {
             this.ensOffset = ensOffset;
             this.ens = ens;
-            this.ens1Sum = ens1Sum;
-            this.ens2Sum = ens2Sum;
-            this.fuelSum = fuelSum;
-            this.motoSum = motoSum;
-            this.wrePctSum = wrePctSum;
-            this.wtPctSum = wtPctSum;
-            this.dgPctSum = dgPctSum;
-            this.btPctSum = btPctSum;
-            this.failRoomSum = failRoomSum;
-            this.failBusSum = failBusSum;
-            this.failDgSum = failDgSum;
-            this.failWtSum = failWtSum;
-            this.failBtSum = failBtSum;
-            this.failBrkSum = failBrkSum;
-            this.repBtSum = repBtSum;
+            this.metrics = metrics;
         }
     }
 
-    private static int estimateParallelism(ExecutorService executor) {
-        if (executor instanceof ForkJoinPool fjp) return Math.max(1, fjp.getParallelism());
-        return Math.max(1, Runtime.getRuntime().availableProcessors());
-    }
-
-    private static long seedFor(long mcBaseSeed, long sobolRowIdx, int mcIdx) {
-        return mcBaseSeed
-                + sobolRowIdx * SOBOL_ROW_SEED_STRIDE
-                + (long) mcIdx * MC_SEED_STRIDE;
+    private long seedFor(long mcBaseSeed, long sobolRowIdx, int mcIdx) {
+        return simulator.getSeedScheme().iterationSeed(mcBaseSeed, sobolRowIdx, mcIdx);
     }
 
-    private static double pct(double part, double total) {
+    static double pct(double part, double total) {
         if (total <= SimulationConstants.EPSILON) return 0.0;
         return (part / total) * 100.0;
     }
@@ -1,7 +1,6 @@
 package simcore.engine;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.Arrays;
 
 public final class MonteCarloStats {
 
@@ -33,27 +32,40 @@ public final class MonteCarloStats {
         public int getActualSampleSize()    { return actualSampleSize; }
     }
 
+    /**
+     * Статистика выборки из n одинаковых значений (детерминированный прогон):
+     * нулевая дисперсия, CI вырождается в точку, дополнительных итераций не требуется.
+     */
+    public static Stats constant(double value, int n) {
+        return new Stats(value, value, value, 0, n);
+    }
+
     public static Stats compute(double[] sample,
                                 boolean removeOutliers,
                                 double tScore,
                                 double relativeError) {
 
-        List<Double> data = Arrays.stream(sample)
-                .boxed()
-                .collect(Collectors.toList());
-
-        if (removeOutliers) {
-            data = removeOutliersIqr(data);
-        }
+        double[] data = removeOutliers ? removeOutliersIqr(sample) : sample;
 
-        int n = data.size();
+        int n = data.length;
         if (n == 0) {
             return new Stats(0.0, 0.0, 0.0, 0, 0);
         }
 
         double mean = mean(data);
-        double std = std(data);
+        double std = std(data, mean);
 
+        return fromMoments(mean, std, n, tScore, relativeError);
+    }
+
+    /**
+     * CI и требуемый объём выборки по среднему и стандартному отклонению выборки размера n.
+     */
+    public static Stats fromMoments(double mean,
+                                    double std,
+                                    int n,
+                                    double tScore,
+                                    double relativeError) {
         double margin = tScore * std / Math.sqrt(n);
         double ciLow = mean - margin;
         double ciHigh = mean + margin;
@@ -67,34 +79,36 @@ public final class MonteCarloStats {
         return new Stats(mean, ciLow, ciHigh, requiredN, n);
     }
 
-    private static double mean(List<Double> data) {
-        return data.stream().mapToDouble(d -> d).average().orElse(0.0);
+    private static double mean(double[] data) {
+        return Arrays.stream(data).average().orElse(0.0);
     }
 
-    private static double std(List<Double> data) {
-        double m = mean(data);
+    private static double std(double[] data, double m) {
         double sum = 0.0;
         for (double v : data) {
             double d = v - m;
             sum += d * d;
         }
-        return Math.sqrt(sum / (data.size() - 1));
+        return Math.sqrt(sum / (data.length - 1));
     }
 
-    private static List<Double> removeOutliersIqr(List<Double> data) {
-        if (data.size() < 4) {
-            return new ArrayList<>(data);
+    private static double[] removeOutliersIqr(double[] data) {
+        if (data.length < 4) {
+            return data.clone();
         }
-        List<Double> sorted = new ArrayList<>(data);
-        Collections.sort(sorted);
-        int n = sorted.size();
-        double q1 = sorted.get(n / 4);
-        double q3 = sorted.get(3 * n / 4);
+        double[] sorted = data.clone();
+        Arrays.sort(sorted);
+        int n = sorted.length;
+        double q1 = sorted[n / 4];
+        double q3 = sorted[3 * n / 4];
         double iqr = q3 - q1;
         double lower = q1 - 1.5 * iqr;
         double upper = q3 + 1.5 * iqr;
-        return sorted.stream()
-                .filter(d -> d >= lower && d <= upper)
-                .collect(Collectors.toList());
+
+        int kept = 0;
+        for (double d : sorted) {
+            if (d >= lower && d <= upper) sorted[kept++] = d;
+        }
+        return Arrays.copyOf(sorted, kept);
     }
 }
@@ -1,5 +1,6 @@
 package simcore.engine.step;
 
+import simcore.engine.RunWorkspace;
 import simcore.engine.failures.FailureStepper;
 import simcore.model.Breaker;
 import simcore.model.PowerBus;
@@ -20,12 +21,11 @@ public final class NetworkFailureStep {
                                      Breaker breaker,
                                      List<SwitchgearRoom> rooms,
                                      int[] roomIndexByBus,
-                                     boolean[] busAvailBefore,
-                                     boolean[] busAvailAfter,
-                                     boolean[] busFailedThisHour,
-                                     boolean[] busAlive) {
+                                     RunWorkspace work) {
 
         final int busCount = buses.size();
+        final boolean[] busFailedThisHour = work.busFailedThisHour;
+        final boolean[] busAlive = work.busAlive;
         final boolean tieWasClosedAtHourStart = (breaker != null && breaker.isClosed());
 
         FailureStepper.updateNetworkFailuresOneHour(
@@ -34,13 +34,10 @@ public final class NetworkFailureStep {
                 breaker,
                 rooms,
                 roomIndexByBus,
-                busAvailBefore,
-                busAvailAfter,
-                busFailedThisHour,
-                busAlive
+                work
         );
 
-        FailureStepper.updateEquipmentFailuresOneHour(considerFailures, buses, busAlive);
+        FailureStepper.updateEquipmentFailuresOneHour(considerFailures, buses, busAlive, work.failures);
 
         if (tieWasClosedAtHourStart && breaker != null) {
 
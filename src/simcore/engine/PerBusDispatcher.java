@@ -41,7 +41,7 @@ final class PerBusDispatcher {
 
         bus.addWorkTime(1);
 
-        final double windPotentialKw = SingleRunSimulator.computeWindPotential(bus, ctx.windV);
+        final double windPotentialKw = SingleRunSimulator.computeWindPotential(bus, ctx.windPerTurbineKw);
 
         final Battery battery = bus.getBattery();
         final boolean btAvail = battery != null && battery.isAvailable();
@@ -85,7 +85,8 @@ final class PerBusDispatcher {
                         battery,
                         ctx.dgRatedKw,
                         ctx.dgMinKw,
-                        ctx.dgStartDelayHours
+                        ctx.dgStartDelayHours,
+                        ctx.work.keepOn
                 );
             }
             DieselGenerator[] dgsFinal = DieselFleetController.getSortedDgs(bus);
@@ -423,7 +424,7 @@ final class PerBusDispatcher {
         ctx.totals.btToLoadKwh += btDisToLoad;
         ctx.totals.wreKwh += wreLocal;
 
-        if (ctx.hourWreRef != null) ctx.hourWreRef[0] += wreLocal;
+        ctx.hourWreKwh += wreLocal;
 
         double suppliedKw = windToLoadKw + dgToLoadKwLocal + btDisToLoad;
         double defKw = loadKw - suppliedKw;
@@ -0,0 +1,76 @@
+package simcore.engine;
+
+import simcore.engine.failures.FailureScheduler;
+import simcore.model.DieselGenerator;
+import simcore.model.PowerBus;
+
+import java.util.List;
+
+/**
+ * Рабочие буферы одного single-run прогона: выделяются один раз перед почасовым циклом
+ * и переиспользуются каждый час, чтобы цикл не создавал объектов.
+ *
+ * Содержимое буферов действительно только в пределах текущего часа.
+ */
+public final class RunWorkspace {
+
+    // ===== состояние шин/помещений за час (NetworkFailureStep / FailureStepper) =====
+    public final boolean[] busAvailBefore;
+    public final boolean[] busAvailAfter;
+    public final boolean[] busFailedThisHour;
+    public final boolean[] busAlive;
+
+    public final boolean[] roomAvailBefore;
+    public final boolean[] roomAvailAfter;
+    public final boolean[] roomFailedThisHour;
+
+    // ===== нагрузки по шинам за час =====
+    /** Эффективные нагрузки после переноса между шинами (BusLoadAllocator). */
+    public final double[] effectiveLoadKw;
+    /** Исходные нагрузки шин за час (если перенос не применим). */
+    public final double[] baseLoadKw;
+
+    // ===== отказы =====
+    /** Очередь событий отказов/ремонтов ВЭУ и ДГУ; запускается в начале прогона. */
+    public final FailureScheduler failures;
+
+    // ===== диспетчеризация =====
+    /** Результат часа в режиме замкнутого секционника. */
+    final SectionalClosedResult sectional;
+
+    /** ДГУ обеих шин (порядок: шина 0, затем шина 1) для режима замкнутого секционника. */
+    final DieselGenerator[] sectionalDgs;
+
+    /** Флаги "оставить в работе" в applyIdleReserveInWindSurplus (по ДГУ одной шины). */
+    final boolean[] keepOn;
+
+    RunWorkspace(List<PowerBus> buses, int roomCount) {
+        final int busCount = buses.size();
+
+        busAvailBefore = new boolean[busCount];
+        busAvailAfter = new boolean[busCount];
+        busFailedThisHour = new boolean[busCount];
+        busAlive = new boolean[busCount];
+
+        roomAvailBefore = new boolean[roomCount];
+        roomAvailAfter = new boolean[roomCount];
+        roomFailedThisHour = new boolean[roomCount];
+
+        effectiveLoadKw = new double[busCount];
+        baseLoadKw = new double[busCount];
+
+        failures = new FailureScheduler(buses);
+
+        sectional = new SectionalClosedResult(busCount);
+
+        int totalDg = 0;
+        int maxDgPerBus = 0;
+        for (int b = 0; b < busCount; b++) {
+            int n = buses.get(b).getDieselGenerators().size();
+            totalDg += n;
+            maxDgPerBus = Math.max(maxDgPerBus, n);
+        }
+        sectionalDgs = new DieselGenerator[totalDg];
+        keepOn = new boolean[maxDgPerBus];
+    }
+}
@@ -0,0 +1,84 @@
+package simcore.engine;
+
+/**
+ * Потоковая статистика одной метрики по MC-выборке (Welford; слияние частей — формула Chan и др.).
+ *
+ * Память O(1), add/merge без аллокаций. Среднее считается как сумма / n, чтобы совпадать
+ * с прежним усреднением sum * (1/n) по чанкам.
+ */
+public final class RunningStats {
+
+    private long n;
+    private double sum;
+
+    /** Текущее среднее Welford (только для обновления m2). */
+    private double runMean;
+    /** Сумма квадратов отклонений от среднего. */
+    private double m2;
+
+    public void add(double x) {
+        n++;
+        sum += x;
+        double d = x - runMean;
+        runMean += d / n;
+        m2 += d * (x - runMean);
+    }
+
+    /**
+     * Добавляет статистику другой части выборки (порядок слияния влияет только на округление).
+     */
+    public void merge(RunningStats other) {
+        if (other.n == 0) return;
+        if (n == 0) {
+            n = other.n;
+            sum += other.sum;
+            runMean = other.runMean;
+            m2 = other.m2;
+            return;
+        }
+        long total = n + other.n;
+        double d = other.runMean - runMean;
+        m2 += other.m2 + d * d * ((double) n * other.n / total);
+        runMean += d * other.n / total;
+        sum += other.sum;
+        n = total;
+    }
+
+    public void clear() {
+        n = 0;
+        sum = 0.0;
+        runMean = 0.0;
+        m2 = 0.0;
+    }
+
+    public long getCount() {
+        return n;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public double getMean() {
+        return (n == 0) ? 0.0 : sum * (1.0 / n);
+    }
+
+    /** Несмещённая дисперсия (как в {@link MonteCarloStats#compute}: NaN при n == 1). */
+    public double getVariance() {
+        return m2 / (n - 1);
+    }
+
+    public double getStd() {
+        return Math.sqrt(getVariance());
+    }
+
+    /**
+     * Среднее, CI и требуемый объём выборки по тем же формулам, что {@link MonteCarloStats#compute}.
+     */
+    public MonteCarloStats.Stats toStats(double tScore, double relativeError) {
+        if (n == 0) {
+            return new MonteCarloStats.Stats(0.0, 0.0, 0.0, 0, 0);
+        }
+        return MonteCarloStats.fromMoments(getMean(), getStd(), (int) n, tScore, relativeError);
+    }
+}
@@ -3,8 +3,6 @@ package simcore.engine;
 import simcore.engine.diesel.DieselFleetController;
 import simcore.config.SimulationConstants;
 import simcore.model.*;
-import java.util.List;
-import java.util.ArrayList;
 
 /**
  * Dispatching logic for one hour when the sectional tie breaker is closed.
@@ -14,11 +12,16 @@ final class SectionalClosedDispatcher {
     private SectionalClosedDispatcher() {}
 
 
+    /**
+     * Результат пишется в {@code ctx.work.sectional} (перезаписывается каждый час) и возвращается.
+     */
     static SectionalClosedResult dispatchSectionalClosedOneHour(
             HourContext ctx,
             java.util.List<PowerBus> buses,
             double[] loadByBus
     ) {
+        final SectionalClosedResult out = ctx.work.sectional;
+
         PowerBus b0 = buses.get(0);
         PowerBus b1 = buses.get(1);
         b0.addWorkTime(1);
@@ -28,11 +31,13 @@ final class SectionalClosedDispatcher {
         double load1 = loadByBus[1];
         double totalLoad = load0 + load1;
 
-        double windPot0 = SingleRunSimulator.computeWindPotential(b0, ctx.windV);
-        double windPot1 = SingleRunSimulator.computeWindPotential(b1, ctx.windV);
+        double windPot0 = SingleRunSimulator.computeWindPotential(b0, ctx.windPerTurbineKw);
+        double windPot1 = SingleRunSimulator.computeWindPotential(b1, ctx.windPerTurbineKw);
         double windPot = windPot0 + windPot1;
 
-        double[] windToLoad = new double[2];
+        double[] windToLoad = out.windToLoadByBus;
+        windToLoad[0] = 0.0;
+        windToLoad[1] = 0.0;
         if (totalLoad > SimulationConstants.EPSILON) {
             windToLoad[0] = Math.min(load0, windPot * (load0 / totalLoad));
             windToLoad[1] = Math.min(load1, windPot * (load1 / totalLoad));
@@ -56,7 +61,9 @@ final class SectionalClosedDispatcher {
         double bt0DisCap = bt0Avail ? bt0.getDischargeCapacity(ctx.sp) : 0.0;
         double bt1DisCap = bt1Avail ? bt1.getDischargeCapacity(ctx.sp) : 0.0;
 
-        double[] btNet = new double[2]; // >0 discharge, <0 charge
+        double[] btNet = out.btNetByBus; // >0 discharge, <0 charge
+        btNet[0] = 0.0;
+        btNet[1] = 0.0;
 
         double dis0 = bt0Avail ? Math.min(rem0, bt0DisCap) : 0.0;
         if (dis0 > SimulationConstants.EPSILON && bt0Avail) {
@@ -91,10 +98,7 @@ final class SectionalClosedDispatcher {
         double btDisToLoadTotal = Math.max(0.0, btNet[0]) + Math.max(0.0, btNet[1]);
         double deficitAfterWindBt = rem0 + rem1;
 
-        List<DieselGenerator> allDgs = new ArrayList<>();
-        allDgs.addAll(b0.getDieselGenerators());
-        allDgs.addAll(b1.getDieselGenerators());
-        DieselGenerator[] dgs = DieselFleetController.getSortedDgs(allDgs);
+        DieselGenerator[] dgs = DieselFleetController.getSortedDgs(b0, b1, ctx.work.sectionalDgs);
 
         int available = 0;
         int readyWorking = 0;
@@ -136,8 +140,8 @@ final class SectionalClosedDispatcher {
                 DieselFleetController.keepAllDieselsReadyHotStandby(b0);
                 DieselFleetController.keepAllDieselsReadyHotStandby(b1);
             } else {
-                SingleRunSimulator.applyIdleReserveInWindSurplus(b0, ctx.sp, load0, windToLoad[0], ctx.cat1, ctx.cat2, bt0Avail, bt0, ctx.dgRatedKw, ctx.dgMinKw, ctx.dgStartDelayHours);
-                SingleRunSimulator.applyIdleReserveInWindSurplus(b1, ctx.sp, load1, windToLoad[1], ctx.cat1, ctx.cat2, bt1Avail, bt1, ctx.dgRatedKw, ctx.dgMinKw, ctx.dgStartDelayHours);
+                SingleRunSimulator.applyIdleReserveInWindSurplus(b0, ctx.sp, load0, windToLoad[0], ctx.cat1, ctx.cat2, bt0Avail, bt0, ctx.dgRatedKw, ctx.dgMinKw, ctx.dgStartDelayHours, ctx.work.keepOn);
+                SingleRunSimulator.applyIdleReserveInWindSurplus(b1, ctx.sp, load1, windToLoad[1], ctx.cat1, ctx.cat2, bt1Avail, bt1, ctx.dgRatedKw, ctx.dgMinKw, ctx.dgStartDelayHours, ctx.work.keepOn);
             }
 
             SingleRunSimulator.finalizeIdleAndBurn(dgs, ctx.dgMinKw);
@@ -285,7 +289,9 @@ final class SectionalClosedDispatcher {
             }
         }
 
-        double[] dgToLoad = new double[2];
+        double[] dgToLoad = out.dgToLoadByBus;
+        dgToLoad[0] = 0.0;
+        dgToLoad[1] = 0.0;
         double need0 = Math.max(0.0, load0 - windToLoad[0] - Math.max(0.0, btNet[0]));
         double need1 = Math.max(0.0, load1 - windToLoad[1] - Math.max(0.0, btNet[1]));
         double needSum = need0 + need1;
@@ -294,7 +300,7 @@ final class SectionalClosedDispatcher {
             dgToLoad[1] = dgToLoadTotal * (need1 / needSum);
         }
 
-        double[] def = new double[2];
+        double[] def = out.defByBus;
         double supplied0 = windToLoad[0] + dgToLoad[0] + Math.max(0.0, btNet[0]);
         double supplied1 = windToLoad[1] + dgToLoad[1] + Math.max(0.0, btNet[1]);
         def[0] = Math.max(0.0, load0 - supplied0);
@@ -302,7 +308,9 @@ final class SectionalClosedDispatcher {
 
         double ens = def[0] + def[1];
 
-        double[] startEnsByBus = new double[2];
+        double[] startEnsByBus = out.startEnsByBus;
+        startEnsByBus[0] = 0.0;
+        startEnsByBus[1] = 0.0;
         if (ens > SimulationConstants.EPSILON && startDelayEnsEstimateKwh > SimulationConstants.EPSILON) {
             double startEnsTotal = Math.min(ens, startDelayEnsEstimateKwh);
             startEnsByBus[0] = startEnsTotal * (def[0] / ens);
@@ -312,19 +320,13 @@ final class SectionalClosedDispatcher {
         double fuel = SingleRunSimulator.computeFuelLitersOneHour(b0.getDieselGenerators(), ctx.dgRatedKw)
                 + SingleRunSimulator.computeFuelLitersOneHour(b1.getDieselGenerators(), ctx.dgRatedKw);
 
-        return new SectionalClosedResult(
-                totalLoad,
-                ens,
-                wre,
-                windToLoad[0] + windToLoad[1],
-                dgToLoad[0] + dgToLoad[1],
-                Math.max(0.0, btNet[0]) + Math.max(0.0, btNet[1]),
-                fuel,
-                windToLoad,
-                dgToLoad,
-                btNet,
-                def,
-                startEnsByBus
-        );
+        out.loadKwh = totalLoad;
+        out.ensKwh = ens;
+        out.wreKwh = wre;
+        out.wtToLoadKwh = windToLoad[0] + windToLoad[1];
+        out.dgToLoadKwh = dgToLoad[0] + dgToLoad[1];
+        out.btToLoadKwh = Math.max(0.0, btNet[0]) + Math.max(0.0, btNet[1]);
+        out.fuelLiters = fuel;
+        return out;
     }
 }
\ No newline at end of file
@@ -2,6 +2,11 @@ package simcore.engine;
 
 import simcore.config.SimulationConfig;
 import simcore.config.SystemParameters;
+import simcore.model.PowerSystemBuilder;
+import simcore.model.WindTurbine;
+
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Единый вход для single-run симуляции.
@@ -13,12 +18,26 @@ public final class SimInput {
     private final SystemParameters systemParameters;
     private final double[] totalLoadKw;
 
+    /**
+     * Производные ряды (нагрузка по шинам, выдача ВЭУ): считаются один раз и разделяются
+     * между всеми итерациями, потоками и производными SimInput (withSystemParameters).
+     */
+    private final DerivedSeries derived;
+
     public SimInput(SimulationConfig config,
                     SystemParameters systemParameters,
                     double[] totalLoadKw) {
+        this(config, systemParameters, totalLoadKw, new DerivedSeries(totalLoadKw, config.getWindMs()));
+    }
+
+    private SimInput(SimulationConfig config,
+                     SystemParameters systemParameters,
+                     double[] totalLoadKw,
+                     DerivedSeries derived) {
         this.config = config;
         this.systemParameters = systemParameters;
         this.totalLoadKw = totalLoadKw;
+        this.derived = derived;
     }
 
     public SimulationConfig getConfig() {
@@ -33,11 +52,58 @@ public final class SimInput {
         return totalLoadKw;
     }
 
+    /**
+     * Нагрузка, разделённая по шинам ({@link PowerSystemBuilder#splitLoad(double[], int)}).
+     * Возвращаемые массивы общие и только для чтения.
+     */
+    public double[][] getBusLoadsKw(int busCount) {
+        return derived.busLoads(busCount);
+    }
+
+    /**
+     * Почасовая выдача одной исправной ВЭУ мощностью ratedPowerKw при ветре из конфигурации, кВт
+     * ({@link WindTurbine#potentialGenerationKw(double, double)}). Общий массив, только для чтения.
+     */
+    public double[] getWindPerTurbineKw(double ratedPowerKw) {
+        return derived.windPerTurbine(ratedPowerKw);
+    }
+
     /**
      * Создаёт новый SimInput с другими параметрами (для наборов Соболя).
      * SystemParameters желательно делать immutable/copy, но пока просто подставляем новый объект.
      */
     public SimInput withSystemParameters(SystemParameters newParams) {
-        return new SimInput(config, newParams, totalLoadKw);
+        return new SimInput(config, newParams, totalLoadKw, derived);
+    }
+
+    private static final class DerivedSeries {
+        private final double[] totalLoadKw;
+        private final double[] windMs;
+        private final double[][][] busLoadsByCount = new double[3][][];
+        private final Map<Double, double[]> windPerTurbineByRatedKw = new HashMap<>();
+
+        DerivedSeries(double[] totalLoadKw, double[] windMs) {
+            this.totalLoadKw = totalLoadKw;
+            this.windMs = windMs;
+        }
+
+        synchronized double[][] busLoads(int busCount) {
+            if (busCount >= busLoadsByCount.length) {
+                return PowerSystemBuilder.splitLoad(totalLoadKw, busCount);
+            }
+            double[][] loads = busLoadsByCount[busCount];
+            if (loads == null) {
+                loads = PowerSystemBuilder.splitLoad(totalLoadKw, busCount);
+                busLoadsByCount[busCount] = loads;
+            }
+            return loads;
+        }
+
+        synchronized double[] windPerTurbine(double ratedPowerKw) {
+            return windPerTurbineByRatedKw.computeIfAbsent(
+                    ratedPowerKw,
+                    p -> WindTurbine.potentialGenerationSeriesKw(p, windMs)
+            );
+        }
     }
 }
@@ -1,6 +1,6 @@
 package simcore.engine;
 
-import java.util.List;
+import simcore.engine.trace.TraceColumns;
 
 public final class SimulationMetrics {
 
@@ -17,7 +17,7 @@ public final class SimulationMetrics {
     public final double fuelLiters;    // суммарный расход топлива за горизонт
     public final long totalMotoHours;  // суммарные моточасы ДГУ за горизонт
 
-    public final List<SimulationStepRecord> trace; // null если trace выключен
+    public final TraceColumns trace; // null если trace выключен
 
     public final long failBus;
     public final long failDg;
@@ -27,6 +27,20 @@ public final class SimulationMetrics {
     public final long failRoom;
     public final long repBt;
 
+    /**
+     * Вес прогона — отношение правдоподобия при importance sampling
+     * ({@link simcore.engine.failures.ImportanceSampling}); 1.0 без смещения.
+     * В MC-статистику идут взвешенные значения w * x.
+     */
+    public final double weight;
+
+    /**
+     * Центрированные числа отказов по типам оборудования (среднее ровно 0,
+     * {@link simcore.engine.failures.FailureStepper#centredFailureCounts}) — контрольные переменные MC;
+     * null, если отказы не учитывались.
+     */
+    public final double[] failureControls;
+
     public SimulationMetrics(double loadKwh,
                              double ensKwh,
                              double ensCat1Kwh,
@@ -37,7 +51,7 @@ public final class SimulationMetrics {
                              double btToLoadKwh,
                              double fuelLiters,
                              long totalMotoHours,
-                             List<SimulationStepRecord> trace,
+                             TraceColumns trace,
                              long failBus,
                              long failDg,
                              long failWt,
@@ -45,6 +59,32 @@ public final class SimulationMetrics {
                              long failBrk,
                              long failRoom,
                              long repBt
+    ) {
+        this(loadKwh, ensKwh, ensCat1Kwh, ensCat2Kwh, wreKwh, wtToLoadKwh, dgToLoadKwh, btToLoadKwh,
+                fuelLiters, totalMotoHours, trace,
+                failBus, failDg, failWt, failBt, failBrk, failRoom, repBt, 1.0, null);
+    }
+
+    public SimulationMetrics(double loadKwh,
+                             double ensKwh,
+                             double ensCat1Kwh,
+                             double ensCat2Kwh,
+                             double wreKwh,
+                             double wtToLoadKwh,
+                             double dgToLoadKwh,
+                             double btToLoadKwh,
+                             double fuelLiters,
+                             long totalMotoHours,
+                             TraceColumns trace,
+                             long failBus,
+                             long failDg,
+                             long failWt,
+                             long failBt,
+                             long failBrk,
+                             long failRoom,
+                             long repBt,
+                             double weight,
+                             double[] failureControls
     ) {
         this.loadKwh = loadKwh;
         this.ensKwh = ensKwh;
@@ -64,5 +104,7 @@ public final class SimulationMetrics {
         this.failBt = failBt;
         this.failBrk = failBrk;
         this.repBt = repBt;
+        this.weight = weight;
+        this.failureControls = failureControls;
     }
 }
@@ -1,9 +1,13 @@
 package simcore.engine;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
+import simcore.engine.trace.BinaryTraceReader;
+import simcore.engine.trace.BinaryTraceWriter;
+import simcore.engine.trace.StreamingTraceSession;
+import simcore.engine.trace.TraceColumns;
+import simcore.engine.trace.TraceCsvWriter;
+import simcore.engine.trace.TraceRow;
+
 import java.io.IOException;
-import java.util.List;
 import java.util.Locale;
 
 public final class SimulationTraceExporter {
@@ -12,95 +16,124 @@ public final class SimulationTraceExporter {
 
     private SimulationTraceExporter() {}
 
-    public static void exportToCsv(String path, List<SimulationStepRecord> recs)
+    public static void exportToCsv(String path, TraceColumns trace)
             throws IOException {
 
-        if (recs.isEmpty()) {
+        if (trace == null || trace.isEmpty()) {
             throw new IllegalArgumentException("Empty trace");
         }
 
-        int busCnt = recs.get(0).getBusLoadKw().length;
-
-        try (BufferedWriter w = new BufferedWriter(new FileWriter(path))) {
-
-            /* ---------- HEADER ---------- */
-            StringBuilder h = new StringBuilder("t;L;BRK");
-            for (int b = 0; b < busCnt; b++) {
-                int bi = b + 1;
-                h.append(";B").append(bi).append("_L");
-                h.append(";B").append(bi).append("_Def");
-                h.append(";B").append(bi).append("_W");
+        try (TraceCsvWriter w = open(path)) {
+            writeHeader(w, trace);
+            writeRows(w, trace);
+        }
+    }
 
-                int dgCnt = recs.get(0).getBusGenDgLoadKw()[b].length;
-                for (int i = 0; i < dgCnt; i++) {
-                    int di = i + 1;
-                    h.append(";B").append(bi).append("_D").append(di);
-                    h.append(";B").append(bi).append("_D").append(di).append("_T");
-                    h.append(";B").append(bi).append("_D").append(di).append("_I");
-                }
+    /**
+     * Бинарная трасса ({@link BinaryTraceWriter}) в CSV того же формата, что {@link #exportToCsv}.
+     * Файл читается через mmap блоками по {@code StreamingTraceSession.DEFAULT_BLOCK_HOURS} часов.
+     */
+    public static void convertBinaryToCsv(String binPath, String csvPath) throws IOException {
+        BinaryTraceReader in = BinaryTraceReader.open(binPath);
+        int hours = in.size();
+        if (hours == 0) {
+            throw new IllegalArgumentException("Empty trace");
+        }
 
-                h.append(";B").append(bi).append("_B");
-                h.append(";B").append(bi).append("_C");
-                h.append(";B").append(bi).append("_SOC");
-                h.append(";B").append(bi).append("_H");
+        int block = StreamingTraceSession.DEFAULT_BLOCK_HOURS;
+        try (TraceCsvWriter w = open(csvPath)) {
+            for (int from = 0; from < hours; from += block) {
+                TraceColumns part = in.read(from, Math.min(block, hours - from));
+                if (from == 0) writeHeader(w, part);
+                writeRows(w, part);
             }
+        }
+    }
 
-            w.write(h.toString());
-            w.newLine();
+    /** CSV-писатель с форматом чисел трассы (ru-RU: десятичная запятая). */
+    public static TraceCsvWriter open(String path) throws IOException {
+        return new TraceCsvWriter(path, RU);
+    }
 
-            /* ---------- DATA ---------- */
-            for (SimulationStepRecord r : recs) {
+    /** Строка заголовка CSV; нужна только раскладка шин/ДГУ из {@code layout}. */
+    public static void writeHeader(TraceCsvWriter w, TraceColumns layout) throws IOException {
+        int busCnt = layout.busCount();
+
+        /* ---------- HEADER ---------- */
+        w.append("t;L;BRK");
+        for (int b = 0; b < busCnt; b++) {
+            int bi = b + 1;
+            w.append(";B").append(bi).append("_L");
+            w.append(";B").append(bi).append("_Def");
+            w.append(";B").append(bi).append("_W");
+
+            int dgCnt = layout.dgCount(b);
+            for (int i = 0; i < dgCnt; i++) {
+                int di = i + 1;
+                w.append(";B").append(bi).append("_D").append(di);
+                w.append(";B").append(bi).append("_D").append(di).append("_T");
+                w.append(";B").append(bi).append("_D").append(di).append("_I");
+            }
 
-                StringBuilder s = new StringBuilder();
-                s.append(r.getTimeIndex()).append(';')
-                        .append(f(r.getTotalLoadKw()))
-                        .append(';')
-                        .append(brk(r.getBreakerClosed()));
+            w.append(";B").append(bi).append("_B");
+            w.append(";B").append(bi).append("_C");
+            w.append(";B").append(bi).append("_SOC");
+            w.append(";B").append(bi).append("_H");
+        }
 
-                boolean[] busStatus = r.getBusStatus();
-                double[] busLoad = r.getBusLoadKw();
-                double[] busDef = r.getBusDeficitKw();
-                double[] busW = r.getBusGenWindKw();
-                double[] busB = r.getBusGenBtKw();
+        w.newLine();
+    }
 
-                double[][] dgLoad = r.getBusGenDgLoadKw();
-                boolean[][] dgAvail = r.getDgAvailable();
-                boolean[][] dgMaint = r.getDgInMaintenance();
-                double[][] dgTotalT = r.getBusGenDgTotalTimeWorked();
-                int[][] dgIdleT = r.getBusGenDgIdleTime();
+    /** Все записанные строки {@code trace} (без заголовка). */
+    public static void writeRows(TraceCsvWriter w, TraceColumns trace) throws IOException {
+        if (trace.isEmpty()) return;
+        int busCnt = trace.busCount();
 
-                double[] btCap = r.getBtActualCapacity();
-                double[] btSoc = r.getBtActualSOC();
-                double[] btH = r.getBtTimeWorked();
+        /* ---------- DATA ---------- */
+        TraceRow r = trace.row(0);
+        for (int t = 0; t < trace.size(); t++) {
+            r.moveTo(t);
 
-                for (int b = 0; b < busCnt; b++) {
+            w.append(r.getTimeIndex()).append(';');
+            f(w, r.getTotalLoadKw());
+            w.append(';').append(brk(r.getBreakerClosed()));
 
-                    s.append(';').append(busStatus[b] ? f(busLoad[b]) : "OFF");
-                    s.append(';').append(f(busDef[b]));
-                    s.append(';').append(f(busW[b]));
+            for (int b = 0; b < busCnt; b++) {
 
-                    int dgCnt = dgLoad[b].length;
-                    for (int i = 0; i < dgCnt; i++) {
+                w.append(';');
+                if (r.getBusStatus(b)) f(w, r.getBusLoadKw(b));
+                else w.append("OFF");
+                w.append(';');
+                f(w, r.getBusDeficitKw(b));
+                w.append(';');
+                f(w, r.getBusGenWindKw(b));
 
-                        if (!dgAvail[b][i]) {
-                            s.append(dgMaint[b][i] ? ";TO" : ";OFF");
-                        } else {
-                            s.append(';').append(f(dgLoad[b][i]));
-                        }
+                int dgCnt = trace.dgCount(b);
+                for (int i = 0; i < dgCnt; i++) {
 
-                        s.append(';').append(f(dgTotalT[b][i]));
-                        s.append(';').append(dgIdleT[b][i]);
+                    if (!r.isDgAvailable(b, i)) {
+                        w.append(r.isDgInMaintenance(b, i) ? ";TO" : ";OFF");
+                    } else {
+                        w.append(';');
+                        f(w, r.getDgLoadKw(b, i));
                     }
 
-                    s.append(';').append(f(busB[b]));
-                    s.append(';').append(f(btCap[b]));
-                    s.append(';').append(f(btSoc[b]));
-                    s.append(';').append(f(btH[b]));
+                    w.append(';');
+                    f(w, r.getDgTotalTimeWorked(b, i));
+                    w.append(';').append(r.getDgIdleTime(b, i));
                 }
 
-                w.write(s.toString());
-                w.newLine();
+                w.append(';');
+                f(w, r.getBusGenBtKw(b));
+                w.append(';');
+                f(w, r.getBtActualCapacity(b));
+                w.append(';');
+                f(w, r.getBtActualSOC(b));
+                w.append(';');
+                f(w, r.getBtTimeWorked(b));
             }
+
+            w.newLine();
         }
     }
 
@@ -109,8 +142,8 @@ public final class SimulationTraceExporter {
         return closed ? "CLOSED" : "OPEN";
     }
 
-    private static String f(double v) {
-        if (!Double.isFinite(v)) return "";
-        return String.format(RU, "%.1f", v);
+    private static void f(TraceCsvWriter w, double v) throws IOException {
+        if (!Double.isFinite(v)) return;
+        w.appendFixed1(v);
     }
 }
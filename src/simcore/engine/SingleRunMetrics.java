@@ -1,6 +1,6 @@
 package simcore.engine;
 
-import java.util.List;
+import simcore.engine.trace.TraceColumns;
 
 /**
  * Результаты одного прогона (single-run), которые полезны для отладки:
@@ -8,9 +8,9 @@ import java.util.List;
  */
 public final class SingleRunMetrics {
 
-    public final List<SimulationStepRecord> trace;
+    public final TraceColumns trace;
 
-    public SingleRunMetrics(List<SimulationStepRecord> trace) {
+    public SingleRunMetrics(TraceColumns trace) {
         this.trace = trace;
     }
 }
@@ -6,18 +6,22 @@ import simcore.config.SystemParameters;
 import simcore.config.BusSystemType;
 import simcore.model.*;
 import simcore.engine.failures.FailureStepper;
+import simcore.engine.failures.ImportanceSampling;
+import simcore.engine.failures.SeedScheme;
 import simcore.engine.diesel.DieselFleetController;
 import simcore.engine.metrics.EnsAllocator;
 import simcore.engine.step.NetworkFailureStep;
 import simcore.engine.bus.BusLoadAllocator;
+import simcore.engine.bus.BusPotential;
 import simcore.engine.bus.TieBreakerController;
-import simcore.engine.trace.ArrayTraceSession;
+import simcore.engine.trace.ColumnarTraceSession;
 import simcore.engine.trace.NoTraceSession;
 import simcore.engine.trace.TraceSession;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Supplier;
 
 
 public final class SingleRunSimulator {
@@ -28,20 +32,107 @@ public final class SingleRunSimulator {
      */
     static double computeFuelLitersOneHour(List<DieselGenerator> dgs, double ratedKw) {
         double sum = 0.0;
-        for (DieselGenerator dg : dgs) {
-            sum += dg.fuelLitersOneHour(ratedKw);
+        for (int i = 0; i < dgs.size(); i++) {
+            sum += dgs.get(i).fuelLitersOneHour(ratedKw);
         }
         return sum;
     }
 
     static final boolean ENABLE_ZERO_LOAD_ALL_DG_READY = true;
+
+    /** куда пишется trace прогонов с traceEnabled=true */
+    private final Supplier<TraceSession> traceSessions;
+
+    /** как seed итерации превращается в генераторы отказов (и как его строит {@link MonteCarloRunner}) */
+    private final SeedScheme seedScheme;
+
+    /** смещение интенсивностей отказов с весами прогонов; null — без importance sampling */
+    private final ImportanceSampling importanceSampling;
+
+    public SingleRunSimulator() {
+        this(ColumnarTraceSession::new);
+    }
+
+    /**
+     * @param traceSessions фабрика trace-сессий для прогонов с traceEnabled=true
+     *                      (по умолчанию trace в памяти, {@link ColumnarTraceSession})
+     */
+    public SingleRunSimulator(Supplier<TraceSession> traceSessions) {
+        this(traceSessions, SeedScheme.LEGACY);
+    }
+
+    /**
+     * @param seedScheme схема seed'ов итераций и генераторов отказов (по умолчанию {@link SeedScheme#LEGACY})
+     */
+    public SingleRunSimulator(Supplier<TraceSession> traceSessions, SeedScheme seedScheme) {
+        this(traceSessions, seedScheme, null);
+    }
+
+    /**
+     * @param importanceSampling смещение интенсивностей отказов; прогоны получают вес
+     *                           {@link SimulationMetrics#weight}; null — без смещения
+     */
+    public SingleRunSimulator(Supplier<TraceSession> traceSessions,
+                              SeedScheme seedScheme,
+                              ImportanceSampling importanceSampling) {
+        this.traceSessions = traceSessions;
+        this.seedScheme = seedScheme;
+        this.importanceSampling = importanceSampling;
+    }
+
+    public SeedScheme getSeedScheme() {
+        return seedScheme;
+    }
+
+    public ImportanceSampling getImportanceSampling() {
+        return importanceSampling;
+    }
+
+    /**
+     * PowerSystem текущего потока: строится один раз для набора параметров и далее
+     * сбрасывается через {@link PowerSystem#reset()} в начале каждой итерации.
+     */
+    private final ThreadLocal<WorkerSystem> workerSystem = new ThreadLocal<>();
+
+    private record WorkerSystem(SystemParameters params, double[][] busLoads, PowerSystem system) {}
+
+    private PowerSystem acquireSystem(SimInput input) {
+        final SystemParameters sp = input.getSystemParameters();
+        final double[][] busLoads = input.getBusLoadsKw(PowerSystemBuilder.busCountFor(sp.getBusSystemType()));
+
+        WorkerSystem cached = workerSystem.get();
+        if (cached != null && cached.params() == sp && cached.busLoads() == busLoads) {
+            cached.system().reset();
+            return cached.system();
+        }
+
+        PowerSystem system = new PowerSystemBuilder().build(sp, busLoads);
+        workerSystem.set(new WorkerSystem(sp, busLoads, system));
+        return system;
+    }
+
     public SimulationMetrics simulate(SimInput input, long seed, boolean traceEnabled) {
+        return simulate(input, seed, false, traceEnabled);
+    }
+
+    /**
+     * @param antithetic true — антитетический двойник прогона с этим seed (каждое u отказов заменено на 1 - u)
+     */
+    public SimulationMetrics simulate(SimInput input, long seed, boolean antithetic, boolean traceEnabled) {
+        return simulate(input, seed, antithetic, traceEnabled ? traceSessions.get() : new NoTraceSession());
+    }
+
+    public SimulationMetrics simulate(SimInput input, long seed, TraceSession trace) {
+        return simulate(input, seed, false, trace);
+    }
+
+    public SimulationMetrics simulate(SimInput input, long seed, boolean antithetic, TraceSession trace) {
 
         final SimulationConfig config = input.getConfig();
         final SystemParameters sp = input.getSystemParameters();
 
-        final double[] windMs = config.getWindMs();
-        final int hours = windMs.length;
+        final double[] windPerTurbineKw = input.getWindPerTurbineKw(sp.getWindTurbinePowerKw());
+        final int hours = windPerTurbineKw.length;
 
         final boolean considerFailures = config.isConsiderFailures();
         final boolean considerDegradation = config.isConsiderBatteryDegradation();
@@ -51,20 +142,22 @@ public final class SingleRunSimulator {
         final double cat1 = sp.getFirstCat();
         final double cat2 = sp.getSecondCat();
 
-        final PowerSystem system = new PowerSystemBuilder().build(sp, input.getTotalLoadKw());
+        final PowerSystem system = acquireSystem(input);
         final List<PowerBus> buses = system.getBuses();
         final int busCount = buses.size();
         final Breaker breaker = system.getTieBreaker();
         final List<SwitchgearRoom> rooms = system.getRooms();
         final int[] roomIndexByBus = system.getRoomIndexByBus();
 
-        FailureStepper.initFailureModels(seed, considerFailures, buses, breaker, rooms);
+        FailureStepper.applyImportanceSampling(importanceSampling, buses, breaker, rooms);
+        FailureStepper.initFailureModels(seed, seedScheme, antithetic, considerFailures, buses, breaker, rooms);
 
         final Totals totals = new Totals();
-        final TraceSession trace = traceEnabled ? new ArrayTraceSession() : new NoTraceSession();final boolean[] busAvailBefore = new boolean[busCount];
-        final boolean[] busAvailAfter = new boolean[busCount];
-        final boolean[] busFailedThisHour = new boolean[busCount];
-        final boolean[] busAlive = new boolean[busCount];
+
+        // рабочие буферы прогона: почасовой цикл ниже объектов не создаёт
+        final RunWorkspace work = new RunWorkspace(buses, rooms.size());
+        work.failures.start(considerFailures);
+        final boolean[] busAlive = work.busAlive;
 
         // часто используемые параметры ДГУ
         final double dgRatedKw = sp.getDieselGeneratorPowerKw();
@@ -73,170 +166,178 @@ public final class SingleRunSimulator {
         final double perDgOptimalKw = dgRatedKw * SimulationConstants.DG_OPTIMAL_POWER;
         final double dgStartDelayHours = SimulationConstants.DG_START_DELAY_HOURS;
 
-        for (int t = 0; t < hours; t++) {
-            final double windV = windMs[t];
-            final boolean doTrace = trace.enabled();
-            trace.startHour(busCount);
-
-            double totalLoadAtTime = 0.0;
-            double totalDefAtTime = 0.0;
-            double totalWreAtTime;
-            final double[] hourWreRef = doTrace ? new double[]{0.0} : null;
-
-            final HourContext ctx = new HourContext(
-                    sp,
-                    windV,
-                    considerDegradation,
-                    considerChargeByDg,
-                    considerRotationReserve,
-                    cat1,
-                    cat2,
-                    dgRatedKw,
-                    dgMaxKw,
-                    dgMinKw,
-                    perDgOptimalKw,
-                    dgStartDelayHours,
-                    totals,
-                    hourWreRef,
-                    trace
-            );
-
-
-
-            NetworkFailureStep.updateOneHour(
-                    considerFailures,
-                    buses,
-                    breaker,
-                    rooms,
-                    roomIndexByBus,
-                    busAvailBefore,
-                    busAvailAfter,
-                    busFailedThisHour,
-                    busAlive
-            );
-            // ===== Bus system logic (SINGLE_SECTIONAL_BUS / DOUBLE_BUS) =====
-            final BusSystemType busType = sp.getBusSystemType();
-
-            final double[] effectiveLoadKw = BusLoadAllocator.maybeComputeEffectiveLoads(
-                    sp,
-                    buses,
-                    busAlive,
-                    t,
-                    cat1,
-                    cat2,
-                    windV,
-                    dgMaxKw
-            );
-
-            boolean sectionalClosedThisHour = false;
-            if (busType == BusSystemType.SINGLE_SECTIONAL_BUS
-                    && busCount == 2
-                    && breaker != null
-                    && breaker.isAvailable()
-                    && busAlive[0] && busAlive[1]) {
-
-                double[] loadsForDecision = (effectiveLoadKw != null)
-                        ? effectiveLoadKw
-                        : new double[]{buses.get(0).getLoadKw()[t], buses.get(1).getLoadKw()[t]};
-
-                sectionalClosedThisHour = TieBreakerController.shouldCloseTieBreakerThisHour(
-                        sp, buses, loadsForDecision, windV, dgMaxKw
-                );
+        final HourContext ctx = new HourContext(
+                sp,
+                considerDegradation,
+                considerChargeByDg,
+                considerRotationReserve,
+                cat1,
+                cat2,
+                dgRatedKw,
+                dgMaxKw,
+                dgMinKw,
+                perDgOptimalKw,
+                dgStartDelayHours,
+                totals,
+                trace,
+                work
+        );
 
-                breaker.setClosed(sectionalClosedThisHour);
-            } else {
-                if (breaker != null) breaker.setClosed(false);
-            }
-            // ===== Sectional-closed dispatch (если секционник закрыт) =====
+        trace.begin(hours, buses);
+        boolean completed = false;
+        try {
+            for (int t = 0; t < hours; t++) {
+                final double windKw = windPerTurbineKw[t];
+                final boolean doTrace = trace.enabled();
+                trace.startHour(busCount);
 
-            if (sectionalClosedThisHour) {
+                double totalLoadAtTime = 0.0;
+                double totalDefAtTime = 0.0;
+                double totalWreAtTime;
 
-                final double[] loads = (effectiveLoadKw != null)
-                        ? effectiveLoadKw
-                        : new double[]{buses.get(0).getLoadKw()[t], buses.get(1).getLoadKw()[t]};
+                ctx.windPerTurbineKw = windKw;
+                ctx.hourWreKwh = 0.0;
 
-                SectionalClosedResult r = SectionalClosedDispatcher.dispatchSectionalClosedOneHour(
-                        ctx,
+                NetworkFailureStep.updateOneHour(
+                        considerFailures,
                         buses,
-                        loads
+                        breaker,
+                        rooms,
+                        roomIndexByBus,
+                        work
                 );
+                // ===== Bus system logic (SINGLE_SECTIONAL_BUS / DOUBLE_BUS) =====
+                final BusSystemType busType = sp.getBusSystemType();
 
-                // totals: полностью за час (в этом режиме per-bus dispatch ниже НЕ выполняем)
-                totals.loadKwh += r.loadKwh;
-                totals.ensKwh += r.ensKwh;
-                totals.wreKwh += r.wreKwh;
-                totals.wtToLoadKwh += r.wtToLoadKwh;
-                totals.dgToLoadKwh += r.dgToLoadKwh;
-                totals.btToLoadKwh += r.btToLoadKwh;
-                totals.fuelLiters += r.fuelLiters;
-
-                // ENS по категориям: учитываем нюанс задержки пуска ДГУ.
-                // - часть ENS из-за задержки пуска (кратковременный провал) распределяем пропорционально категориям
-                // - остаток ENS (сброс нагрузки при дефиците) распределяем приоритетно: III -> II -> I
-                for (int b = 0; b < busCount; b++) {
-                    double startEns = (r.startEnsByBus != null) ? r.startEnsByBus[b] : 0.0;
-                    double totalEnsBus = r.defByBus[b];
-                    if (startEns > SimulationConstants.EPSILON) {
-                        EnsAllocator.addEnsByCategoryProportional(totals, loads[b], startEns, cat1, cat2);
+                final boolean hasEffectiveLoads = BusLoadAllocator.maybeComputeEffectiveLoads(
+                        sp,
+                        buses,
+                        busAlive,
+                        t,
+                        cat1,
+                        cat2,
+                        windKw,
+                        dgMaxKw,
+                        work.effectiveLoadKw
+                );
+                final double[] effectiveLoadKw = hasEffectiveLoads ? work.effectiveLoadKw : null;
+
+                boolean sectionalClosedThisHour = false;
+                if (busType == BusSystemType.SINGLE_SECTIONAL_BUS
+                        && busCount == 2
+                        && breaker != null
+                        && breaker.isAvailable()
+                        && busAlive[0] && busAlive[1]) {
+
+                    double[] loadsForDecision = (effectiveLoadKw != null)
+                            ? effectiveLoadKw
+                            : baseLoads(buses, t, work.baseLoadKw);
+
+                    sectionalClosedThisHour = TieBreakerController.shouldCloseTieBreakerThisHour(
+                            sp, buses, loadsForDecision, windKw, dgMaxKw
+                    );
+
+                    breaker.setClosed(sectionalClosedThisHour);
+                } else {
+                    if (breaker != null) breaker.setClosed(false);
+                }
+                // ===== Sectional-closed dispatch (если секционник закрыт) =====
+
+                if (sectionalClosedThisHour) {
+
+                    final double[] loads = (effectiveLoadKw != null)
+                            ? effectiveLoadKw
+                            : baseLoads(buses, t, work.baseLoadKw);
+
+                    SectionalClosedResult r = SectionalClosedDispatcher.dispatchSectionalClosedOneHour(
+                            ctx,
+                            buses,
+                            loads
+                    );
+
+                    // totals: полностью за час (в этом режиме per-bus dispatch ниже НЕ выполняем)
+                    totals.loadKwh += r.loadKwh;
+                    totals.ensKwh += r.ensKwh;
+                    totals.wreKwh += r.wreKwh;
+                    totals.wtToLoadKwh += r.wtToLoadKwh;
+                    totals.dgToLoadKwh += r.dgToLoadKwh;
+                    totals.btToLoadKwh += r.btToLoadKwh;
+                    totals.fuelLiters += r.fuelLiters;
+
+                    // ENS по категориям: учитываем нюанс задержки пуска ДГУ.
+                    // - часть ENS из-за задержки пуска (кратковременный провал) распределяем пропорционально категориям
+                    // - остаток ENS (сброс нагрузки при дефиците) распределяем приоритетно: III -> II -> I
+                    for (int b = 0; b < busCount; b++) {
+                        double startEns = r.startEnsByBus[b];
+                        double totalEnsBus = r.defByBus[b];
+                        if (startEns > SimulationConstants.EPSILON) {
+                            EnsAllocator.addEnsByCategoryProportional(totals, loads[b], startEns, cat1, cat2);
+                        }
+                        double restEns = Math.max(0.0, totalEnsBus - startEns);
+                        if (restEns > SimulationConstants.EPSILON) {
+                            EnsAllocator.addEnsByCategory(totals, loads[b], restEns, cat1, cat2);
+                        }
                     }
-                    double restEns = Math.max(0.0, totalEnsBus - startEns);
-                    if (restEns > SimulationConstants.EPSILON) {
-                        EnsAllocator.addEnsByCategory(totals, loads[b], restEns, cat1, cat2);
+
+                    if (doTrace) {
+                        totalLoadAtTime = r.loadKwh;
+                        totalDefAtTime = r.ensKwh;
+                        totalWreAtTime = r.wreKwh;
+
+                        for (int b = 0; b < busCount; b++) {
+                            trace.setBusValues(
+                                    b,
+                                    true,
+                                    loads[b],
+                                    r.windToLoadByBus[b],
+                                    r.dgToLoadByBus[b],
+                                    r.btNetByBus[b],
+                                    r.defByBus[b]
+                            );
+                            trace.fillDgState(b, buses.get(b));
+                            trace.fillBatteryState(b, buses.get(b).getBattery());
+                        }
+
+                        Boolean brkClosed = (breaker == null) ? null : breaker.isClosed();
+                        trace.addHourRecord(t, totalLoadAtTime, totalDefAtTime, totalWreAtTime, brkClosed);
+
                     }
+                    continue;
                 }
 
-                if (doTrace) {
-                    totalLoadAtTime = r.loadKwh;
-                    totalDefAtTime = r.ensKwh;
-                    totalWreAtTime = r.wreKwh;
+                // ===== Standard per-bus dispatch =====
+                for (int b = 0; b < busCount; b++) {
+                    final PowerBus bus = buses.get(b);
+                    final double loadKw = (effectiveLoadKw != null) ? effectiveLoadKw[b] : bus.getLoadKw()[t];
+
+                    PerBusDispatcher.dispatchOneBusOneHour(
+                            ctx,
+                            bus,
+                            busAlive[b],
+                            b,
+                            loadKw
+                    );
+                }
 
+                if (doTrace) {
                     for (int b = 0; b < busCount; b++) {
-                        trace.setBusValues(
-                                b,
-                                true,
-                                loads[b],
-                                r.windToLoadByBus[b],
-                                r.dgToLoadByBus[b],
-                                r.btNetByBus[b],
-                                r.defByBus[b]
-                        );
-                        trace.fillDgState(b, buses.get(b));
-                        trace.fillBatteryState(b, buses.get(b).getBattery());
+                        totalLoadAtTime += buses.get(b).getLoadKw()[t]; // или effectiveLoadKw[b] если он не null — ниже см.
                     }
-
+                    totalWreAtTime = ctx.hourWreKwh;
                     Boolean brkClosed = (breaker == null) ? null : breaker.isClosed();
                     trace.addHourRecord(t, totalLoadAtTime, totalDefAtTime, totalWreAtTime, brkClosed);
 
                 }
-                continue;
-            }
-
-            // ===== Standard per-bus dispatch =====
-            for (int b = 0; b < busCount; b++) {
-                final PowerBus bus = buses.get(b);
-                final double loadKw = (effectiveLoadKw != null) ? effectiveLoadKw[b] : bus.getLoadKw()[t];
-
-                PerBusDispatcher.dispatchOneBusOneHour(
-                        ctx,
-                        bus,
-                        busAlive[b],
-                        b,
-                        loadKw
-                );
-            }
-
-            if (doTrace) {
-                for (int b = 0; b < busCount; b++) {
-                    totalLoadAtTime += buses.get(b).getLoadKw()[t]; // или effectiveLoadKw[b] если он не null — ниже см.
-                }
-                totalWreAtTime = hourWreRef[0];
-                Boolean brkClosed = (breaker == null) ? null : breaker.isClosed();
-                trace.addHourRecord(t, totalLoadAtTime, totalDefAtTime, totalWreAtTime, brkClosed);
 
             }
-
+            completed = true;
+        } finally {
+            // исключение посреди прогона: поток записи trace и его файл не должны остаться открытыми
+            if (!completed) trace.abort();
         }
 
+        trace.end();
+
         // ===== total failures by internal counters =====
         long failRoom = 0;
         long failBus = 0;
@@ -246,14 +347,17 @@ public final class SingleRunSimulator {
         long failBrk = 0;
         long repBt = 0;
 
-        for(SwitchgearRoom room : rooms) {
-            failRoom += room.getFailureCount();
+        for (int r = 0; r < rooms.size(); r++) {
+            failRoom += rooms.get(r).getFailureCount();
         }
 
-        for (PowerBus bus : buses) {
+        for (int b = 0; b < busCount; b++) {
+            PowerBus bus = buses.get(b);
             failBus += bus.getFailureCount();
-            for (WindTurbine wt : bus.getWindTurbines()) failWt += wt.getFailureCount();
-            for (DieselGenerator dg : bus.getDieselGenerators()) failDg += dg.getFailureCount();
+            List<WindTurbine> wts = bus.getWindTurbines();
+            for (int i = 0; i < wts.size(); i++) failWt += wts.get(i).getFailureCount();
+            List<DieselGenerator> dgs = bus.getDieselGenerators();
+            for (int i = 0; i < dgs.size(); i++) failDg += dgs.get(i).getFailureCount();
             Battery bt = bus.getBattery();
             if (bt != null){
                 failBt += bt.getFailureCount();
@@ -263,10 +367,18 @@ public final class SingleRunSimulator {
         if (breaker != null) failBrk += breaker.getFailureCount();
 
         long moto = 0;
-        for (PowerBus bus : buses) {
-            for (DieselGenerator dg : bus.getDieselGenerators()) moto += dg.getTotalTimeWorked();
+        for (int b = 0; b < busCount; b++) {
+            List<DieselGenerator> dgs = buses.get(b).getDieselGenerators();
+            for (int i = 0; i < dgs.size(); i++) moto += dgs.get(i).getTotalTimeWorked();
         }
 
+        double weight = (importanceSampling != null)
+                ? FailureStepper.likelihoodRatio(buses, breaker, rooms)
+                : 1.0;
+        double[] failureControls = considerFailures
+                ? FailureStepper.centredFailureCounts(buses, breaker, rooms)
+                : null;
+
         return new SimulationMetrics(
                 totals.loadKwh,
                 totals.ensKwh,
@@ -278,14 +390,16 @@ public final class SingleRunSimulator {
                 totals.btToLoadKwh,
                 totals.fuelLiters,
                 moto,
-                trace.records(),
+                trace.columns(),
                 failBus,
                 failDg,
                 failWt,
                 failBt,
                 failBrk,
                 failRoom,
-                repBt
+                repBt,
+                weight,
+                failureControls
         );
     }
 
@@ -294,14 +408,31 @@ public final class SingleRunSimulator {
     // ======================================================================
 // ======================================================================
 
-    static double computeWindPotential(PowerBus bus, double windV) {
-        double pot = 0.0;
-        for (WindTurbine wt : bus.getWindTurbines()) {
+    /**
+     * Потенциал ветра на шине за час + наработка исправных ВЭУ.
+     *
+     * @param perTurbineKw выдача одной исправной ВЭУ в этом часу ({@link SimInput#getWindPerTurbineKw(double)})
+     */
+    static double computeWindPotential(PowerBus bus, double perTurbineKw) {
+        int available = 0;
+        List<WindTurbine> wts = bus.getWindTurbines();
+        for (int i = 0; i < wts.size(); i++) {
+            WindTurbine wt = wts.get(i);
             if (!wt.isAvailable()) continue;
-            pot += wt.getPotentialGenerationKw(windV);
             wt.addWorkTime(1);
+            available++;
+        }
+        return BusPotential.windPotential(perTurbineKw, available);
+    }
+
+    /**
+     * Исходные нагрузки шин за час t, записанные в out (без переноса между шинами).
+     */
+    static double[] baseLoads(List<PowerBus> buses, int t, double[] out) {
+        for (int b = 0; b < out.length; b++) {
+            out[b] = buses.get(b).getLoadKw()[t];
         }
-        return pot;
+        return out;
     }
     // ======================================================================
 // FIXED: dispatchSectionalClosedOneHour
@@ -381,7 +512,8 @@ public final class SingleRunSimulator {
             Battery battery,
             double dgRatedKw,
             double dgMinKw,
-            double tau
+            double tau,
+            boolean[] keepOn
     ) {
         DieselGenerator[] dgs = DieselFleetController.getSortedDgs(bus);
         int dgCountAll = dgs.length;
@@ -389,7 +521,7 @@ public final class SingleRunSimulator {
         int available = 0;
         for (DieselGenerator dg : dgs) if (dg.isAvailable()) available++;
 
-        boolean[] keepOn = new boolean[dgCountAll];
+        Arrays.fill(keepOn, 0, dgCountAll, false);
 
         // Тут поменял уставку, старая уставка:
 //        double pCrit = loadKw * (cat1 + SimulationConstants.DG_IDLE_K2 * cat2);
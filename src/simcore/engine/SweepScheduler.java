@@ -0,0 +1,271 @@
+package simcore.engine;
+
+import simcore.sobol.ParameterSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Планировщик MC для всего sweep: задачи (точка, диапазон итераций) всех точек сразу
+ * отправляются в общий пул runner'а (ForkJoinPool — с work stealing), поэтому ядра не простаивают
+ * на "хвосте" каждой точки и при малом mcIterations. Задачи не блокируются, так что подходит
+ * и обычный пул фиксированного размера.
+ *
+ * Детерминизм: диапазоны задач имеют фиксированный размер (не зависят от числа потоков),
+ * seed итерации — как в {@link MonteCarloRunner}, а части выборки сливаются строго
+ * по порядку диапазонов. Поэтому суммы и итоги не зависят от числа потоков и порядка выполнения.
+ * Адаптивная остановка (если задана в runner) работает по тем же волнам: следующая волна точки
+ * отправляется, когда завершилась предыдущая.
+ */
+public final class SweepScheduler {
+
+    /** Итераций в одной задаче по умолчанию (20-летний прогон — уже достаточно крупная единица работы). */
+    public static final int DEFAULT_CHUNK_ITERATIONS = 1;
+
+    /**
+     * Получатель итогов: вызывается из рабочего потока пула по мере готовности точек
+     * (порядок вызовов не определён).
+     */
+    @FunctionalInterface
+    public interface PointListener {
+        void onPointDone(int pointIndex, MonteCarloEstimate estimate);
+    }
+
+    /**
+     * Точка плана: вход (theta уже применён), theta для итога и номер строки для seed
+     * (как sobolRowIdx в {@link MonteCarloRunner#evaluateForTheta}).
+     */
+    public record Point(SimInput input, ParameterSet theta, long seedRowIdx) {}
+
+    private final Executor pool;
+    private final MonteCarloRunner runner;
+    private final int chunkIterations;
+
+    public SweepScheduler(MonteCarloRunner runner) {
+        this(runner, DEFAULT_CHUNK_ITERATIONS);
+    }
+
+    public SweepScheduler(MonteCarloRunner runner, int chunkIterations) {
+        if (chunkIterations <= 0) {
+            throw new IllegalArgumentException("chunkIterations must be > 0");
+        }
+        this.pool = runner.executor();
+        this.runner = runner;
+        this.chunkIterations = chunkIterations;
+    }
+
+    /**
+     * MC по всем точкам sweep (theta = null, seed точки — как в {@link SimulationEngine#runMonteCarlo}).
+     *
+     * @param listener может быть null
+     * @return оценки в порядке inputs
+     */
+    public List<MonteCarloEstimate> run(List<SimInput> inputs,
+                                        int mcIterations,
+                                        long mcBaseSeed,
+                                        boolean traceIfSingle,
+                                        PointListener listener)
+            throws InterruptedException, ExecutionException {
+
+        List<Point> points = new ArrayList<>(inputs.size());
+        for (SimInput in : inputs) points.add(new Point(in, null, 0L));
+        return runPoints(points, mcIterations, mcBaseSeed, traceIfSingle, listener);
+    }
+
+    /**
+     * MC по произвольному набору точек (например, строкам плана Соболя).
+     *
+     * @param listener может быть null
+     * @return оценки в порядке points
+     */
+    public List<MonteCarloEstimate> runPoints(List<Point> points,
+                                              int mcIterations,
+                                              long mcBaseSeed,
+                                              boolean traceIfSingle,
+                                              PointListener listener)
+            throws InterruptedException, ExecutionException {
+
+        if (mcIterations <= 0) {
+            throw new IllegalArgumentException("mcIterations must be > 0");
+        }
+
+        final int count = points.size();
+        final MonteCarloEstimate[] results = new MonteCarloEstimate[count];
+        final CountDownLatch remaining = new CountDownLatch(count);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        for (int k = 0; k < count; k++) {
+            PointJob job = new PointJob(k, points.get(k), mcIterations, mcBaseSeed, traceIfSingle,
+                    results, remaining, failure, listener);
+            pool.execute(job::start);
+        }
+
+        remaining.await();
+
+        Throwable t = failure.get();
+        if (t != null) throw new ExecutionException(t);
+
+        return new ArrayList<>(Arrays.asList(results));
+    }
+
+    /**
+     * Состояние MC одной точки: текущая волна, её части и накопленная выборка.
+     */
+    private final class PointJob {
+
+        private final int index;
+        private final SimInput input;
+        private final ParameterSet theta;
+        private final long seedRowIdx;
+        private final int mcIterations;
+        private final long mcBaseSeed;
+        private final boolean traceIfSingle;
+
+        private final MonteCarloEstimate[] results;
+        private final CountDownLatch remaining;
+        private final AtomicReference<Throwable> failure;
+        private final PointListener listener;
+
+        /** ключ точки в кэше runner'а; null — кэш не используется */
+        private byte[] cacheKey;
+
+        /** наблюдений выборки ({@link MonteCarloRunner#sampleUnits}): прогонов или антитетических пар */
+        private int units;
+
+        private final MetricsAccumulator total = runner.newAccumulator();
+        private double[] ens;
+        private int done;
+
+        /** Части текущей волны [done, waveEnd) и число ещё не завершённых. */
+        private int waveEnd;
+        private MonteCarloRunner.ChunkAgg[] wave;
+        private final AtomicInteger pendingChunks = new AtomicInteger();
+
+        /** Точка отсчитана в remaining (ровно один раз: итог, своя ошибка или ошибка другой точки). */
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        PointJob(int index,
+                 Point point,
+                 int mcIterations,
+                 long mcBaseSeed,
+                 boolean traceIfSingle,
+                 MonteCarloEstimate[] results,
+                 CountDownLatch remaining,
+                 AtomicReference<Throwable> failure,
+                 PointListener listener) {
+            this.index = index;
+            this.input = point.input();
+            this.theta = point.theta();
+            this.seedRowIdx = point.seedRowIdx();
+            this.mcIterations = mcIterations;
+            this.mcBaseSeed = mcBaseSeed;
+            this.traceIfSingle = traceIfSingle;
+            this.results = results;
+            this.remaining = remaining;
+            this.failure = failure;
+            this.listener = listener;
+        }
+
+        void start() {
+            try {
+                if (failure.get() != null) {
+                    complete();
+                    return;
+                }
+                cacheKey = runner.cacheKey(input, mcIterations, mcBaseSeed, seedRowIdx, traceIfSingle);
+                MonteCarloEstimate cached = runner.cached(cacheKey, theta);
+                if (cached != null) {
+                    cacheKey = null;
+                    finish(cached);
+                    return;
+                }
+
+                MonteCarloEstimate withoutSampling = runner.evaluateWithoutSampling(
+                        input, theta, mcIterations, mcBaseSeed, seedRowIdx, traceIfSingle);
+                if (withoutSampling != null) {
+                    finish(withoutSampling);
+                    return;
+                }
+                units = runner.sampleUnits(mcIterations);
+                ens = runner.newEnsSample(units);
+                startWave(runner.firstWaveEnd(units));
+            } catch (Throwable t) {
+                fail(t);
+            }
+        }
+
+        private void startWave(int end) {
+            waveEnd = end;
+            int n = end - done;
+            int chunks = (n + chunkIterations - 1) / chunkIterations;
+            wave = new MonteCarloRunner.ChunkAgg[chunks];
+            pendingChunks.set(chunks);
+
+            for (int c = 0; c < chunks; c++) {
+                final int chunk = c;
+                final int from = done + c * chunkIterations;
+                final int to = Math.min(end, from + chunkIterations);
+                pool.execute(() -> runChunk(chunk, from, to));
+            }
+        }
+
+        private void runChunk(int chunk, int from, int to) {
+            try {
+                // sweep уже провален: точку не досчитываем, но отсчитываем, иначе runPoints ждёт вечно
+                if (failure.get() != null) {
+                    complete();
+                    return;
+                }
+                wave[chunk] = runner.runChunk(input, mcBaseSeed, seedRowIdx, from, to);
+                // последняя завершившаяся часть волны видит результаты остальных (volatile RMW)
+                if (pendingChunks.decrementAndGet() == 0) onWaveDone();
+            } catch (Throwable t) {
+                fail(t);
+            }
+        }
+
+        private void onWaveDone() {
+            for (MonteCarloRunner.ChunkAgg a : wave) {
+                total.merge(a.metrics);
+                if (ens != null) System.arraycopy(a.ens, 0, ens, a.ensOffset, a.ens.length);
+            }
+            wave = null;
+            done = waveEnd;
+
+            int next = runner.nextWaveEnd(done, units, total);
+            if (next > done) {
+                startWave(next);
+            } else {
+                finish(runner.summarize(theta, total, ens, done));
+            }
+        }
+
+        private void finish(MonteCarloEstimate estimate) {
+            results[index] = estimate;
+            try {
+                runner.store(cacheKey, estimate);
+                if (listener != null) listener.onPointDone(index, estimate);
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+            } finally {
+                complete();
+            }
+        }
+
+        private void fail(Throwable t) {
+            failure.compareAndSet(null, t);
+            complete();
+        }
+
+        private void complete() {
+            if (completed.compareAndSet(false, true)) remaining.countDown();
+        }
+    }
+}
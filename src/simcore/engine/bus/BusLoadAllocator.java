@@ -19,51 +19,55 @@ public final class BusLoadAllocator {
     }
 
     /**
-     * @return массив эффективных нагрузок по шинам или null, если перенос не применим
+     * @param out буфер длиной buses.size(), в который пишутся эффективные нагрузки по шинам
+     * @return true, если out заполнен; false, если перенос не применим (out не трогается)
      */
-    public static double[] maybeComputeEffectiveLoads(SystemParameters sp,
-                                                      List<PowerBus> buses,
-                                                      boolean[] busAlive,
-                                                      int t,
-                                                      double cat1,
-                                                      double cat2,
-                                                      double windV,
-                                                      double dgMaxKw) {
+    public static boolean maybeComputeEffectiveLoads(SystemParameters sp,
+                                                     List<PowerBus> buses,
+                                                     boolean[] busAlive,
+                                                     int t,
+                                                     double cat1,
+                                                     double cat2,
+                                                     double windPerTurbineKw,
+                                                     double dgMaxKw,
+                                                     double[] out) {
         final int busCount = buses.size();
         final BusSystemType busType = sp.getBusSystemType();
 
         if (busCount != 2) {
-            return null;
+            return false;
         }
         if (busType != BusSystemType.SINGLE_SECTIONAL_BUS && busType != BusSystemType.DOUBLE_BUS) {
-            return null;
+            return false;
         }
 
         if (busType == BusSystemType.SINGLE_SECTIONAL_BUS) {
             // Перенос 1/2 категории только при отказе секции (если одна секция недоступна)
-            return computeEffectiveLoadsForSectional(sp, buses, busAlive, t, cat1, cat2);
+            computeEffectiveLoadsForSectional(sp, buses, busAlive, t, cat1, cat2, out);
+            return true;
         }
 
         // DOUBLE_BUS: перенос 1/2 категории при отказе шины И при дефиците мощности на одной из шин
-        return computeEffectiveLoadsForDoubleBus(sp, buses, busAlive, t, cat1, cat2, windV, dgMaxKw);
+        computeEffectiveLoadsForDoubleBus(sp, buses, busAlive, t, cat1, cat2, windPerTurbineKw, dgMaxKw, out);
+        return true;
     }
 
-    private static double[] computeEffectiveLoadsForSectional(SystemParameters sp,
-                                                              List<PowerBus> buses,
-                                                              boolean[] busAlive,
-                                                              int t,
-                                                              double cat1,
-                                                              double cat2) {
-        double[] out = new double[buses.size()];
+    private static void computeEffectiveLoadsForSectional(SystemParameters sp,
+                                                          List<PowerBus> buses,
+                                                          boolean[] busAlive,
+                                                          int t,
+                                                          double cat1,
+                                                          double cat2,
+                                                          double[] out) {
         for (int i = 0; i < buses.size(); i++) {
             out[i] = buses.get(i).getLoadKw()[t];
         }
 
         if (buses.size() != 2) {
-            return out;
+            return;
         }
         if (busAlive[0] == busAlive[1]) {
-            return out;
+            return;
         }
 
         int dead = busAlive[0] ? 1 : 0;
@@ -78,52 +82,46 @@ public final class BusLoadAllocator {
 
         out[dead] = Math.max(0.0, out[dead] - transfer);
         out[live] += transfer;
-        return out;
     }
 
-    private static double[] computeEffectiveLoadsForDoubleBus(SystemParameters sp,
-                                                              List<PowerBus> buses,
-                                                              boolean[] busAlive,
-                                                              int t,
-                                                              double cat1,
-                                                              double cat2,
-                                                              double windV,
-                                                              double dgMaxKw) {
+    private static void computeEffectiveLoadsForDoubleBus(SystemParameters sp,
+                                                          List<PowerBus> buses,
+                                                          boolean[] busAlive,
+                                                          int t,
+                                                          double cat1,
+                                                          double cat2,
+                                                          double windPerTurbineKw,
+                                                          double dgMaxKw,
+                                                          double[] out) {
         // Базовая нагрузка по шинам
-        double[] out = new double[buses.size()];
         for (int i = 0; i < buses.size(); i++) {
             out[i] = buses.get(i).getLoadKw()[t];
         }
 
         if (buses.size() != 2) {
-            return out;
+            return;
         }
 
         // Если одна шина недоступна — используем ту же логику переноса (1-я сразу, 2-я с задержкой)
         if (busAlive[0] != busAlive[1]) {
-            return computeEffectiveLoadsForSectional(sp, buses, busAlive, t, cat1, cat2);
+            computeEffectiveLoadsForSectional(sp, buses, busAlive, t, cat1, cat2, out);
+            return;
         }
 
         // Если обе недоступны или обе доступны — работаем далее только для случая "обе доступны"
         if (!busAlive[0] && !busAlive[1]) {
-            return out;
+            return;
         }
 
         // Перенос при дефиците: если на одной шине не хватает потенциальной генерации (WT + DGmax + АКБ),
         // а на другой есть запас, переносим часть двухвводных потребителей (cat1+cat2) на другую шину.
-        double[] pot = new double[2];
-        for (int b = 0; b < 2; b++) {
-            PowerBus bus = buses.get(b);
-            double windPot = BusPotential.windPotentialNoSideEffects(bus, windV);
-            double dgPot = BusPotential.dieselPotential(bus, dgMaxKw);
-            double btPot = BusPotential.batteryDischargePotential(bus, sp);
-            pot[b] = windPot + dgPot + btPot;
-        }
+        double pot0 = BusPotential.totalPotential(buses.get(0), sp, windPerTurbineKw, dgMaxKw);
+        double pot1 = BusPotential.totalPotential(buses.get(1), sp, windPerTurbineKw, dgMaxKw);
 
-        double deficit0 = Math.max(0.0, out[0] - pot[0]);
-        double deficit1 = Math.max(0.0, out[1] - pot[1]);
-        double surplus0 = Math.max(0.0, pot[0] - out[0]);
-        double surplus1 = Math.max(0.0, pot[1] - out[1]);
+        double deficit0 = Math.max(0.0, out[0] - pot0);
+        double deficit1 = Math.max(0.0, out[1] - pot1);
+        double surplus0 = Math.max(0.0, pot0 - out[0]);
+        double surplus1 = Math.max(0.0, pot1 - out[1]);
 
         // Для DOUBLE_BUS при дефиците разрешаем переносить и III категорию (если требуется),
         // т.е. теоретически переносима вся нагрузка. Перенос I/II при отказе шины остаётся
@@ -141,7 +139,5 @@ public final class BusLoadAllocator {
             out[1] = Math.max(0.0, out[1] - transfer);
             out[0] += transfer;
         }
-
-        return out;
     }
 }
@@ -6,6 +6,8 @@ import simcore.model.DieselGenerator;
 import simcore.model.PowerBus;
 import simcore.model.WindTurbine;
 
+import java.util.List;
+
 /**
  * Потенциалы мощности по шине без побочных эффектов (не меняет состояние/наработку).
  */
@@ -14,26 +16,51 @@ public final class BusPotential {
     private BusPotential() {
     }
 
-    public static double windPotentialNoSideEffects(PowerBus bus, double windV) {
+    /**
+     * @param perTurbineKw выдача одной исправной ВЭУ в этом часу (из заранее посчитанного ряда)
+     */
+    public static double windPotentialNoSideEffects(PowerBus bus, double perTurbineKw) {
+        List<WindTurbine> wts = bus.getWindTurbines();
+        int available = 0;
+        for (int i = 0; i < wts.size(); i++) {
+            if (wts.get(i).isAvailable()) available++;
+        }
+        return windPotential(perTurbineKw, available);
+    }
+
+    /**
+     * Суммарная выдача availableCount одинаковых исправных ВЭУ.
+     * Складываем, а не умножаем, чтобы результат совпадал побитно с прежним суммированием по ВЭУ.
+     */
+    public static double windPotential(double perTurbineKw, int availableCount) {
         double pot = 0.0;
-        for (WindTurbine wt : bus.getWindTurbines()) {
-            if (wt.isAvailable()) {
-                pot += wt.getPotentialGenerationKw(windV);
-            }
+        for (int i = 0; i < availableCount; i++) {
+            pot += perTurbineKw;
         }
         return pot;
     }
 
     public static double dieselPotential(PowerBus bus, double dgMaxKw) {
+        List<DieselGenerator> dgs = bus.getDieselGenerators();
         double pot = 0.0;
-        for (DieselGenerator dg : bus.getDieselGenerators()) {
-            if (dg.isAvailable()) {
+        for (int i = 0; i < dgs.size(); i++) {
+            if (dgs.get(i).isAvailable()) {
                 pot += dgMaxKw;
             }
         }
         return pot;
     }
 
+    /**
+     * Полный потенциал шины за час: ВЭУ + ДГУ (на максимуме) + разряд АКБ.
+     */
+    public static double totalPotential(PowerBus bus, SystemParameters sp, double perTurbineKw, double dgMaxKw) {
+        double windPot = windPotentialNoSideEffects(bus, perTurbineKw);
+        double dgPot = dieselPotential(bus, dgMaxKw);
+        double btPot = batteryDischargePotential(bus, sp);
+        return windPot + dgPot + btPot;
+    }
+
     public static double batteryDischargePotential(PowerBus bus, SystemParameters sp) {
         Battery bt = bus.getBattery();
         if (bt == null || !bt.isAvailable()) {
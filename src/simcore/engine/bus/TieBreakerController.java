@@ -19,29 +19,20 @@ public final class TieBreakerController {
     public static boolean shouldCloseTieBreakerThisHour(SystemParameters sp,
                                                         List<PowerBus> buses,
                                                         double[] loads,
-                                                        double windV,
+                                                        double windPerTurbineKw,
                                                         double dgMaxKw) {
-        double[] deficit = new double[2];
-        double[] surplus = new double[2];
+        double pot0 = BusPotential.totalPotential(buses.get(0), sp, windPerTurbineKw, dgMaxKw);
+        double pot1 = BusPotential.totalPotential(buses.get(1), sp, windPerTurbineKw, dgMaxKw);
 
-        for (int b = 0; b < 2; b++) {
-            PowerBus bus = buses.get(b);
-            double load = loads[b];
-
-            double windPot = BusPotential.windPotentialNoSideEffects(bus, windV);
-            double dgPot = BusPotential.dieselPotential(bus, dgMaxKw);
-            double btPot = BusPotential.batteryDischargePotential(bus, sp);
-
-            double pot = windPot + dgPot + btPot;
-
-            deficit[b] = Math.max(0.0, load - pot);
-            surplus[b] = Math.max(0.0, pot - load);
-        }
+        double deficit0 = Math.max(0.0, loads[0] - pot0);
+        double deficit1 = Math.max(0.0, loads[1] - pot1);
+        double surplus0 = Math.max(0.0, pot0 - loads[0]);
+        double surplus1 = Math.max(0.0, pot1 - loads[1]);
 
         // Замыкать межсекционный имеет смысл только если на одной секции есть дефицит,
         // а на другой есть запас для покрытия (иначе объединение не помогает).
-        boolean close01 = deficit[0] > SimulationConstants.EPSILON && surplus[1] > SimulationConstants.EPSILON;
-        boolean close10 = deficit[1] > SimulationConstants.EPSILON && surplus[0] > SimulationConstants.EPSILON;
+        boolean close01 = deficit0 > SimulationConstants.EPSILON && surplus1 > SimulationConstants.EPSILON;
+        boolean close10 = deficit1 > SimulationConstants.EPSILON && surplus0 > SimulationConstants.EPSILON;
         return close01 || close10;
     }
 }
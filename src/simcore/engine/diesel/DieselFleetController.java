@@ -1,9 +1,9 @@
 package simcore.engine.diesel;
 
+import simcore.model.DgDispatchOrder;
 import simcore.model.DieselGenerator;
 import simcore.model.PowerBus;
 
-import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -14,36 +14,28 @@ public final class DieselFleetController {
 
     private DieselFleetController() {}
 
-    private static final ThreadLocal<DieselGenerator[]> DG_SORT_BUF = new ThreadLocal<>();
-
+    /**
+     * DGs of the bus in dispatch order ({@link DieselGenerator#DISPATCH_COMPARATOR}).
+     * The order is maintained incrementally by the DGs themselves; this only copies it
+     * into the bus snapshot buffer, which is overwritten by the next call for the same bus.
+     */
     public static DieselGenerator[] getSortedDgs(PowerBus bus) {
-        List<DieselGenerator> dgList = bus.getDieselGenerators();
-        int n = dgList.size();
-
-        DieselGenerator[] buf = DG_SORT_BUF.get();
-        if (buf == null || buf.length != n) {
-            buf = new DieselGenerator[n];
-            DG_SORT_BUF.set(buf);
-        }
-        for (int i = 0; i < n; i++) buf[i] = dgList.get(i);
-
-        Arrays.sort(buf, DieselGenerator.DISPATCH_COMPARATOR);
-        return buf;
+        return bus.getDgDispatchOrder().snapshot();
     }
 
     /**
-     * Sorted array from an arbitrary list (used by shared-bus dispatch helpers).
+     * Sorted DGs of two buses (used by shared-bus dispatch helpers):
+     * same order as a stable sort of "bus0 DGs, then bus1 DGs".
+     * buf length must equal the total DG count of both buses.
      */
-    public static DieselGenerator[] getSortedDgs(List<DieselGenerator> dgList) {
-        int n = dgList.size();
-        DieselGenerator[] arr = new DieselGenerator[n];
-        for (int i = 0; i < n; i++) arr[i] = dgList.get(i);
-        Arrays.sort(arr, DieselGenerator.DISPATCH_COMPARATOR);
-        return arr;
+    public static DieselGenerator[] getSortedDgs(PowerBus bus0, PowerBus bus1, DieselGenerator[] buf) {
+        return DgDispatchOrder.merge(bus0.getDgDispatchOrder(), bus1.getDgDispatchOrder(), buf);
     }
 
     public static void stopAllDieselsOnBus(PowerBus bus) {
-        for (DieselGenerator dg : bus.getDieselGenerators()) {
+        List<DieselGenerator> dgList = bus.getDieselGenerators();
+        for (int i = 0; i < dgList.size(); i++) {
+            DieselGenerator dg = dgList.get(i);
             if (!dg.isAvailable()) {
                 hardStopDg(dg);
                 continue;
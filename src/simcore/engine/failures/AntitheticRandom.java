@@ -0,0 +1,26 @@
+package simcore.engine.failures;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Антитетический двойник генератора: те же числа, но nextDouble() даёт 1 - u вместо u,
+ * так что время до отказа -ln(1 - u) становится -ln(u) — короткие наработки меняются на длинные.
+ */
+final class AntitheticRandom implements RandomGenerator {
+
+    private final RandomGenerator source;
+
+    AntitheticRandom(RandomGenerator source) {
+        this.source = source;
+    }
+
+    @Override
+    public long nextLong() {
+        return source.nextLong();
+    }
+
+    @Override
+    public double nextDouble() {
+        return 1.0 - source.nextDouble();
+    }
+}
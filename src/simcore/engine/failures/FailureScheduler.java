@@ -0,0 +1,152 @@
+package simcore.engine.failures;
+
+import simcore.model.DieselGenerator;
+import simcore.model.Equipment;
+import simcore.model.FailureEventListener;
+import simcore.model.PowerBus;
+import simcore.model.WindTurbine;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Событийный планировщик отказов/ремонтов/ТО для оборудования шин (ВЭУ и ДГУ).
+ *
+ * Вместо почасового обновления каждой единицы оборудования для каждой шины хранится очередь
+ * событий: окончание ремонта/ТО, наступление отказа или срока ТО по наработке. Часы отсчитываются
+ * по "часам обновления" шины (обновление оборудования выполняется только пока шина жива),
+ * поэтому результат совпадает с почасовым отсчётом.
+ *
+ * Шины, автомат и помещения (единицы штук на систему) и АКБ (саморазряд/старение каждый час)
+ * обновляются по-прежнему почасово в {@link FailureStepper}.
+ */
+public final class FailureScheduler {
+
+    private final BusSchedule[] buses;
+
+    public FailureScheduler(List<PowerBus> buses) {
+        this.buses = new BusSchedule[buses.size()];
+        for (int b = 0; b < this.buses.length; b++) {
+            this.buses[b] = new BusSchedule(buses.get(b));
+        }
+    }
+
+    /**
+     * Подготовка к прогону; вызывать после initFailureModel всего оборудования.
+     * При considerFailures == false оборудование отписывается и событий нет.
+     */
+    public void start(boolean considerFailures) {
+        for (BusSchedule s : buses) s.start(considerFailures);
+    }
+
+    /**
+     * Один час обновления оборудования шины (как почасовой updateFailureOneHour ВЭУ и ДГУ).
+     */
+    public void advanceBusOneHour(int busIndex) {
+        buses[busIndex].advanceOneHour();
+    }
+
+    private static final class BusSchedule implements FailureEventListener {
+
+        private static final int SLOT_BITS = 20;
+        private static final long SLOT_MASK = (1L << SLOT_BITS) - 1;
+
+        /** ВЭУ (слоты 0..wtCount-1), затем ДГУ — в порядке почасового обхода. */
+        private final Equipment[] items;
+        private final int wtCount;
+
+        /** Час, на который запланировано событие слота (-1 — нет события). */
+        private final long[] eventTick;
+
+        /** Ключи событий: (час << SLOT_BITS) | слот; устаревшие ключи пропускаются при извлечении. */
+        private final LongMinHeap queue;
+
+        /** Число выполненных часов обновления шины. */
+        private long clock;
+
+        private int dgInMaintenance;
+
+        BusSchedule(PowerBus bus) {
+            List<WindTurbine> wts = bus.getWindTurbines();
+            List<DieselGenerator> dgs = bus.getDieselGenerators();
+            wtCount = wts.size();
+            items = new Equipment[wtCount + dgs.size()];
+            for (int i = 0; i < wtCount; i++) items[i] = wts.get(i);
+            for (int i = 0; i < dgs.size(); i++) items[wtCount + i] = dgs.get(i);
+
+            eventTick = new long[items.length];
+            queue = new LongMinHeap(2 * items.length);
+        }
+
+        void start(boolean considerFailures) {
+            clock = 0;
+            dgInMaintenance = 0;
+            queue.clear();
+            Arrays.fill(eventTick, -1L);
+
+            for (int slot = 0; slot < items.length; slot++) {
+                items[slot].setFailureEventListener(considerFailures ? this : null, slot);
+                if (considerFailures) schedule(slot);
+            }
+        }
+
+        void advanceOneHour() {
+            clock++;
+
+            // ДГУ, находящаяся в ТО с прошлого часа, запрещает старт ТО остальным
+            boolean maintenanceOnBus = dgInMaintenance > 0;
+
+            while (!queue.isEmpty() && (queue.peek() >>> SLOT_BITS) <= clock) {
+                long key = queue.pop();
+                int slot = (int) (key & SLOT_MASK);
+                if (eventTick[slot] != (key >>> SLOT_BITS)) continue; // событие перепланировано
+                eventTick[slot] = -1L;
+
+                Equipment eq = items[slot];
+                eq.skipToLastRepairHour();
+
+                if (slot < wtCount) {
+                    eq.updateFailureOneHour(true);
+                } else {
+                    DieselGenerator dg = (DieselGenerator) eq;
+                    boolean wasInMaintenance = dg.isInMaintenance();
+
+                    dg.updateFailureOneHour(true, !maintenanceOnBus);
+
+                    if (dg.isInMaintenance()) maintenanceOnBus = true;
+                    if (wasInMaintenance != dg.isInMaintenance()) {
+                        dgInMaintenance += dg.isInMaintenance() ? 1 : -1;
+                    }
+                }
+
+                schedule(slot);
+            }
+        }
+
+        @Override
+        public void onFailureStateChanged(int slot) {
+            schedule(slot);
+        }
+
+        /**
+         * Планирует ближайшее событие слота по его текущему состоянию.
+         */
+        private void schedule(int slot) {
+            Equipment eq = items[slot];
+
+            long tick;
+            if (eq.getRepairDurationHours() > 0) {
+                tick = clock + eq.getRepairDurationHours(); // окончание ремонта/ТО
+            } else if (eq.isAvailable() && eq.isFailureDue()) {
+                tick = clock + 1;                           // отказ/ТО в следующем часу
+            } else {
+                eventTick[slot] = -1L;
+                return;
+            }
+
+            if (eventTick[slot] == tick) return;
+            eventTick[slot] = tick;
+            queue.push((tick << SLOT_BITS) | slot);
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package simcore.engine.failures;
 
+import simcore.engine.RunWorkspace;
 import simcore.model.*;
 
 import java.util.List;
 import java.util.Random;
+import java.util.random.RandomGenerator;
 
 public final class FailureStepper {
 
@@ -11,12 +13,29 @@ public final class FailureStepper {
     }
 
     public static void initFailureModels(long seed, boolean considerFailures, List<PowerBus> buses, Breaker breaker, List<SwitchgearRoom> rooms) {
-        Random rndWT = new Random(seed + 1);
-        Random rndDG = new Random(seed + 2);
-        Random rndBT = new Random(seed + 3);
-        Random rndBUS = new Random(seed + 4);
-        Random rndBRK = new Random(seed + 5);
-        Random rndROOM = new Random(seed + 6);
+        initFailureModels(seed, SeedScheme.LEGACY, false, considerFailures, buses, breaker, rooms);
+    }
+
+    /**
+     * Генераторы отказов на итерацию: в {@link SeedScheme#LEGACY} — по одному на тип оборудования,
+     * в {@link SeedScheme#SPLITTABLE} — свой поток у каждого места (шина, номер на шине) ({@link RngStreams}),
+     * не зависящий от числа соседних компонентов.
+     *
+     * @param antithetic true — те же потоки, но каждое u заменено на 1 - u (вторая итерация антитетической пары)
+     */
+    public static void initFailureModels(long seed, SeedScheme scheme, boolean antithetic, boolean considerFailures,
+                                         List<PowerBus> buses, Breaker breaker, List<SwitchgearRoom> rooms) {
+        if (scheme == SeedScheme.SPLITTABLE) {
+            initComponentStreams(seed, antithetic, considerFailures, buses, breaker, rooms);
+            return;
+        }
+
+        RandomGenerator rndWT = pairSide(new Random(seed + 1), antithetic);
+        RandomGenerator rndDG = pairSide(new Random(seed + 2), antithetic);
+        RandomGenerator rndBT = pairSide(new Random(seed + 3), antithetic);
+        RandomGenerator rndBUS = pairSide(new Random(seed + 4), antithetic);
+        RandomGenerator rndBRK = pairSide(new Random(seed + 5), antithetic);
+        RandomGenerator rndROOM = pairSide(new Random(seed + 6), antithetic);
 
         for (SwitchgearRoom room : rooms) room.initFailureModel(rndROOM, considerFailures);
 
@@ -31,34 +50,149 @@ public final class FailureStepper {
         }
     }
 
+    private static void initComponentStreams(long seed, boolean antithetic, boolean considerFailures,
+                                             List<PowerBus> buses, Breaker breaker, List<SwitchgearRoom> rooms) {
+        for (int r = 0; r < rooms.size(); r++) {
+            rooms.get(r).initFailureModel(
+                    pairSide(RngStreams.stream(seed, RngStreams.TYPE_ROOM, r), antithetic), considerFailures);
+        }
+
+        if (breaker != null) {
+            breaker.initFailureModel(
+                    pairSide(RngStreams.stream(seed, RngStreams.TYPE_BRK, 0), antithetic), considerFailures);
+        }
+
+        for (int b = 0; b < buses.size(); b++) {
+            PowerBus bus = buses.get(b);
+            bus.initFailureModel(pairSide(RngStreams.stream(seed, RngStreams.TYPE_BUS, b), antithetic), considerFailures);
+
+            List<WindTurbine> wts = bus.getWindTurbines();
+            for (int k = 0; k < wts.size(); k++) {
+                wts.get(k).initFailureModel(
+                        pairSide(RngStreams.stream(seed, RngStreams.TYPE_WT, b, k), antithetic), considerFailures);
+            }
+            List<DieselGenerator> dgs = bus.getDieselGenerators();
+            for (int k = 0; k < dgs.size(); k++) {
+                dgs.get(k).initFailureModel(
+                        pairSide(RngStreams.stream(seed, RngStreams.TYPE_DG, b, k), antithetic), considerFailures);
+            }
+            Battery battery = bus.getBattery();
+            if (battery != null) {
+                battery.initFailureModel(
+                        pairSide(RngStreams.stream(seed, RngStreams.TYPE_BT, b, 0), antithetic), considerFailures);
+            }
+        }
+    }
+
+    /**
+     * Множители интенсивности отказов для importance sampling (null — без смещения).
+     * Вызывать до {@link #initFailureModels}: первый розыгрыш делается уже там.
+     */
+    public static void applyImportanceSampling(ImportanceSampling is,
+                                               List<PowerBus> buses, Breaker breaker, List<SwitchgearRoom> rooms) {
+        for (SwitchgearRoom room : rooms) room.setFailureRateBias(bias(is, RngStreams.TYPE_ROOM));
+        if (breaker != null) breaker.setFailureRateBias(bias(is, RngStreams.TYPE_BRK));
+
+        for (PowerBus bus : buses) {
+            bus.setFailureRateBias(bias(is, RngStreams.TYPE_BUS));
+            for (WindTurbine wt : bus.getWindTurbines()) wt.setFailureRateBias(bias(is, RngStreams.TYPE_WT));
+            for (DieselGenerator dg : bus.getDieselGenerators()) dg.setFailureRateBias(bias(is, RngStreams.TYPE_DG));
+            Battery bt = bus.getBattery();
+            if (bt != null) bt.setFailureRateBias(bias(is, RngStreams.TYPE_BT));
+        }
+    }
+
+    /**
+     * Вес прогона при importance sampling — произведение отношений правдоподобия всего оборудования
+     * (незакрытые розыгрыши считаются цензурированными концом горизонта).
+     */
+    public static double likelihoodRatio(List<PowerBus> buses, Breaker breaker, List<SwitchgearRoom> rooms) {
+        double log = 0.0;
+        for (int r = 0; r < rooms.size(); r++) log += rooms.get(r).finishLogLikelihoodRatio();
+        if (breaker != null) log += breaker.finishLogLikelihoodRatio();
+
+        for (int b = 0; b < buses.size(); b++) {
+            PowerBus bus = buses.get(b);
+            log += bus.finishLogLikelihoodRatio();
+            List<WindTurbine> wts = bus.getWindTurbines();
+            for (int k = 0; k < wts.size(); k++) log += wts.get(k).finishLogLikelihoodRatio();
+            List<DieselGenerator> dgs = bus.getDieselGenerators();
+            for (int k = 0; k < dgs.size(); k++) log += dgs.get(k).finishLogLikelihoodRatio();
+            Battery bt = bus.getBattery();
+            if (bt != null) log += bt.finishLogLikelihoodRatio();
+        }
+        return Math.exp(log);
+    }
+
+    /** Число центрированных счётчиков отказов ({@link #centredFailureCounts}) — по одному на тип оборудования. */
+    public static final int FAILURE_CONTROLS = RngStreams.TYPE_ROOM;
+
+    /**
+     * Центрированные числа отказов по типам, индекс — {@code RngStreams.TYPE_* - 1}
+     * (см. {@link Equipment#finishCentredFailureCount()}; незакрытые розыгрыши цензурируются концом горизонта).
+     * Среднее каждого — ровно 0, поэтому они годятся как контрольные переменные MC.
+     */
+    public static double[] centredFailureCounts(List<PowerBus> buses, Breaker breaker, List<SwitchgearRoom> rooms) {
+        double[] out = new double[FAILURE_CONTROLS];
+        for (int r = 0; r < rooms.size(); r++) {
+            out[RngStreams.TYPE_ROOM - 1] += rooms.get(r).finishCentredFailureCount();
+        }
+        if (breaker != null) out[RngStreams.TYPE_BRK - 1] += breaker.finishCentredFailureCount();
+
+        for (int b = 0; b < buses.size(); b++) {
+            PowerBus bus = buses.get(b);
+            out[RngStreams.TYPE_BUS - 1] += bus.finishCentredFailureCount();
+            List<WindTurbine> wts = bus.getWindTurbines();
+            for (int k = 0; k < wts.size(); k++) out[RngStreams.TYPE_WT - 1] += wts.get(k).finishCentredFailureCount();
+            List<DieselGenerator> dgs = bus.getDieselGenerators();
+            for (int k = 0; k < dgs.size(); k++) out[RngStreams.TYPE_DG - 1] += dgs.get(k).finishCentredFailureCount();
+            Battery bt = bus.getBattery();
+            if (bt != null) out[RngStreams.TYPE_BT - 1] += bt.finishCentredFailureCount();
+        }
+        return out;
+    }
+
+    private static double bias(ImportanceSampling is, int type) {
+        return (is == null) ? 1.0 : is.factorFor(type);
+    }
+
+    private static RandomGenerator pairSide(RandomGenerator rnd, boolean antithetic) {
+        return antithetic ? new AntitheticRandom(rnd) : rnd;
+    }
+
+    /**
+     * Отказы/ремонты шин, автомата и помещений за час.
+     * Результат (busAlive, busFailedThisHour, ...) пишется в буферы work.
+     */
     public static void updateNetworkFailuresOneHour(
             boolean considerFailures,
             List<PowerBus> buses,
             Breaker breaker,
             List<SwitchgearRoom> rooms,
             int[] roomIndexByBus,
-            boolean[] busAvailBefore,
-            boolean[] busAvailAfter,
-            boolean[] busFailedThisHour,
-            boolean[] busAlive
+            RunWorkspace work
     ) {
         final int busCount = buses.size();
+        final boolean[] busAvailBefore = work.busAvailBefore;
+        final boolean[] busAvailAfter = work.busAvailAfter;
+        final boolean[] busFailedThisHour = work.busFailedThisHour;
+        final boolean[] busAlive = work.busAlive;
 
         for (int b = 0; b < busCount; b++) busAvailBefore[b] = buses.get(b).isAvailable();
 
         final int roomCount = rooms.size();
-        boolean[] roomAvailBefore = new boolean[roomCount];
-        boolean[] roomAvailAfter = new boolean[roomCount];
-        boolean[] roomFailedThisHour = new boolean[roomCount];
+        final boolean[] roomAvailBefore = work.roomAvailBefore;
+        final boolean[] roomAvailAfter = work.roomAvailAfter;
+        final boolean[] roomFailedThisHour = work.roomFailedThisHour;
         for (int r = 0; r < roomCount; r++) roomAvailBefore[r] = rooms.get(r).isAvailable();
 
 
         boolean brAvailBefore = breaker != null && breaker.isAvailable();
         boolean brClosedBefore = breaker != null && breaker.isClosed();
 
-        for (SwitchgearRoom room : rooms) room.updateFailureOneHour(considerFailures);
+        for (int r = 0; r < roomCount; r++) rooms.get(r).updateFailureOneHour(considerFailures);
         if (breaker != null) breaker.updateFailureOneHour(considerFailures);
-        for (PowerBus bus : buses) bus.updateFailureOneHour(considerFailures);
+        for (int b = 0; b < busCount; b++) buses.get(b).updateFailureOneHour(considerFailures);
 
         for (int r = 0; r < roomCount; r++) {
             roomAvailAfter[r] = rooms.get(r).isAvailable();
@@ -77,7 +211,10 @@ public final class FailureStepper {
         boolean brFailedThisHour = breaker != null && brAvailBefore && !brAvailAfter;
 
         if (breaker != null && brClosedBefore && brFailedThisHour && anyBusFailed) {
-            for (PowerBus bus : buses) if (bus.isAvailable()) bus.forceFailNow();
+            for (int b = 0; b < busCount; b++) {
+                PowerBus bus = buses.get(b);
+                if (bus.isAvailable()) bus.forceFailNow();
+            }
         } else if (breaker != null && brClosedBefore && anyBusFailed && !brFailedThisHour) {
             breaker.setClosed(false);
         }
@@ -93,44 +230,30 @@ public final class FailureStepper {
             }
         }
 
-        for (SwitchgearRoom room : rooms) {
+        for (int r = 0; r < roomCount; r++) {
+            SwitchgearRoom room = rooms.get(r);
             if (room.isAvailable()) {
                 room.addWorkTime(1);
             }
         }
     }
 
-    public static void updateEquipmentFailuresOneHour(boolean considerFailures, List<PowerBus> buses, boolean[] busAlive) {
+    /**
+     * Отказы/ремонты/ТО оборудования живых шин за час.
+     * ВЭУ и ДГУ обрабатываются по событиям ({@link FailureScheduler}; только одна ДГУ на шине
+     * может начать/быть в ТО), АКБ — почасово.
+     */
+    public static void updateEquipmentFailuresOneHour(boolean considerFailures,
+                                                      List<PowerBus> buses,
+                                                      boolean[] busAlive,
+                                                      FailureScheduler scheduler) {
         for (int b = 0; b < buses.size(); b++) {
             if (!busAlive[b]) continue;
 
             PowerBus bus = buses.get(b);
 
-            // WT
-            for (WindTurbine wt : bus.getWindTurbines()) wt.updateFailureOneHour(considerFailures);
-
-            // ===== DG: только одна ДГУ может начать/быть в ТО на шине =====
-
-            // (A) Есть ли уже ДГУ в ТО с прошлого часа?
-            boolean maintenanceOnBus = false;
-            for (DieselGenerator dg : bus.getDieselGenerators()) {
-                if (dg.isInMaintenance()) { // это true, пока идёт ТО (repairDurationHours тикает)
-                    maintenanceOnBus = true;
-                    break;
-                }
-            }
-
-            // (B) Обновляем ДГУ по очереди; только первой разрешаем старт ТО.
-            for (DieselGenerator dg : bus.getDieselGenerators()) {
-                boolean allowMaintenanceStart = !maintenanceOnBus;
-
-                dg.updateFailureOneHour(considerFailures, allowMaintenanceStart);
-
-                // Если эта ДГУ вошла в ТО в этом часу (или уже была) — дальше запрещаем старт
-                if (dg.isInMaintenance()) {
-                    maintenanceOnBus = true;
-                }
-            }
+            // WT + DG
+            if (considerFailures) scheduler.advanceBusOneHour(b);
 
             // BT
             Battery bt = bus.getBattery();
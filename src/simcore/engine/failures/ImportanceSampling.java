@@ -0,0 +1,52 @@
+package simcore.engine.failures;
+
+import simcore.config.ParameterDigest;
+
+import java.security.MessageDigest;
+
+/**
+ * Importance sampling для редких отказов: времена до отказа выбранных типов оборудования
+ * разыгрываются с интенсивностью, умноженной на коэффициент, а каждый прогон получает вес —
+ * отношение правдоподобия исходной и смещённой моделей ({@link simcore.model.Equipment#finishLogLikelihoodRatio()}).
+ * Среднее взвешенных наблюдений w * x — несмещённая оценка при исходных интенсивностях.
+ *
+ * Коэффициент 1.0 — тип без смещения. Разброс весов растёт с коэффициентом и с горизонтом
+ * (вес — произведение по всем розыгрышам за прогон): для сетевых отказов на годовом горизонте
+ * работает ~10, на 20-летнем — не больше ~2. Контроль — метрика {@code IS_WEIGHT}: среднее около 1.
+ */
+public record ImportanceSampling(double wt, double dg, double bt, double bus, double brk, double room) {
+
+    public ImportanceSampling {
+        if (!(wt > 0 && dg > 0 && bt > 0 && bus > 0 && brk > 0 && room > 0)) {
+            throw new IllegalArgumentException("importance sampling factors must be > 0");
+        }
+    }
+
+    /** Смещение только сетевых отказов: шины, автомат, помещения РУ. */
+    public static ImportanceSampling network(double factor) {
+        return new ImportanceSampling(1.0, 1.0, 1.0, factor, factor, factor);
+    }
+
+    /** Коэффициент для типа {@link RngStreams}.TYPE_*. */
+    public double factorFor(int type) {
+        return switch (type) {
+            case RngStreams.TYPE_WT -> wt;
+            case RngStreams.TYPE_DG -> dg;
+            case RngStreams.TYPE_BT -> bt;
+            case RngStreams.TYPE_BUS -> bus;
+            case RngStreams.TYPE_BRK -> brk;
+            case RngStreams.TYPE_ROOM -> room;
+            default -> throw new IllegalArgumentException("Unknown equipment type: " + type);
+        };
+    }
+
+    /** Коэффициенты в ключ кэша или журнала ({@link ParameterDigest}). */
+    public void updateDigest(MessageDigest md) {
+        ParameterDigest.update(md, wt);
+        ParameterDigest.update(md, dg);
+        ParameterDigest.update(md, bt);
+        ParameterDigest.update(md, bus);
+        ParameterDigest.update(md, brk);
+        ParameterDigest.update(md, room);
+    }
+}
@@ -0,0 +1,60 @@
+package simcore.engine.failures;
+
+import java.util.Arrays;
+
+/**
+ * Двоичная min-куча примитивных long (без упаковки), используется очередью событий отказов.
+ */
+final class LongMinHeap {
+
+    private long[] heap;
+    private int size;
+
+    LongMinHeap(int initialCapacity) {
+        heap = new long[Math.max(1, initialCapacity)];
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    long peek() {
+        return heap[0];
+    }
+
+    void push(long key) {
+        if (size == heap.length) heap = Arrays.copyOf(heap, size * 2);
+
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            long p = heap[parent];
+            if (p <= key) break;
+            heap[i] = p;
+            i = parent;
+        }
+        heap[i] = key;
+    }
+
+    long pop() {
+        long top = heap[0];
+        long last = heap[--size];
+
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && heap[right] < heap[child]) child = right;
+            if (last <= heap[child]) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        if (size > 0) heap[i] = last;
+        return top;
+    }
+}
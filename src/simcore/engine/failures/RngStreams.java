@@ -0,0 +1,55 @@
+package simcore.engine.failures;
+
+import java.util.SplittableRandom;
+
+/**
+ * Иерархия независимых потоков случайных чисел для схемы {@link SeedScheme#SPLITTABLE}:
+ * прогон → (строка Sobol) → итерация → тип оборудования → (шина) → компонент.
+ *
+ * Ключ потока на каждом уровне — хэш (SplitMix64) от ключа родителя и номера потомка, поэтому
+ * любой поток вычисляется сам по себе, без прохода по соседним: итерацию можно пересчитать
+ * отдельно, а итерации разбить по потокам или процессам — результат тот же.
+ * Сами генераторы — {@link SplittableRandom} (без синхронизации, в отличие от {@link java.util.Random}).
+ *
+ * Компонент адресуется своим местом (шина, номер на шине), а не сквозным номером, поэтому поток
+ * места не зависит от числа соседей: при sweep по числу ДГУ/ВЭУ или ёмкости АКБ одинаковые места
+ * во всех точках получают одни и те же случайные числа (common random numbers), и разность
+ * оценок соседних точек шумит гораздо меньше, чем при независимых выборках.
+ */
+public final class RngStreams {
+
+    /** Номера типов оборудования (как смещения seed в {@link SeedScheme#LEGACY}). */
+    public static final int TYPE_WT = 1;
+    public static final int TYPE_DG = 2;
+    public static final int TYPE_BT = 3;
+    public static final int TYPE_BUS = 4;
+    public static final int TYPE_BRK = 5;
+    public static final int TYPE_ROOM = 6;
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private RngStreams() {
+    }
+
+    /** Ключ потомка index потока parent; разные index одного родителя дают разные ключи. */
+    public static long child(long parent, long index) {
+        return mix64(mix64(parent) + GOLDEN_GAMMA * (index + 1));
+    }
+
+    /** Генератор отказов компонента component типа type (шина, автомат, помещение) в итерации iterationSeed. */
+    public static SplittableRandom stream(long iterationSeed, int type, int component) {
+        return new SplittableRandom(child(child(iterationSeed, type), component));
+    }
+
+    /** Генератор отказов места unit на шине bus (ВЭУ, ДГУ, АКБ). */
+    public static SplittableRandom stream(long iterationSeed, int type, int bus, int unit) {
+        return new SplittableRandom(child(child(child(iterationSeed, type), bus), unit));
+    }
+
+    /** Финализатор SplitMix64 (Stafford, вариант 13): биективное перемешивание 64 бит. */
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,35 @@
+package simcore.engine.failures;
+
+/**
+ * Как из базового seed прогона получаются seed итераций MC и генераторы отказов оборудования.
+ */
+public enum SeedScheme {
+
+    /**
+     * Прежняя схема (по умолчанию, с ней сверяется регрессия): seed итерации
+     * base + row * 1e10 + idx * 1e4, на каждый тип оборудования один {@link java.util.Random}(seed + 1..6),
+     * общий для всех компонентов типа. Потоки соседних итераций — близкие seed одного LCG.
+     */
+    LEGACY,
+
+    /**
+     * Независимые потоки {@link RngStreams}: seed итерации — хэш (base, row, idx),
+     * у каждого места компонента (шина, номер) свой {@link java.util.SplittableRandom}.
+     * Точки sweep считаются с одними seed итераций, так что это и режим common random numbers:
+     * история отказов места одинакова при любом числе соседей. Результаты отличаются от LEGACY.
+     */
+    SPLITTABLE;
+
+    static final long LEGACY_MC_SEED_STRIDE = 10_000L;
+    static final long LEGACY_SOBOL_ROW_SEED_STRIDE = 10_000_000_000L; // 1e10
+
+    /** Seed итерации mcIdx строки sobolRowIdx (строка 0 — обычный MC и sweep). */
+    public long iterationSeed(long mcBaseSeed, long sobolRowIdx, int mcIdx) {
+        if (this == LEGACY) {
+            return mcBaseSeed
+                    + sobolRowIdx * LEGACY_SOBOL_ROW_SEED_STRIDE
+                    + (long) mcIdx * LEGACY_MC_SEED_STRIDE;
+        }
+        return RngStreams.child(RngStreams.child(mcBaseSeed, sobolRowIdx), mcIdx);
+    }
+}
@@ -0,0 +1,152 @@
+package simcore.engine.trace;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Бинарный формат трассы (версия 1), little-endian.
+ *
+ * <pre>
+ * 0   "SCTR"                магия
+ * 4   int32 version         = 1
+ * 8   int32 capacityHours   под сколько часов размечены колонки
+ * 12  int32 hours           сколько часов записано (обновляется после каждого блока)
+ * 16  int32 busCount
+ * 20  int32 columnCount     = {@link Column#values()}.length
+ * 24  int32[busCount]       число ДГУ по шинам
+ *     ... выравнивание до 8
+ *     колонки в порядке {@link Column}, каждая на capacityHours строк, начало выровнено до 8
+ * </pre>
+ *
+ * Ячейка колонки: [hour] для часовых, [hour * busCount + bus] для шинных,
+ * [hour * dgTotal + dgOffset[bus] + dg] для ДГУ — как в {@link TraceColumns}.
+ * boolean хранится байтом 0/1, состояние автомата — байтом -1/0/1.
+ */
+final class BinaryTraceFormat {
+
+    static final int MAGIC = 'S' | ('C' << 8) | ('T' << 16) | ('R' << 24);
+    static final int VERSION = 1;
+
+    static final int OFF_HOURS = 12;
+    private static final int FIXED_HEADER_BYTES = 24;
+
+    enum Scope { HOUR, BUS, DG }
+
+    enum Column {
+        TIME_INDEX(Scope.HOUR, Integer.BYTES),
+        TOTAL_LOAD_KW(Scope.HOUR, Double.BYTES),
+        TOTAL_DEFICIT_KW(Scope.HOUR, Double.BYTES),
+        TOTAL_WRE_KW(Scope.HOUR, Double.BYTES),
+        BREAKER(Scope.HOUR, Byte.BYTES),
+
+        BUS_STATUS(Scope.BUS, Byte.BYTES),
+        BUS_LOAD_KW(Scope.BUS, Double.BYTES),
+        BUS_WIND_TO_LOAD_KW(Scope.BUS, Double.BYTES),
+        BUS_DG_TO_LOAD_KW(Scope.BUS, Double.BYTES),
+        BUS_BT_NET_KW(Scope.BUS, Double.BYTES),
+        BUS_DEF_KW(Scope.BUS, Double.BYTES),
+        BT_ACTUAL_CAPACITY(Scope.BUS, Double.BYTES),
+        BT_ACTUAL_SOC(Scope.BUS, Double.BYTES),
+        BT_TIME_WORKED(Scope.BUS, Double.BYTES),
+
+        DG_LOAD_KW(Scope.DG, Double.BYTES),
+        DG_HOURS_SINCE_MAINTENANCE(Scope.DG, Double.BYTES),
+        DG_TIME_WORKED(Scope.DG, Double.BYTES),
+        DG_TOTAL_TIME_WORKED(Scope.DG, Double.BYTES),
+        DG_IDLE_TIME(Scope.DG, Integer.BYTES),
+        DG_AVAILABLE(Scope.DG, Byte.BYTES),
+        DG_IN_MAINTENANCE(Scope.DG, Byte.BYTES);
+
+        final Scope scope;
+        final int width;
+
+        Column(Scope scope, int width) {
+            this.scope = scope;
+            this.width = width;
+        }
+    }
+
+    private static final Column[] COLUMNS = Column.values();
+
+    private BinaryTraceFormat() {}
+
+    /** Разметка файла: смещения колонок для заданных раскладки и горизонта. */
+    static final class Layout {
+        final int capacityHours;
+        final int[] dgCount;
+        final int busCount;
+        final int dgTotal;
+        final long[] columnOffset = new long[COLUMNS.length];
+
+        Layout(int capacityHours, int[] dgCount) {
+            this.capacityHours = capacityHours;
+            this.dgCount = dgCount.clone();
+            this.busCount = dgCount.length;
+            int total = 0;
+            for (int n : dgCount) total += n;
+            this.dgTotal = total;
+
+            long off = align8(FIXED_HEADER_BYTES + (long) Integer.BYTES * busCount);
+            for (Column c : COLUMNS) {
+                columnOffset[c.ordinal()] = off;
+                off = align8(off + columnBytes(c, capacityHours));
+            }
+        }
+
+        int cellsPerHour(Column c) {
+            return switch (c.scope) {
+                case HOUR -> 1;
+                case BUS -> busCount;
+                case DG -> dgTotal;
+            };
+        }
+
+        long columnBytes(Column c, int hours) {
+            return (long) hours * cellsPerHour(c) * c.width;
+        }
+
+        /** Позиция ячейки {@code cell} в колонке. */
+        long position(Column c, long cell) {
+            return columnOffset[c.ordinal()] + cell * c.width;
+        }
+
+        ByteBuffer header(int hours) {
+            ByteBuffer h = ByteBuffer.allocate((int) columnOffset[0]).order(ByteOrder.LITTLE_ENDIAN);
+            h.putInt(MAGIC).putInt(VERSION).putInt(capacityHours).putInt(hours)
+                    .putInt(busCount).putInt(COLUMNS.length);
+            for (int n : dgCount) h.putInt(n);
+            h.position(0);
+            return h;
+        }
+    }
+
+    /** Разобрать заголовок; {@code head} — начало файла в порядке little-endian. */
+    static Layout readLayout(ByteBuffer head) throws IOException {
+        if (head.capacity() < FIXED_HEADER_BYTES || head.getInt(0) != MAGIC) {
+            throw new IOException("Not a binary trace file");
+        }
+        int version = head.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary trace version: " + version);
+        }
+        int capacity = head.getInt(8);
+        int busCount = head.getInt(16);
+        int columnCount = head.getInt(20);
+        if (columnCount != COLUMNS.length || busCount < 0 || capacity < 0
+                || head.capacity() < FIXED_HEADER_BYTES + Integer.BYTES * busCount) {
+            throw new IOException("Corrupted binary trace header");
+        }
+        int[] dgCount = new int[busCount];
+        for (int b = 0; b < busCount; b++) dgCount[b] = head.getInt(FIXED_HEADER_BYTES + Integer.BYTES * b);
+        return new Layout(capacity, dgCount);
+    }
+
+    static int headerBytesFor(int busCount) {
+        return FIXED_HEADER_BYTES + Integer.BYTES * busCount;
+    }
+
+    private static long align8(long v) {
+        return (v + 7) & ~7L;
+    }
+}
@@ -0,0 +1,260 @@
+package simcore.engine.trace;
+
+import simcore.engine.trace.BinaryTraceFormat.Column;
+import simcore.engine.trace.BinaryTraceFormat.Layout;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Чтение бинарной трассы ({@link BinaryTraceFormat}) через {@link java.nio.MappedByteBuffer}.
+ *
+ * Каждая колонка отображается в память отдельно (на записанные часы), файл целиком не читается:
+ * любой час и любая колонка доступны произвольно, страницы подгружает ОС.
+ */
+public final class BinaryTraceReader {
+
+    private final Layout layout;
+    private final int hours;
+    private final ByteBuffer[] cols = new ByteBuffer[Column.values().length];
+
+    private BinaryTraceReader(Layout layout, int hours) {
+        this.layout = layout;
+        this.hours = hours;
+    }
+
+    public static BinaryTraceReader open(String path) throws IOException {
+        try (FileChannel ch = FileChannel.open(Path.of(path), StandardOpenOption.READ)) {
+            long size = ch.size();
+
+            ByteBuffer head = ByteBuffer.allocate(BinaryTraceFormat.headerBytesFor(0)).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(ch, head, 0);
+            int busCount = head.getInt(16);
+            if (busCount >= 0 && busCount < (1 << 16)) {
+                head = ByteBuffer.allocate(BinaryTraceFormat.headerBytesFor(busCount)).order(ByteOrder.LITTLE_ENDIAN);
+                readFully(ch, head, 0);
+            }
+            Layout layout = BinaryTraceFormat.readLayout(head);
+
+            int hours = head.getInt(BinaryTraceFormat.OFF_HOURS);
+            if (hours < 0 || hours > layout.capacityHours) {
+                throw new IOException("Corrupted binary trace header");
+            }
+
+            BinaryTraceReader r = new BinaryTraceReader(layout, hours);
+            for (Column c : Column.values()) {
+                long off = layout.columnOffset[c.ordinal()];
+                long bytes = layout.columnBytes(c, hours);
+                if (bytes > Integer.MAX_VALUE) {
+                    throw new IOException("Trace column too large to map: " + c);
+                }
+                if (off + bytes > size) {
+                    throw new IOException("Truncated binary trace: " + path);
+                }
+                r.cols[c.ordinal()] = ch.map(FileChannel.MapMode.READ_ONLY, off, bytes)
+                        .order(ByteOrder.LITTLE_ENDIAN);
+            }
+            return r;
+        }
+    }
+
+    /** Число записанных часов. */
+    public int size() {
+        return hours;
+    }
+
+    public int busCount() {
+        return layout.busCount;
+    }
+
+    public int dgCount(int bus) {
+        return layout.dgCount[bus];
+    }
+
+    // --- по часам ---
+    public int getTimeIndex(int hour) {
+        return col(Column.TIME_INDEX).getInt(hourCell(hour) * Integer.BYTES);
+    }
+
+    public double getTotalLoadKw(int hour) {
+        return doubleAt(Column.TOTAL_LOAD_KW, hourCell(hour));
+    }
+
+    public double getTotalDeficitKw(int hour) {
+        return doubleAt(Column.TOTAL_DEFICIT_KW, hourCell(hour));
+    }
+
+    public double getTotalWreKw(int hour) {
+        return doubleAt(Column.TOTAL_WRE_KW, hourCell(hour));
+    }
+
+    /** null если межсекционного автомата нет */
+    public Boolean getBreakerClosed(int hour) {
+        byte s = col(Column.BREAKER).get(hourCell(hour));
+        if (s == TraceColumns.BREAKER_NONE) return null;
+        return s == TraceColumns.BREAKER_CLOSED;
+    }
+
+    // --- по шинам ---
+    public boolean getBusStatus(int hour, int bus) {
+        return col(Column.BUS_STATUS).get(busCell(hour, bus)) != 0;
+    }
+
+    public double getBusLoadKw(int hour, int bus) {
+        return doubleAt(Column.BUS_LOAD_KW, busCell(hour, bus));
+    }
+
+    public double getBusGenWindKw(int hour, int bus) {
+        return doubleAt(Column.BUS_WIND_TO_LOAD_KW, busCell(hour, bus));
+    }
+
+    public double getBusGenDgKw(int hour, int bus) {
+        return doubleAt(Column.BUS_DG_TO_LOAD_KW, busCell(hour, bus));
+    }
+
+    public double getBusGenBtKw(int hour, int bus) {
+        return doubleAt(Column.BUS_BT_NET_KW, busCell(hour, bus));
+    }
+
+    public double getBusDeficitKw(int hour, int bus) {
+        return doubleAt(Column.BUS_DEF_KW, busCell(hour, bus));
+    }
+
+    public double getBtActualCapacity(int hour, int bus) {
+        return doubleAt(Column.BT_ACTUAL_CAPACITY, busCell(hour, bus));
+    }
+
+    public double getBtActualSOC(int hour, int bus) {
+        return doubleAt(Column.BT_ACTUAL_SOC, busCell(hour, bus));
+    }
+
+    public double getBtTimeWorked(int hour, int bus) {
+        return doubleAt(Column.BT_TIME_WORKED, busCell(hour, bus));
+    }
+
+    // --- по ДГУ ---
+    public double getDgLoadKw(int hour, int bus, int dg) {
+        return doubleAt(Column.DG_LOAD_KW, dgCell(hour, bus, dg));
+    }
+
+    public double getDgHoursSinceMaintenance(int hour, int bus, int dg) {
+        return doubleAt(Column.DG_HOURS_SINCE_MAINTENANCE, dgCell(hour, bus, dg));
+    }
+
+    public double getDgTimeWorked(int hour, int bus, int dg) {
+        return doubleAt(Column.DG_TIME_WORKED, dgCell(hour, bus, dg));
+    }
+
+    public double getDgTotalTimeWorked(int hour, int bus, int dg) {
+        return doubleAt(Column.DG_TOTAL_TIME_WORKED, dgCell(hour, bus, dg));
+    }
+
+    public int getDgIdleTime(int hour, int bus, int dg) {
+        return col(Column.DG_IDLE_TIME).getInt(dgCell(hour, bus, dg) * Integer.BYTES);
+    }
+
+    public boolean isDgAvailable(int hour, int bus, int dg) {
+        return col(Column.DG_AVAILABLE).get(dgCell(hour, bus, dg)) != 0;
+    }
+
+    public boolean isDgInMaintenance(int hour, int bus, int dg) {
+        return col(Column.DG_IN_MAINTENANCE).get(dgCell(hour, bus, dg)) != 0;
+    }
+
+    /** Часы [fromHour, fromHour + count) в памяти, например для экспорта по блокам. */
+    public TraceColumns read(int fromHour, int count) {
+        if (fromHour < 0 || count < 0 || fromHour + count > hours) {
+            throw new IndexOutOfBoundsException("hours [" + fromHour + ", " + (fromHour + count) + ") of " + hours);
+        }
+
+        TraceColumns t = new TraceColumns(count, layout.dgCount);
+        for (Column c : Column.values()) {
+            int perHour = layout.cellsPerHour(c);
+            ByteBuffer src = col(c).duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            src.position(fromHour * perHour * c.width);
+            int cells = count * perHour;
+
+            switch (c) {
+                case TIME_INDEX -> getInts(src, t.timeIndex, cells);
+                case TOTAL_LOAD_KW -> getDoubles(src, t.totalLoadKw, cells);
+                case TOTAL_DEFICIT_KW -> getDoubles(src, t.totalDeficitKw, cells);
+                case TOTAL_WRE_KW -> getDoubles(src, t.totalWreKw, cells);
+                case BREAKER -> src.get(t.breaker, 0, cells);
+
+                case BUS_STATUS -> getBooleans(src, t.busStatus, cells);
+                case BUS_LOAD_KW -> getDoubles(src, t.busLoadKw, cells);
+                case BUS_WIND_TO_LOAD_KW -> getDoubles(src, t.busWindToLoadKw, cells);
+                case BUS_DG_TO_LOAD_KW -> getDoubles(src, t.busDgToLoadKw, cells);
+                case BUS_BT_NET_KW -> getDoubles(src, t.busBtNetKw, cells);
+                case BUS_DEF_KW -> getDoubles(src, t.busDefKw, cells);
+                case BT_ACTUAL_CAPACITY -> getDoubles(src, t.btActualCapacity, cells);
+                case BT_ACTUAL_SOC -> getDoubles(src, t.btActualSoc, cells);
+                case BT_TIME_WORKED -> getDoubles(src, t.btTimeWorked, cells);
+
+                case DG_LOAD_KW -> getDoubles(src, t.dgLoadKw, cells);
+                case DG_HOURS_SINCE_MAINTENANCE -> getDoubles(src, t.dgHoursSinceMaintenance, cells);
+                case DG_TIME_WORKED -> getDoubles(src, t.dgTimeWorked, cells);
+                case DG_TOTAL_TIME_WORKED -> getDoubles(src, t.dgTotalTimeWorked, cells);
+                case DG_IDLE_TIME -> getInts(src, t.dgIdleTime, cells);
+                case DG_AVAILABLE -> getBooleans(src, t.dgAvailable, cells);
+                case DG_IN_MAINTENANCE -> getBooleans(src, t.dgInMaintenance, cells);
+            }
+        }
+        t.size = count;
+        return t;
+    }
+
+    private ByteBuffer col(Column c) {
+        return cols[c.ordinal()];
+    }
+
+    private double doubleAt(Column c, int cell) {
+        return col(c).getDouble(cell * Double.BYTES);
+    }
+
+    private int hourCell(int hour) {
+        checkHour(hour);
+        return hour;
+    }
+
+    private int busCell(int hour, int bus) {
+        checkHour(hour);
+        if (bus < 0 || bus >= layout.busCount) throw new IndexOutOfBoundsException("bus " + bus);
+        return hour * layout.busCount + bus;
+    }
+
+    private int dgCell(int hour, int bus, int dg) {
+        checkHour(hour);
+        if (bus < 0 || bus >= layout.busCount) throw new IndexOutOfBoundsException("bus " + bus);
+        if (dg < 0 || dg >= layout.dgCount[bus]) throw new IndexOutOfBoundsException("dg " + dg);
+        int off = 0;
+        for (int b = 0; b < bus; b++) off += layout.dgCount[b];
+        return hour * layout.dgTotal + off + dg;
+    }
+
+    private void checkHour(int hour) {
+        if (hour < 0 || hour >= hours) throw new IndexOutOfBoundsException("hour " + hour + " of " + hours);
+    }
+
+    private static void getDoubles(ByteBuffer src, double[] dst, int n) {
+        src.asDoubleBuffer().get(dst, 0, n);
+    }
+
+    private static void getInts(ByteBuffer src, int[] dst, int n) {
+        src.asIntBuffer().get(dst, 0, n);
+    }
+
+    private static void getBooleans(ByteBuffer src, boolean[] dst, int n) {
+        for (int i = 0; i < n; i++) dst[i] = src.get() != 0;
+    }
+
+    private static void readFully(FileChannel ch, ByteBuffer dst, long pos) throws IOException {
+        while (dst.hasRemaining()) {
+            if (ch.read(dst, pos + dst.position()) < 0) throw new IOException("Not a binary trace file");
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package simcore.engine.trace;
+
+import simcore.engine.trace.BinaryTraceFormat.Column;
+import simcore.engine.trace.BinaryTraceFormat.Layout;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Запись трассы в бинарный формат ({@link BinaryTraceFormat}).
+ *
+ * Как приёмник {@link StreamingTraceSession} пишет блоки часов по мере прогона:
+ * колонки размечены под весь горизонт, блок ложится в каждую колонку по своему смещению,
+ * а число записанных часов в заголовке обновляется после каждого блока.
+ *
+ * Если горизонт неизвестен ({@code hours = 0}, трасса за {@link FilteredTraceSession}), колонки
+ * размечаются под первый блок и при нехватке места раздвигаются с удвоением. При закрытии
+ * колонки сдвигаются вплотную к записанным часам и файл обрезается, так что его размер
+ * определяется записанными часами, а не разметкой.
+ */
+public final class BinaryTraceWriter implements TraceBlockSink {
+
+    /** ячеек в буфере на одну запись в канал */
+    private static final int CHUNK_CELLS = 1 << 16;
+
+    private final String path;
+
+    private FileChannel ch;
+    private Layout layout;
+    private boolean growable;
+    private int hoursWritten;
+    private final ByteBuffer scratch = ByteBuffer.allocateDirect(CHUNK_CELLS * Double.BYTES)
+            .order(ByteOrder.LITTLE_ENDIAN);
+    private final ByteBuffer hoursField = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+    public BinaryTraceWriter(String path) {
+        this.path = path;
+    }
+
+    /** Записать трассу из памяти целиком. */
+    public static void write(String path, TraceColumns trace) throws IOException {
+        try (BinaryTraceWriter w = new BinaryTraceWriter(path)) {
+            w.begin(trace.size(), trace);
+            w.writeBlock(trace);
+        }
+    }
+
+    @Override
+    public void begin(int hours, TraceColumns layout) throws IOException {
+        if (ch != null) throw new IllegalStateException("Binary trace already started");
+
+        this.growable = (hours == 0);
+        this.layout = new Layout(growable ? Math.max(1, layout.capacity()) : hours, layout.dgCount);
+        this.hoursWritten = 0;
+        this.ch = FileChannel.open(Path.of(path),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        writeFully(this.layout.header(0), 0);
+    }
+
+    @Override
+    public void writeBlock(TraceColumns block) throws IOException {
+        int rows = block.size();
+        if (rows == 0) return;
+        if (hoursWritten + rows > layout.capacityHours) {
+            if (!growable) {
+                throw new IllegalStateException("Binary trace capacity exceeded: " + layout.capacityHours + " hours");
+            }
+            relayout((int) Math.min(Integer.MAX_VALUE,
+                    Math.max(2L * layout.capacityHours, (long) hoursWritten + rows)));
+        }
+
+        for (Column c : Column.values()) {
+            int perHour = layout.cellsPerHour(c);
+            int cells = rows * perHour;
+            long pos = layout.position(c, (long) hoursWritten * perHour);
+
+            for (int from = 0; from < cells; from += CHUNK_CELLS) {
+                int to = Math.min(cells, from + CHUNK_CELLS);
+                scratch.clear();
+                fill(c, block, from, to);
+                scratch.flip();
+                pos += writeFully(scratch, pos);
+            }
+        }
+
+        hoursWritten += rows;
+        hoursField.clear();
+        hoursField.putInt(hoursWritten).flip();
+        writeFully(hoursField, BinaryTraceFormat.OFF_HOURS);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (ch == null) return;
+        try {
+            if (hoursWritten < layout.capacityHours) relayout(hoursWritten);
+        } finally {
+            try {
+                ch.close();
+            } finally {
+                ch = null;
+            }
+        }
+    }
+
+    /**
+     * Переразметить файл под {@code capacity} часов: записанные часы каждой колонки переносятся
+     * на новое смещение, заголовок переписывается, лишний хвост файла обрезается.
+     *
+     * Смещения всех колонок сдвигаются в одну сторону, поэтому при росте колонки переносятся
+     * с последней, при сжатии — с первой: источник ещё не перенесённой колонки не затирается.
+     */
+    private void relayout(int capacity) throws IOException {
+        Layout to = new Layout(capacity, layout.dgCount);
+        Column[] cols = Column.values();
+        boolean grow = capacity > layout.capacityHours;
+        for (int k = 0; k < cols.length; k++) {
+            Column c = cols[grow ? cols.length - 1 - k : k];
+            move(layout.position(c, 0), to.position(c, 0), layout.columnBytes(c, hoursWritten));
+        }
+
+        layout = to;
+        writeFully(layout.header(hoursWritten), 0);
+        if (!grow) ch.truncate(layout.position(cols[cols.length - 1], 0)
+                + layout.columnBytes(cols[cols.length - 1], capacity));
+    }
+
+    /** Перенести {@code bytes} байт из {@code from} в {@code to}; области могут перекрываться. */
+    private void move(long from, long to, long bytes) throws IOException {
+        if (from == to || bytes == 0) return;
+        int chunk = scratch.capacity();
+        for (long done = 0; done < bytes; ) {
+            int n = (int) Math.min(chunk, bytes - done);
+            // при сдвиге вправо переносим с конца, чтобы не затереть ещё не прочитанное
+            long off = (to > from) ? bytes - done - n : done;
+            scratch.clear().limit(n);
+            readFully(scratch, from + off);
+            scratch.flip();
+            writeFully(scratch, to + off);
+            done += n;
+        }
+    }
+
+    private void readFully(ByteBuffer dst, long pos) throws IOException {
+        while (dst.hasRemaining()) {
+            int r = ch.read(dst, pos + dst.position());
+            if (r < 0) throw new IOException("Unexpected end of binary trace");
+        }
+    }
+
+    private void fill(Column c, TraceColumns t, int from, int to) {
+        switch (c) {
+            case TIME_INDEX -> putInts(t.timeIndex, from, to);
+            case TOTAL_LOAD_KW -> putDoubles(t.totalLoadKw, from, to);
+            case TOTAL_DEFICIT_KW -> putDoubles(t.totalDeficitKw, from, to);
+            case TOTAL_WRE_KW -> putDoubles(t.totalWreKw, from, to);
+            case BREAKER -> scratch.put(t.breaker, from, to - from);
+
+            case BUS_STATUS -> putBooleans(t.busStatus, from, to);
+            case BUS_LOAD_KW -> putDoubles(t.busLoadKw, from, to);
+            case BUS_WIND_TO_LOAD_KW -> putDoubles(t.busWindToLoadKw, from, to);
+            case BUS_DG_TO_LOAD_KW -> putDoubles(t.busDgToLoadKw, from, to);
+            case BUS_BT_NET_KW -> putDoubles(t.busBtNetKw, from, to);
+            case BUS_DEF_KW -> putDoubles(t.busDefKw, from, to);
+            case BT_ACTUAL_CAPACITY -> putDoubles(t.btActualCapacity, from, to);
+            case BT_ACTUAL_SOC -> putDoubles(t.btActualSoc, from, to);
+            case BT_TIME_WORKED -> putDoubles(t.btTimeWorked, from, to);
+
+            case DG_LOAD_KW -> putDoubles(t.dgLoadKw, from, to);
+            case DG_HOURS_SINCE_MAINTENANCE -> putDoubles(t.dgHoursSinceMaintenance, from, to);
+            case DG_TIME_WORKED -> putDoubles(t.dgTimeWorked, from, to);
+            case DG_TOTAL_TIME_WORKED -> putDoubles(t.dgTotalTimeWorked, from, to);
+            case DG_IDLE_TIME -> putInts(t.dgIdleTime, from, to);
+            case DG_AVAILABLE -> putBooleans(t.dgAvailable, from, to);
+            case DG_IN_MAINTENANCE -> putBooleans(t.dgInMaintenance, from, to);
+        }
+    }
+
+    private void putDoubles(double[] a, int from, int to) {
+        for (int i = from; i < to; i++) scratch.putDouble(a[i]);
+    }
+
+    private void putInts(int[] a, int from, int to) {
+        for (int i = from; i < to; i++) scratch.putInt(a[i]);
+    }
+
+    private void putBooleans(boolean[] a, int from, int to) {
+        for (int i = from; i < to; i++) scratch.put(a[i] ? (byte) 1 : (byte) 0);
+    }
+
+    private int writeFully(ByteBuffer src, long pos) throws IOException {
+        int n = 0;
+        while (src.hasRemaining()) n += ch.write(src, pos + n);
+        return n;
+    }
+}
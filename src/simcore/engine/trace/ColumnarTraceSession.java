@@ -0,0 +1,177 @@
+package simcore.engine.trace;
+
+import simcore.model.Battery;
+import simcore.model.DieselGenerator;
+import simcore.model.PowerBus;
+
+import java.util.List;
+
+/**
+ * Трасса прогона в колоночном виде: все колонки выделяются в {@link #begin} на весь горизонт,
+ * почасовые вызовы только пишут в них по индексу текущего часа.
+ *
+ * С {@code initialHours} колонки выделяются на меньшее число часов и при нехватке
+ * удваиваются — для трасс, где пишется лишь часть часов ({@link FilteredTraceSession}).
+ */
+public final class ColumnarTraceSession implements TraceSession, TraceHourSink {
+
+    private final int initialHours;
+    private int maxHours;
+    private TraceColumns c;
+
+    /** строка текущего часа (= число уже зафиксированных часов) */
+    private int row;
+
+    @Override
+    public boolean enabled() {
+        return true;
+    }
+
+    public ColumnarTraceSession() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /** @param initialHours сколько часов выделить сразу (не больше горизонта) */
+    public ColumnarTraceSession(int initialHours) {
+        if (initialHours < 1) throw new IllegalArgumentException("initialHours < 1");
+        this.initialHours = initialHours;
+    }
+
+    @Override
+    public void begin(int hours, List<PowerBus> buses) {
+        this.c = new TraceColumns(Math.min(hours, initialHours), buses);
+        this.maxHours = hours;
+        this.row = 0;
+    }
+
+    /**
+     * Число часов неизвестно: колонки растут без ограничения сверху, начиная с {@code initialHours}
+     * (без него — с {@link FilteredTraceSession#DEFAULT_INITIAL_HOURS}).
+     */
+    @Override
+    public void begin(List<PowerBus> buses) {
+        int initial = (initialHours == Integer.MAX_VALUE) ? FilteredTraceSession.DEFAULT_INITIAL_HOURS : initialHours;
+        this.c = new TraceColumns(initial, buses);
+        this.maxHours = Integer.MAX_VALUE;
+        this.row = 0;
+    }
+
+    @Override
+    public void end() {
+        // no-op
+    }
+
+    @Override
+    public void abort() {
+        // no-op
+    }
+
+    /** Очистить записанные часы, сохранив выделенные колонки (для повторного использования блока). */
+    void clear() {
+        row = 0;
+        c.clear();
+    }
+
+    @Override
+    public void startHour(int busCount) {
+        if (busCount != c.busCount) {
+            throw new IllegalArgumentException("busCount " + busCount + " != " + c.busCount);
+        }
+        ensureRow();
+    }
+
+    private void ensureRow() {
+        if (row < c.capacity()) return;
+        if (row >= maxHours) {
+            throw new IllegalStateException("Trace capacity exceeded: " + maxHours + " hours");
+        }
+        TraceColumns grown = new TraceColumns((int) Math.min(maxHours, 2L * c.capacity()), c.dgCount);
+        TraceColumns.copyRows(c, 0, grown, 0, row);
+        grown.size = row;
+        c = grown;
+    }
+
+    @Override
+    public void setBusDown(int busIndex, double loadKw, double defKw) {
+        setBusValues(busIndex, false, loadKw, 0.0, 0.0, 0.0, defKw);
+    }
+
+    @Override
+    public void setBusValues(int busIndex,
+                             boolean busAlive,
+                             double loadKw,
+                             double windToLoadKw,
+                             double dgToLoadKw,
+                             double btNetKw,
+                             double defKw) {
+        int k = c.busCell(row, busIndex);
+        c.busStatus[k] = busAlive;
+        c.busLoadKw[k] = loadKw;
+        c.busWindToLoadKw[k] = windToLoadKw;
+        c.busDgToLoadKw[k] = dgToLoadKw;
+        c.busBtNetKw[k] = btNetKw;
+        c.busDefKw[k] = defKw;
+    }
+
+    @Override
+    public void fillDgState(int busIndex, PowerBus bus) {
+        List<DieselGenerator> dgList = bus.getDieselGenerators();
+        int n = dgList.size();
+        int k = c.dgCell(row, busIndex, 0);
+
+        for (int i = 0; i < n; i++, k++) {
+            DieselGenerator dg = dgList.get(i);
+            c.dgLoadKw[k] = dg.getCurrentLoad();
+            c.dgHoursSinceMaintenance[k] = dg.getHoursSinceMaintenance();
+            c.dgTimeWorked[k] = dg.getTimeWorked();
+            c.dgTotalTimeWorked[k] = dg.getTotalTimeWorked();
+            c.dgIdleTime[k] = dg.getIdleTime();
+
+            c.dgAvailable[k] = dg.isAvailable();
+            c.dgInMaintenance[k] = dg.isInMaintenance();
+        }
+    }
+
+    @Override
+    public void fillBatteryState(int busIndex, Battery battery) {
+        int k = c.busCell(row, busIndex);
+        if (battery != null) {
+            c.btActualCapacity[k] = battery.getMaxCapacityKwh();
+            c.btActualSoc[k] = battery.getStateOfCharge();
+            c.btTimeWorked[k] = battery.getTimeWorked();
+        } else {
+            c.btActualCapacity[k] = Double.NaN;
+            c.btActualSoc[k] = Double.NaN;
+            c.btTimeWorked[k] = Double.NaN;
+        }
+    }
+
+    @Override
+    public void addHourRecord(int timeIndex,
+                              double totalLoadKw,
+                              double totalDeficitKw,
+                              double totalWreKw,
+                              Boolean breakerClosed) {
+        c.timeIndex[row] = timeIndex;
+        c.totalLoadKw[row] = totalLoadKw;
+        c.totalDeficitKw[row] = totalDeficitKw;
+        c.totalWreKw[row] = totalWreKw;
+        c.breaker[row] = (breakerClosed == null) ? TraceColumns.BREAKER_NONE
+                : breakerClosed ? TraceColumns.BREAKER_CLOSED : TraceColumns.BREAKER_OPEN;
+        row++;
+        c.size = row;
+    }
+
+    @Override
+    public void copyHour(TraceColumns src, int srcRow) {
+        ensureRow();
+        TraceColumns.copyRows(src, srcRow, c, row, 1);
+        row++;
+        c.size = row;
+    }
+
+    @Override
+    public TraceColumns columns() {
+        return c;
+    }
+}
@@ -0,0 +1,32 @@
+package simcore.engine.trace;
+
+import simcore.engine.SimulationTraceExporter;
+
+import java.io.IOException;
+
+/** Блоки трассы в CSV (формат {@link SimulationTraceExporter#exportToCsv}). */
+public final class CsvTraceSink implements TraceBlockSink {
+
+    private final String path;
+    private TraceCsvWriter w;
+
+    public CsvTraceSink(String path) {
+        this.path = path;
+    }
+
+    @Override
+    public void begin(int hours, TraceColumns layout) throws IOException {
+        w = SimulationTraceExporter.open(path);
+        SimulationTraceExporter.writeHeader(w, layout);
+    }
+
+    @Override
+    public void writeBlock(TraceColumns block) throws IOException {
+        SimulationTraceExporter.writeRows(w, block);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (w != null) w.close();
+    }
+}
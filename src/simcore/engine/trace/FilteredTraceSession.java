@@ -0,0 +1,244 @@
+package simcore.engine.trace;
+
+import simcore.config.SimulationConstants;
+import simcore.model.Battery;
+import simcore.model.PowerBus;
+import simcore.model.WindTurbine;
+
+import java.util.List;
+
+/**
+ * Trace только по отобранным часам ({@link TraceFilter}): размер трассы пропорционален
+ * числу событий, а не горизонту.
+ *
+ * Каждый час пишется во внутренний однострочный блок и сравнивается с предыдущим часом.
+ * Решение по часу принимается с задержкой {@code contextHours}: до тех пор час лежит в кольцевом
+ * буфере, и к моменту решения уже известно, было ли событие в пределах contextHours до и после него.
+ * Отобранные часы передаются в {@code out} ({@link TraceHourSink#copyHour}) по порядку, без повторов;
+ * их число заранее неизвестно, поэтому приёмник размечается не под горизонт, а растёт по мере записи.
+ *
+ * Состояние ВЭУ и АКБ в колонках трассы не хранится, поэтому их отказы и восстановления
+ * отслеживаются здесь по объектам модели, которые приходят в fillDgState/fillBatteryState.
+ */
+public final class FilteredTraceSession implements TraceSession {
+
+    /** начальный объём колонок для {@link #inMemory}: дальше колонки растут по мере отбора */
+    public static final int DEFAULT_INITIAL_HOURS = 1024;
+
+    private final TraceHourSink out;
+    private final boolean ens;
+    private final boolean failure;
+    private final boolean dg;
+    private final boolean breaker;
+    private final int everyNthHour;
+    private final int contextHours;
+
+    /** текущий и предыдущий час (по одной строке) */
+    private ColumnarTraceSession cur;
+    private ColumnarTraceSession prev;
+    private boolean hasPrev;
+
+    /** часы, по которым ещё не принято решение (последние contextHours + 1), слот = номер часа % размер */
+    private TraceColumns ring;
+    private boolean[] ringSampled;
+
+    /** номер следующего часа прогона и последнего часа с событием */
+    private long seq;
+    private long lastEvent;
+
+    // доступные ВЭУ и АКБ по шинам: текущий и предыдущий час
+    private int[] wtUp;
+    private int[] prevWtUp;
+    private boolean[] btUp;
+    private boolean[] prevBtUp;
+
+    public FilteredTraceSession(TraceFilter filter, TraceHourSink out) {
+        this.out = out;
+        this.ens = filter.events().contains(TraceEvent.ENS);
+        this.failure = filter.events().contains(TraceEvent.FAILURE);
+        this.dg = filter.events().contains(TraceEvent.DG);
+        this.breaker = filter.events().contains(TraceEvent.BREAKER);
+        this.everyNthHour = filter.everyNthHour();
+        this.contextHours = filter.contextHours();
+    }
+
+    /** Отобранные часы в памяти ({@link #columns()}). */
+    public static FilteredTraceSession inMemory(TraceFilter filter) {
+        return new FilteredTraceSession(filter, new ColumnarTraceSession(DEFAULT_INITIAL_HOURS));
+    }
+
+    @Override
+    public boolean enabled() {
+        return true;
+    }
+
+    @Override
+    public void begin(int hours, List<PowerBus> buses) {
+        out.begin(buses);
+
+        cur = new ColumnarTraceSession();
+        cur.begin(1, buses);
+        prev = new ColumnarTraceSession();
+        prev.begin(1, buses);
+        hasPrev = false;
+
+        ring = (contextHours > 0) ? new TraceColumns(contextHours + 1, buses) : null;
+        ringSampled = (contextHours > 0) ? new boolean[contextHours + 1] : null;
+        seq = 0;
+        lastEvent = Long.MIN_VALUE / 2;
+
+        int busCount = buses.size();
+        wtUp = new int[busCount];
+        prevWtUp = new int[busCount];
+        btUp = new boolean[busCount];
+        prevBtUp = new boolean[busCount];
+    }
+
+    @Override
+    public void abort() {
+        out.abort();
+    }
+
+    @Override
+    public void end() {
+        if (ring != null) {
+            for (long d = Math.max(0, seq - contextHours); d < seq; d++) decide(d);
+        }
+        out.end();
+    }
+
+    @Override
+    public void startHour(int busCount) {
+        cur.startHour(busCount);
+    }
+
+    @Override
+    public void setBusDown(int busIndex, double loadKw, double defKw) {
+        cur.setBusDown(busIndex, loadKw, defKw);
+    }
+
+    @Override
+    public void setBusValues(int busIndex,
+                             boolean busAlive,
+                             double loadKw,
+                             double windToLoadKw,
+                             double dgToLoadKw,
+                             double btNetKw,
+                             double defKw) {
+        cur.setBusValues(busIndex, busAlive, loadKw, windToLoadKw, dgToLoadKw, btNetKw, defKw);
+    }
+
+    @Override
+    public void fillDgState(int busIndex, PowerBus bus) {
+        cur.fillDgState(busIndex, bus);
+
+        if (failure) {
+            List<WindTurbine> wts = bus.getWindTurbines();
+            int up = 0;
+            for (int i = 0; i < wts.size(); i++) {
+                if (wts.get(i).isAvailable()) up++;
+            }
+            wtUp[busIndex] = up;
+        }
+    }
+
+    @Override
+    public void fillBatteryState(int busIndex, Battery battery) {
+        cur.fillBatteryState(busIndex, battery);
+        btUp[busIndex] = battery != null && battery.isAvailable();
+    }
+
+    @Override
+    public void addHourRecord(int timeIndex,
+                              double totalLoadKw,
+                              double totalDeficitKw,
+                              double totalWreKw,
+                              Boolean breakerClosed) {
+        cur.addHourRecord(timeIndex, totalLoadKw, totalDeficitKw, totalWreKw, breakerClosed);
+        TraceColumns h = cur.columns();
+
+        long n = seq++;
+        if (isEvent(h)) lastEvent = n;
+        boolean sampled = everyNthHour > 0 && timeIndex % everyNthHour == 0;
+
+        if (ring == null) {
+            if (sampled || lastEvent == n) out.copyHour(h, 0);
+        } else {
+            int slot = (int) (n % ring.capacity());
+            TraceColumns.copyRows(h, 0, ring, slot, 1);
+            ringSampled[slot] = sampled;
+            if (n >= contextHours) decide(n - contextHours);
+        }
+
+        ColumnarTraceSession s = prev;
+        prev = cur;
+        cur = s;
+        cur.clear();
+        hasPrev = true;
+
+        int[] w = prevWtUp;
+        prevWtUp = wtUp;
+        wtUp = w;
+        boolean[] b = prevBtUp;
+        prevBtUp = btUp;
+        btUp = b;
+    }
+
+    @Override
+    public TraceColumns columns() {
+        return out.columns();
+    }
+
+    private boolean isEvent(TraceColumns h) {
+        final double eps = SimulationConstants.EPSILON;
+
+        if (ens) {
+            for (int k = 0; k < h.busCount; k++) {
+                if (h.busDefKw[k] > eps) return true;
+            }
+        }
+        if (!hasPrev) return false;
+
+        TraceColumns p = prev.columns();
+
+        if (breaker && h.breaker[0] != p.breaker[0]) return true;
+
+        if (failure) {
+            for (int k = 0; k < h.busCount; k++) {
+                if (h.busStatus[k] != p.busStatus[k]) return true;
+                if (wtUp[k] != prevWtUp[k] || btUp[k] != prevBtUp[k]) return true;
+            }
+            for (int k = 0; k < h.dgTotal; k++) {
+                if (h.dgAvailable[k] != p.dgAvailable[k]) return true;
+                if (h.dgInMaintenance[k] != p.dgInMaintenance[k]) return true;
+            }
+        }
+
+        if (dg) {
+            for (int k = 0; k < h.dgTotal; k++) {
+                boolean online = h.dgAvailable[k] && Math.abs(h.dgLoadKw[k]) > eps;
+                boolean wasOnline = p.dgAvailable[k] && Math.abs(p.dgLoadKw[k]) > eps;
+                if (online != wasOnline) return true;
+
+                // прожиг: счётчик холостого хода дошёл до DG_MAX_IDLE_HOURS и сброшен
+                if (online && h.dgIdleTime[k] == 0
+                        && p.dgIdleTime[k] >= SimulationConstants.DG_MAX_IDLE_HOURS - 1) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Решение по часу d: все события до d + contextHours уже известны, так что событие
+     * в [d - contextHours, d + contextHours] есть тогда и только тогда, когда последнее из них не раньше d - contextHours.
+     */
+    private void decide(long d) {
+        int slot = (int) (d % ring.capacity());
+        if (ringSampled[slot] || lastEvent >= d - contextHours) {
+            out.copyHour(ring, slot);
+        }
+    }
+}
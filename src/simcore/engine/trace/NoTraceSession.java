@@ -1,12 +1,8 @@
 package simcore.engine.trace;
 
-import simcore.engine.SimulationStepRecord;
 import simcore.model.Battery;
 import simcore.model.PowerBus;
 
-import java.util.Collections;
-import java.util.List;
-
 public final class NoTraceSession implements TraceSession {
 
     @Override
@@ -54,7 +50,7 @@ public final class NoTraceSession implements TraceSession {
     }
 
     @Override
-    public List<SimulationStepRecord> records() {
-        return Collections.emptyList();
+    public TraceColumns columns() {
+        return null;
     }
 }
@@ -0,0 +1,242 @@
+package simcore.engine.trace;
+
+import simcore.model.Battery;
+import simcore.model.PowerBus;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Trace, который пишется на диск по ходу прогона: в CSV (формат как у
+ * {@link simcore.engine.SimulationTraceExporter#exportToCsv}) или в любой другой {@link TraceBlockSink}.
+ *
+ * Часы копятся в колоночных блоках по {@code blockHours}. Блоков два: пока фоновый поток
+ * отдаёт заполненный блок приёмнику, прогон заполняет второй. Память на trace не зависит
+ * от горизонта, а запись на диск идёт параллельно с расчётом.
+ *
+ * В памяти trace не остаётся: {@link #columns()} возвращает null. Ошибки записи
+ * выбрасываются из {@link #end()}: ввода-вывода — как {@link UncheckedIOException}, прочие —
+ * как {@link IllegalStateException}. После ошибки поток записи продолжает возвращать блоки,
+ * так что прогон не встаёт.
+ *
+ * Как {@link TraceHourSink} (за {@link FilteredTraceSession}) число часов заранее неизвестно:
+ * приёмник получает {@code hours = 0} и растёт по мере записи.
+ */
+public final class StreamingTraceSession implements TraceSession, TraceHourSink {
+
+    public static final int DEFAULT_BLOCK_HOURS = 4096;
+
+    /** маркер конца прогона для потока записи */
+    private static final ColumnarTraceSession END = new ColumnarTraceSession();
+
+    private final TraceBlockSink sink;
+    private final int blockHours;
+
+    private final BlockingQueue<ColumnarTraceSession> free = new ArrayBlockingQueue<>(2);
+    private final BlockingQueue<ColumnarTraceSession> filled = new ArrayBlockingQueue<>(3);
+
+    /** блок, который сейчас заполняет прогон */
+    private ColumnarTraceSession block;
+    private Thread writer;
+    private volatile Throwable failure;
+
+    public StreamingTraceSession(String path) {
+        this(path, DEFAULT_BLOCK_HOURS);
+    }
+
+    public StreamingTraceSession(String path, int blockHours) {
+        this(new CsvTraceSink(path), blockHours);
+    }
+
+    public StreamingTraceSession(TraceBlockSink sink, int blockHours) {
+        if (blockHours < 1) throw new IllegalArgumentException("blockHours < 1");
+        this.sink = sink;
+        this.blockHours = blockHours;
+    }
+
+    @Override
+    public boolean enabled() {
+        return true;
+    }
+
+    @Override
+    public void begin(int hours, List<PowerBus> buses) {
+        start(Math.max(1, hours), buses);
+    }
+
+    @Override
+    public void begin(List<PowerBus> buses) {
+        start(0, buses);
+    }
+
+    /** @param hours горизонт прогона; 0 — неизвестен */
+    private void start(int hours, List<PowerBus> buses) {
+        if (writer != null) throw new IllegalStateException("Trace session already started");
+
+        int n = (hours == 0) ? blockHours : Math.min(blockHours, hours);
+        for (int k = 0; k < 2; k++) {
+            ColumnarTraceSession s = new ColumnarTraceSession();
+            s.begin(n, buses);
+            free.add(s);
+        }
+
+        try {
+            sink.begin(hours, free.peek().columns());
+        } catch (IOException e) {
+            try {
+                sink.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw new UncheckedIOException(e);
+        }
+
+        writer = new Thread(this::writeLoop, "trace-writer");
+        writer.setDaemon(true);
+        writer.start();
+
+        block = take(free);
+    }
+
+    private void writeLoop() {
+        try (sink) {
+            while (true) {
+                ColumnarTraceSession s = filled.take();
+                if (s == END) break;
+                // после ошибки блоки только возвращаются, чтобы прогон не встал на ожидании
+                if (failure == null) {
+                    try {
+                        sink.writeBlock(s.columns());
+                    } catch (Throwable e) {
+                        failure = e;
+                    }
+                }
+                s.clear();
+                free.put(s);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            // закрытие приёмника
+            if (failure == null) failure = e;
+        }
+    }
+
+    @Override
+    public void end() {
+        if (writer == null) return;
+
+        if (!block.columns().isEmpty()) put(filled, block);
+        stopWriter();
+
+        Throwable f = failure;
+        if (f instanceof IOException io) throw new UncheckedIOException("Trace write failed", io);
+        if (f != null) throw new IllegalStateException("Trace write failed", f);
+    }
+
+    /** Незаписанный блок отбрасывается, поток записи закрывает приёмник; ошибки записи игнорируются. */
+    @Override
+    public void abort() {
+        if (writer == null) return;
+        try {
+            stopWriter();
+        } catch (IllegalStateException ignored) {
+            // прерывание уже отмечено в потоке, исходное исключение прогона важнее
+        }
+    }
+
+    private void stopWriter() {
+        Thread w = writer;
+        writer = null;
+        block = null;
+        put(filled, END);
+
+        try {
+            w.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for trace writer", e);
+        }
+    }
+
+    @Override
+    public void startHour(int busCount) {
+        block.startHour(busCount);
+    }
+
+    @Override
+    public void setBusDown(int busIndex, double loadKw, double defKw) {
+        block.setBusDown(busIndex, loadKw, defKw);
+    }
+
+    @Override
+    public void setBusValues(int busIndex,
+                             boolean busAlive,
+                             double loadKw,
+                             double windToLoadKw,
+                             double dgToLoadKw,
+                             double btNetKw,
+                             double defKw) {
+        block.setBusValues(busIndex, busAlive, loadKw, windToLoadKw, dgToLoadKw, btNetKw, defKw);
+    }
+
+    @Override
+    public void fillDgState(int busIndex, PowerBus bus) {
+        block.fillDgState(busIndex, bus);
+    }
+
+    @Override
+    public void fillBatteryState(int busIndex, Battery battery) {
+        block.fillBatteryState(busIndex, battery);
+    }
+
+    @Override
+    public void addHourRecord(int timeIndex,
+                              double totalLoadKw,
+                              double totalDeficitKw,
+                              double totalWreKw,
+                              Boolean breakerClosed) {
+        block.addHourRecord(timeIndex, totalLoadKw, totalDeficitKw, totalWreKw, breakerClosed);
+        swapIfFull();
+    }
+
+    private void swapIfFull() {
+        TraceColumns c = block.columns();
+        if (c.size() == c.capacity()) {
+            put(filled, block);
+            block = take(free);
+        }
+    }
+
+    @Override
+    public void copyHour(TraceColumns src, int row) {
+        block.copyHour(src, row);
+        swapIfFull();
+    }
+
+    @Override
+    public TraceColumns columns() {
+        return null;
+    }
+
+    private static <T> T take(BlockingQueue<T> q) {
+        try {
+            return q.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for trace writer", e);
+        }
+    }
+
+    private static <T> void put(BlockingQueue<T> q, T item) {
+        try {
+            q.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for trace writer", e);
+        }
+    }
+}
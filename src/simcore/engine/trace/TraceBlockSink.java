@@ -0,0 +1,22 @@
+package simcore.engine.trace;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Приёмник блоков трассы для {@link StreamingTraceSession}.
+ *
+ * {@link #begin} вызывается в потоке прогона, {@link #writeBlock} и {@link #close} —
+ * в фоновом потоке записи.
+ */
+public interface TraceBlockSink extends Closeable {
+
+    /**
+     * @param hours  горизонт прогона (максимум строк); 0 — неизвестен, часов может прийти сколько угодно
+     * @param layout раскладка шин/ДГУ (пустой блок)
+     */
+    void begin(int hours, TraceColumns layout) throws IOException;
+
+    /** Очередные {@code block.size()} часов по порядку. */
+    void writeBlock(TraceColumns block) throws IOException;
+}
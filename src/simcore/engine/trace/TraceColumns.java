@@ -0,0 +1,214 @@
+package simcore.engine.trace;
+
+import simcore.model.PowerBus;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Колоночное хранилище пошаговой трассы.
+ *
+ * Каждая трассируемая величина — один примитивный массив, выделенный сразу на весь горизонт.
+ * Индексация:
+ * - часовые величины: [hour]
+ * - по шинам: [hour * busCount + bus]
+ * - по ДГУ: [hour * dgTotal + dgOffset[bus] + dg]
+ *
+ * Для экспортёров строка доступна через лёгкое представление {@link TraceRow}.
+ */
+public final class TraceColumns {
+
+    /** код состояния автомата: межсекционного автомата нет */
+    static final byte BREAKER_NONE = -1;
+    static final byte BREAKER_OPEN = 0;
+    static final byte BREAKER_CLOSED = 1;
+
+    private final int capacity;
+    final int busCount;
+    final int dgTotal;
+    final int[] dgOffset;
+    final int[] dgCount;
+
+    int size;
+
+    // --- по часам ---
+    final int[] timeIndex;
+    final double[] totalLoadKw;
+    final double[] totalDeficitKw;
+    final double[] totalWreKw;
+    final byte[] breaker;
+
+    // --- по шинам ---
+    final boolean[] busStatus;
+    final double[] busLoadKw;
+    final double[] busWindToLoadKw;
+    final double[] busDgToLoadKw;
+    final double[] busBtNetKw;
+    final double[] busDefKw;
+
+    final double[] btActualCapacity;
+    final double[] btActualSoc;
+    final double[] btTimeWorked;
+
+    // --- по ДГУ ---
+    final double[] dgLoadKw;
+    final double[] dgHoursSinceMaintenance;
+    final double[] dgTimeWorked;
+    final double[] dgTotalTimeWorked;
+
+    /** idleTime по ДГУ (целые часы) */
+    final int[] dgIdleTime;
+
+    final boolean[] dgAvailable;
+    final boolean[] dgInMaintenance;
+
+    public TraceColumns(int hours, List<PowerBus> buses) {
+        this(hours, dgCounts(buses));
+    }
+
+    /** @param dgCount число ДГУ по шинам */
+    TraceColumns(int hours, int[] dgCount) {
+        if (hours < 0) throw new IllegalArgumentException("hours < 0");
+
+        this.capacity = hours;
+        this.busCount = dgCount.length;
+        this.dgOffset = new int[busCount];
+        this.dgCount = dgCount.clone();
+
+        int off = 0;
+        for (int b = 0; b < busCount; b++) {
+            dgOffset[b] = off;
+            off += dgCount[b];
+        }
+        this.dgTotal = off;
+
+        timeIndex = new int[hours];
+        totalLoadKw = new double[hours];
+        totalDeficitKw = new double[hours];
+        totalWreKw = new double[hours];
+        breaker = new byte[hours];
+
+        int busCells = Math.multiplyExact(hours, busCount);
+        busStatus = new boolean[busCells];
+        busLoadKw = new double[busCells];
+        busWindToLoadKw = new double[busCells];
+        busDgToLoadKw = new double[busCells];
+        busBtNetKw = new double[busCells];
+        busDefKw = new double[busCells];
+
+        btActualCapacity = new double[busCells];
+        btActualSoc = new double[busCells];
+        btTimeWorked = new double[busCells];
+
+        int dgCells = Math.multiplyExact(hours, dgTotal);
+        dgLoadKw = new double[dgCells];
+        dgHoursSinceMaintenance = new double[dgCells];
+        dgTimeWorked = new double[dgCells];
+        dgTotalTimeWorked = new double[dgCells];
+        dgIdleTime = new int[dgCells];
+
+        dgAvailable = new boolean[dgCells];
+        dgInMaintenance = new boolean[dgCells];
+    }
+
+    private static int[] dgCounts(List<PowerBus> buses) {
+        int[] n = new int[buses.size()];
+        for (int b = 0; b < n.length; b++) n[b] = buses.get(b).getDieselGenerators().size();
+        return n;
+    }
+
+    /** Число записанных часов. */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int busCount() {
+        return busCount;
+    }
+
+    public int dgCount(int bus) {
+        return dgCount[bus];
+    }
+
+    /** Новое представление строки {@code row}; для обхода всей трассы удобнее {@link TraceRow#moveTo(int)}. */
+    public TraceRow row(int row) {
+        return new TraceRow(this).moveTo(row);
+    }
+
+    /** Сбросить трассу к пустой: колонки обнуляются, как у только что выделенных. */
+    void clear() {
+        Arrays.fill(timeIndex, 0);
+        Arrays.fill(totalLoadKw, 0.0);
+        Arrays.fill(totalDeficitKw, 0.0);
+        Arrays.fill(totalWreKw, 0.0);
+        Arrays.fill(breaker, (byte) 0);
+
+        Arrays.fill(busStatus, false);
+        Arrays.fill(busLoadKw, 0.0);
+        Arrays.fill(busWindToLoadKw, 0.0);
+        Arrays.fill(busDgToLoadKw, 0.0);
+        Arrays.fill(busBtNetKw, 0.0);
+        Arrays.fill(busDefKw, 0.0);
+        Arrays.fill(btActualCapacity, 0.0);
+        Arrays.fill(btActualSoc, 0.0);
+        Arrays.fill(btTimeWorked, 0.0);
+
+        Arrays.fill(dgLoadKw, 0.0);
+        Arrays.fill(dgHoursSinceMaintenance, 0.0);
+        Arrays.fill(dgTimeWorked, 0.0);
+        Arrays.fill(dgTotalTimeWorked, 0.0);
+        Arrays.fill(dgIdleTime, 0);
+        Arrays.fill(dgAvailable, false);
+        Arrays.fill(dgInMaintenance, false);
+
+        size = 0;
+    }
+
+    /** Скопировать строки [srcRow, srcRow + n) в {@code dst} начиная с dstRow; раскладка должна совпадать. */
+    static void copyRows(TraceColumns src, int srcRow, TraceColumns dst, int dstRow, int n) {
+        if (src.busCount != dst.busCount || src.dgTotal != dst.dgTotal) {
+            throw new IllegalArgumentException("Trace layouts differ");
+        }
+        System.arraycopy(src.timeIndex, srcRow, dst.timeIndex, dstRow, n);
+        System.arraycopy(src.totalLoadKw, srcRow, dst.totalLoadKw, dstRow, n);
+        System.arraycopy(src.totalDeficitKw, srcRow, dst.totalDeficitKw, dstRow, n);
+        System.arraycopy(src.totalWreKw, srcRow, dst.totalWreKw, dstRow, n);
+        System.arraycopy(src.breaker, srcRow, dst.breaker, dstRow, n);
+
+        int bs = srcRow * src.busCount, bd = dstRow * src.busCount, bn = n * src.busCount;
+        System.arraycopy(src.busStatus, bs, dst.busStatus, bd, bn);
+        System.arraycopy(src.busLoadKw, bs, dst.busLoadKw, bd, bn);
+        System.arraycopy(src.busWindToLoadKw, bs, dst.busWindToLoadKw, bd, bn);
+        System.arraycopy(src.busDgToLoadKw, bs, dst.busDgToLoadKw, bd, bn);
+        System.arraycopy(src.busBtNetKw, bs, dst.busBtNetKw, bd, bn);
+        System.arraycopy(src.busDefKw, bs, dst.busDefKw, bd, bn);
+        System.arraycopy(src.btActualCapacity, bs, dst.btActualCapacity, bd, bn);
+        System.arraycopy(src.btActualSoc, bs, dst.btActualSoc, bd, bn);
+        System.arraycopy(src.btTimeWorked, bs, dst.btTimeWorked, bd, bn);
+
+        int ds = srcRow * src.dgTotal, dd = dstRow * src.dgTotal, dn = n * src.dgTotal;
+        System.arraycopy(src.dgLoadKw, ds, dst.dgLoadKw, dd, dn);
+        System.arraycopy(src.dgHoursSinceMaintenance, ds, dst.dgHoursSinceMaintenance, dd, dn);
+        System.arraycopy(src.dgTimeWorked, ds, dst.dgTimeWorked, dd, dn);
+        System.arraycopy(src.dgTotalTimeWorked, ds, dst.dgTotalTimeWorked, dd, dn);
+        System.arraycopy(src.dgIdleTime, ds, dst.dgIdleTime, dd, dn);
+        System.arraycopy(src.dgAvailable, ds, dst.dgAvailable, dd, dn);
+        System.arraycopy(src.dgInMaintenance, ds, dst.dgInMaintenance, dd, dn);
+    }
+
+    int busCell(int row, int bus) {
+        return row * busCount + bus;
+    }
+
+    int dgCell(int row, int bus, int dg) {
+        return row * dgTotal + dgOffset[bus] + dg;
+    }
+}
@@ -0,0 +1,147 @@
+package simcore.engine.trace;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * Запись CSV трассы в байтовый буфер поверх {@link FileChannel}.
+ *
+ * Числа с одним знаком после запятой пишутся без {@code String.format}, но байт-в-байт
+ * совпадают с {@code String.format(locale, "%.1f", v)}: Formatter округляет HALF_UP
+ * десятичное представление double, поэтому значения вблизи половины последнего разряда
+ * (и очень большие) отдаются ему же.
+ *
+ * Текст (заголовок, OFF/TO/CLOSED) пишется в кодировке по умолчанию, как у FileWriter.
+ */
+public final class TraceCsvWriter implements Closeable {
+
+    public static final int DEFAULT_BUFFER_BYTES = 1 << 20;
+
+    /** выше — разрядов double не хватает для надёжного быстрого округления */
+    private static final double FAST_LIMIT = 1e9;
+
+    /** |x*10| < 1e10: погрешность x*10 и десятичного представления x заведомо меньше */
+    private static final double HALF_TOLERANCE = 1e-5;
+
+    private static final byte[] NEW_LINE = System.lineSeparator().getBytes(Charset.defaultCharset());
+
+    private final FileChannel ch;
+    private final ByteBuffer buf;
+    private final Locale locale;
+
+    /** ASCII-разделитель дробной части или -1, если быстрый путь для локали недоступен */
+    private final int decimalSep;
+
+    private final byte[] digits = new byte[20];
+
+    public TraceCsvWriter(String path, Locale locale) throws IOException {
+        this(path, locale, DEFAULT_BUFFER_BYTES);
+    }
+
+    public TraceCsvWriter(String path, Locale locale, int bufferBytes) throws IOException {
+        this.ch = FileChannel.open(Path.of(path),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        this.buf = ByteBuffer.allocateDirect(Math.max(64, bufferBytes));
+        this.locale = locale;
+
+        DecimalFormatSymbols dfs = DecimalFormatSymbols.getInstance(locale);
+        char sep = dfs.getDecimalSeparator();
+        this.decimalSep = (sep < 0x80 && dfs.getZeroDigit() == '0') ? sep : -1;
+    }
+
+    public TraceCsvWriter append(char c) throws IOException {
+        if (c < 0x80) {
+            put((byte) c);
+            return this;
+        }
+        return append(String.valueOf(c));
+    }
+
+    public TraceCsvWriter append(String s) throws IOException {
+        int n = s.length();
+        for (int i = 0; i < n; i++) {
+            if (s.charAt(i) >= 0x80) {
+                put(s.substring(i).getBytes(Charset.defaultCharset()));
+                return this;
+            }
+            put((byte) s.charAt(i));
+        }
+        return this;
+    }
+
+    public TraceCsvWriter append(long v) throws IOException {
+        if (v < 0) {
+            if (v == Long.MIN_VALUE) return append(Long.toString(v));
+            put((byte) '-');
+            v = -v;
+        }
+        int p = digits.length;
+        do {
+            digits[--p] = (byte) ('0' + (int) (v % 10));
+            v /= 10;
+        } while (v != 0);
+        if (buf.remaining() < digits.length - p) flush();
+        buf.put(digits, p, digits.length - p);
+        return this;
+    }
+
+    /** То же, что {@code String.format(locale, "%.1f", v)}; v должно быть конечным. */
+    public TraceCsvWriter appendFixed1(double v) throws IOException {
+        double x = Math.abs(v);
+        if (decimalSep >= 0 && x < FAST_LIMIT) {
+            double scaled = x * 10.0;
+            double whole = Math.floor(scaled);
+            double frac = scaled - whole;
+            if (Math.abs(frac - 0.5) > HALF_TOLERANCE) {
+                long n = (long) whole + (frac > 0.5 ? 1 : 0);
+                // Formatter ставит минус и для -0.0, и для отрицательных, округлившихся к нулю
+                if (Double.doubleToRawLongBits(v) < 0) put((byte) '-');
+                append(n / 10);
+                put((byte) decimalSep);
+                put((byte) ('0' + (int) (n % 10)));
+                return this;
+            }
+        }
+        return append(String.format(locale, "%.1f", v));
+    }
+
+    public TraceCsvWriter newLine() throws IOException {
+        put(NEW_LINE);
+        return this;
+    }
+
+    public void flush() throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) ch.write(buf);
+        buf.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (ch) {
+            flush();
+        }
+    }
+
+    private void put(byte b) throws IOException {
+        if (!buf.hasRemaining()) flush();
+        buf.put(b);
+    }
+
+    private void put(byte[] bytes) throws IOException {
+        int off = 0;
+        while (off < bytes.length) {
+            if (!buf.hasRemaining()) flush();
+            int n = Math.min(buf.remaining(), bytes.length - off);
+            buf.put(bytes, off, n);
+            off += n;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package simcore.engine.trace;
+
+/** События, по которым {@link FilteredTraceSession} отбирает часы трассы. */
+public enum TraceEvent {
+
+    /** час с недоотпуском (ENS > 0 хотя бы на одной шине) */
+    ENS,
+
+    /** отказ или восстановление: шина, ДГУ (включая начало/конец ТО), ВЭУ, АКБ */
+    FAILURE,
+
+    /** пуск, останов или прожиг ДГУ */
+    DG,
+
+    /** переключение межсекционного автомата */
+    BREAKER
+}
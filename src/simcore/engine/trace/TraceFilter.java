@@ -0,0 +1,49 @@
+package simcore.engine.trace;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Какие часы записывать в трассу ({@link FilteredTraceSession}).
+ *
+ * Час пишется, если в нём произошло одно из {@code events} (вместе с {@code contextHours}
+ * часов до и после события) или если его timeIndex кратен {@code everyNthHour}.
+ *
+ * @param events       отбираемые события (может быть пустым)
+ * @param everyNthHour шаг выборки часов; 0 — без выборки
+ * @param contextHours сколько часов до и после события записывать вместе с ним
+ */
+public record TraceFilter(Set<TraceEvent> events, int everyNthHour, int contextHours) {
+
+    public TraceFilter {
+        if (events == null) {
+            throw new IllegalArgumentException("events must not be null");
+        }
+        if (everyNthHour < 0) {
+            throw new IllegalArgumentException("everyNthHour must be >= 0");
+        }
+        if (contextHours < 0) {
+            throw new IllegalArgumentException("contextHours must be >= 0");
+        }
+        if (events.isEmpty() && everyNthHour == 0) {
+            throw new IllegalArgumentException("Filter selects no hours: set events or everyNthHour");
+        }
+        events = Set.copyOf(events);
+    }
+
+    /** Только часы с событиями и контекст вокруг них. */
+    public static TraceFilter events(int contextHours, TraceEvent first, TraceEvent... rest) {
+        return new TraceFilter(EnumSet.of(first, rest), 0, contextHours);
+    }
+
+    /** Только каждый N-й час. */
+    public static TraceFilter everyNthHour(int n) {
+        if (n <= 0) throw new IllegalArgumentException("n must be > 0");
+        return new TraceFilter(Set.of(), n, 0);
+    }
+
+    /** Тот же фильтр, дополнительно с каждым N-м часом. */
+    public TraceFilter withEveryNthHour(int n) {
+        return new TraceFilter(events, n, contextHours);
+    }
+}
@@ -0,0 +1,27 @@
+package simcore.engine.trace;
+
+import simcore.model.PowerBus;
+
+import java.util.List;
+
+/**
+ * Приёмник готовых часов трассы: в него {@link FilteredTraceSession} передаёт отобранные часы.
+ * Сколько часов будет отобрано, заранее неизвестно, поэтому приёмник растёт по мере записи.
+ */
+public interface TraceHourSink {
+
+    /** Вызывается один раз перед первым часом. */
+    void begin(List<PowerBus> buses);
+
+    /** Записать час {@code row} из {@code src} как очередной час трассы. */
+    void copyHour(TraceColumns src, int row);
+
+    /** Вызывается после последнего часа. */
+    void end();
+
+    /** Вызывается вместо {@link #end()}, если прогон прерван; см. {@link TraceSession#abort()}. */
+    void abort();
+
+    /** Записанные часы; null, если в памяти они не хранятся. */
+    TraceColumns columns();
+}
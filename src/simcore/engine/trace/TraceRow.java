@@ -0,0 +1,127 @@
+package simcore.engine.trace;
+
+/**
+ * Лёгкое представление одной строки (часа) {@link TraceColumns}.
+ *
+ * Данные не копируются: геттеры читают колонки напрямую. Одно представление можно
+ * переставлять по строкам через {@link #moveTo(int)}, не создавая объектов на каждый час.
+ */
+public final class TraceRow {
+
+    private final TraceColumns c;
+    private int row;
+
+    TraceRow(TraceColumns columns) {
+        this.c = columns;
+    }
+
+    public TraceRow moveTo(int row) {
+        if (row < 0 || row >= c.size) {
+            throw new IndexOutOfBoundsException("row " + row + " of " + c.size);
+        }
+        this.row = row;
+        return this;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public int getBusCount() {
+        return c.busCount;
+    }
+
+    public int getDgCount(int bus) {
+        return c.dgCount(bus);
+    }
+
+    // --- по часам ---
+    public int getTimeIndex() {
+        return c.timeIndex[row];
+    }
+
+    public double getTotalLoadKw() {
+        return c.totalLoadKw[row];
+    }
+
+    public double getTotalDeficitKw() {
+        return c.totalDeficitKw[row];
+    }
+
+    public double getTotalWreKw() {
+        return c.totalWreKw[row];
+    }
+
+    /** null если межсекционного автомата нет */
+    public Boolean getBreakerClosed() {
+        byte s = c.breaker[row];
+        if (s == TraceColumns.BREAKER_NONE) return null;
+        return s == TraceColumns.BREAKER_CLOSED;
+    }
+
+    // --- по шинам ---
+    public boolean getBusStatus(int bus) {
+        return c.busStatus[c.busCell(row, bus)];
+    }
+
+    public double getBusLoadKw(int bus) {
+        return c.busLoadKw[c.busCell(row, bus)];
+    }
+
+    public double getBusGenWindKw(int bus) {
+        return c.busWindToLoadKw[c.busCell(row, bus)];
+    }
+
+    public double getBusGenDgKw(int bus) {
+        return c.busDgToLoadKw[c.busCell(row, bus)];
+    }
+
+    public double getBusGenBtKw(int bus) {
+        return c.busBtNetKw[c.busCell(row, bus)];
+    }
+
+    public double getBusDeficitKw(int bus) {
+        return c.busDefKw[c.busCell(row, bus)];
+    }
+
+    public double getBtActualCapacity(int bus) {
+        return c.btActualCapacity[c.busCell(row, bus)];
+    }
+
+    public double getBtActualSOC(int bus) {
+        return c.btActualSoc[c.busCell(row, bus)];
+    }
+
+    public double getBtTimeWorked(int bus) {
+        return c.btTimeWorked[c.busCell(row, bus)];
+    }
+
+    // --- по ДГУ ---
+    public double getDgLoadKw(int bus, int dg) {
+        return c.dgLoadKw[c.dgCell(row, bus, dg)];
+    }
+
+    public double getDgHoursSinceMaintenance(int bus, int dg) {
+        return c.dgHoursSinceMaintenance[c.dgCell(row, bus, dg)];
+    }
+
+    public double getDgTimeWorked(int bus, int dg) {
+        return c.dgTimeWorked[c.dgCell(row, bus, dg)];
+    }
+
+    public double getDgTotalTimeWorked(int bus, int dg) {
+        return c.dgTotalTimeWorked[c.dgCell(row, bus, dg)];
+    }
+
+    public int getDgIdleTime(int bus, int dg) {
+        return c.dgIdleTime[c.dgCell(row, bus, dg)];
+    }
+
+    public boolean isDgAvailable(int bus, int dg) {
+        return c.dgAvailable[c.dgCell(row, bus, dg)];
+    }
+
+    public boolean isDgInMaintenance(int bus, int dg) {
+        return c.dgInMaintenance[c.dgCell(row, bus, dg)];
+    }
+}
@@ -1,6 +1,5 @@
 package simcore.engine.trace;
 
-import simcore.engine.SimulationStepRecord;
 import simcore.model.Battery;
 import simcore.model.PowerBus;
 
@@ -10,6 +9,24 @@ public interface TraceSession {
 
     boolean enabled();
 
+    /** Вызывается один раз перед первым часом прогона. */
+    default void begin(int hours, List<PowerBus> buses) {
+        // no-op
+    }
+
+    /** Вызывается после последнего часа прогона. */
+    default void end() {
+        // no-op
+    }
+
+    /**
+     * Вызывается вместо {@link #end()}, если прогон прерван исключением: освободить потоки и файлы,
+     * не дописывая trace. Исключений не бросает, чтобы не заслонить исходное.
+     */
+    default void abort() {
+        // no-op
+    }
+
     void startHour(int busCount);
 
     void setBusDown(int busIndex, double loadKw, double defKw);
@@ -32,5 +49,6 @@ public interface TraceSession {
                        double totalWreKw,
                        Boolean breakerClosed);
 
-    List<SimulationStepRecord> records();
+    /** Колонки трассы; null если трасса не собирается. */
+    TraceColumns columns();
 }
@@ -0,0 +1,159 @@
+package simcore.io;
+
+import simcore.config.SimulationConstants;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Кэш подготовленных входных рядов: масштабированный столбец хранится в бинарном файле
+ * рядом с исходным ({@code <файл>.scaled.bin}) и при следующих запусках читается из него
+ * двумя чтениями канала (заголовок, затем ряд), без разбора текста.
+ *
+ * Ключ кэша — SHA-256 от содержимого исходного файла, вида ряда, множителя масштабирования,
+ * констант высот (Z_FACTOR, высоты флюгера и мачты), DATA_SIZE и версии формата. Если ключ
+ * не совпал или файл кэша повреждён, ряд читается из текста заново и кэш перезаписывается.
+ *
+ * Формат (little-endian): "SCIC", int32 version, int32 count, int32 0, byte[32] key, double[count].
+ * Запись идёт во временный файл с атомарной заменой, поэтому параллельные запуски не видят
+ * недописанный кэш. Файл кэша в память не отображается: на Windows живое отображение
+ * не даёт заменить файл, и перезапись кэша в том же процессе падала бы.
+ * Если записать кэш не удалось (например, каталог только для чтения), данные всё равно возвращаются.
+ */
+public final class InputDataCache {
+
+    public static final String SUFFIX = ".scaled.bin";
+
+    private static final int MAGIC = 'S' | ('C' << 8) | ('I' << 16) | ('C' << 24);
+    private static final int VERSION = 1;
+    private static final int KEY_BYTES = 32;
+    private static final int HEADER_BYTES = 16 + KEY_BYTES;
+
+    private static final String KIND_LOAD = "load";
+    private static final String KIND_WIND = "wind";
+
+    private InputDataCache() {}
+
+    /** То же, что {@link InputDataLoader#load}, но через кэш. */
+    public static InputData load(String loadFilePath, String windFilePath) throws IOException {
+        InputDataLoader loader = new InputDataLoader();
+        double[] loadKw = column(loader, loadFilePath, KIND_LOAD, InputDataLoader.loadScaleFactor());
+        double[] windMs = column(loader, windFilePath, KIND_WIND, InputDataLoader.windScaleFactor());
+        return new InputData(loadKw, windMs);
+    }
+
+    private static double[] column(InputDataLoader loader, String filePath, String kind, double factor)
+            throws IOException {
+
+        int n = SimulationConstants.DATA_SIZE;
+        byte[] key = key(filePath, kind, factor, n);
+        Path cachePath = Path.of(filePath + SUFFIX);
+
+        double[] cached = read(cachePath, key, n);
+        if (cached != null) return cached;
+
+        double[] values = new double[n];
+        loader.loadColumnInto(filePath, values);
+        InputDataLoader.scale(values, factor);
+
+        try {
+            write(cachePath, key, values);
+        } catch (IOException e) {
+            System.err.println("Не удалось записать кэш " + cachePath + ": " + e.getMessage());
+        }
+        return values;
+    }
+
+    private static byte[] key(String filePath, String kind, double factor, int n) throws IOException {
+        MessageDigest sha = sha256();
+        try (FileChannel ch = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Файл слишком большой: " + filePath);
+            }
+            sha.update(ch.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+
+        ByteBuffer params = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+        params.putInt(VERSION)
+                .putInt(n)
+                .putDouble(factor)
+                .putDouble(SimulationConstants.Z_FACTOR)
+                .putDouble(SimulationConstants.WIND_REFERENCE_HEIGHT_M)
+                .putDouble(SimulationConstants.MAST_HEIGHT_M)
+                .flip();
+        sha.update(params);
+        sha.update(kind.getBytes(StandardCharsets.US_ASCII));
+        return sha.digest();
+    }
+
+    /** @return ряд из кэша или null, если кэша нет, он от другого ключа или повреждён */
+    private static double[] read(Path cachePath, byte[] key, int n) throws IOException {
+        try (FileChannel ch = FileChannel.open(cachePath, StandardOpenOption.READ)) {
+            if (ch.size() != HEADER_BYTES + (long) n * Double.BYTES) return null;
+
+            ByteBuffer head = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            if (!readFully(ch, head, 0)) return null;
+            if (head.getInt(0) != MAGIC || head.getInt(4) != VERSION || head.getInt(8) != n) return null;
+
+            byte[] stored = new byte[KEY_BYTES];
+            head.get(16, stored);
+            if (!Arrays.equals(stored, key)) return null;
+
+            ByteBuffer data = ByteBuffer.allocate(n * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            if (!readFully(ch, data, HEADER_BYTES)) return null;
+
+            double[] values = new double[n];
+            data.asDoubleBuffer().get(values);
+            return values;
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /** @return false, если файл кончился раньше, чем заполнился буфер */
+    private static boolean readFully(FileChannel ch, ByteBuffer dst, long pos) throws IOException {
+        while (dst.hasRemaining()) {
+            if (ch.read(dst, pos + dst.position()) < 0) return false;
+        }
+        dst.flip();
+        return true;
+    }
+
+    private static void write(Path cachePath, byte[] key, double[] values) throws IOException {
+        Path dir = cachePath.toAbsolutePath().getParent();
+        Path tmp = Files.createTempFile(dir, cachePath.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                ByteBuffer buf = ByteBuffer.allocate(HEADER_BYTES + values.length * Double.BYTES)
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                buf.putInt(MAGIC).putInt(VERSION).putInt(values.length).putInt(0).put(key);
+                buf.asDoubleBuffer().put(values);
+                buf.position(0);
+                while (buf.hasRemaining()) ch.write(buf);
+            }
+            Files.move(tmp, cachePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
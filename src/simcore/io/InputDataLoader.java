@@ -3,8 +3,6 @@ package simcore.io;
 import simcore.Main;
 import simcore.config.SimulationConstants;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
 
 /**
@@ -20,49 +18,40 @@ public class InputDataLoader {
         loadColumnInto(loadFilePath, loadKw);
         loadColumnInto(windFilePath, windMs);
 
-        scaleLoad(loadKw);
-        scaleWind(windMs);
+        scale(loadKw, loadScaleFactor());
+        scale(windMs, windScaleFactor());
 
         return new InputData(loadKw, windMs);
     }
 
-    private void loadColumnInto(String filePath, double[] target) throws IOException {
+    void loadColumnInto(String filePath, double[] target) throws IOException {
 
-        try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            int i = 0;
+        int i = NumericColumnReader.readInto(filePath, target);
 
-            while ((line = br.readLine()) != null && i < target.length) {
-                line = line.trim();
-                if (!line.isEmpty()) {
-                    target[i++] = Double.parseDouble(line.replace(",", "."));
-                }
-            }
-
-            if (i != target.length) {
-                throw new IOException("Ожидалось " + target.length +
-                        " строк, получено " + i + " (" + filePath + ")");
-            }
+        if (i != target.length) {
+            throw new IOException("Ожидалось " + target.length +
+                    " строк, получено " + i + " (" + filePath + ")");
         }
     }
 
-    private void scaleLoad(double[] arr) {
-//        double factor = SimulationConstants.MAX_LOAD;
-        double factor = Main.MAX_LOAD;
-        for (int i = 0; i < arr.length; i++) {
-            arr[i] *= factor;
-        }
+    /** Множитель нагрузки: ряд в файле задан в долях от максимума. */
+    static double loadScaleFactor() {
+//        return SimulationConstants.MAX_LOAD;
+        return Main.MAX_LOAD;
     }
 
-    private void scaleWind(double[] arr) {
+    /** Пересчёт скорости ветра с высоты флюгера на высоту мачты (логарифмический профиль). */
+    static double windScaleFactor() {
 
         double z0 = SimulationConstants.Z_FACTOR;
         double hRef = SimulationConstants.WIND_REFERENCE_HEIGHT_M;
         double hMast = SimulationConstants.MAST_HEIGHT_M;
 
         double rawFactor = Math.log(hMast / z0) / Math.log(hRef / z0);
-        double factor = Math.round(rawFactor * 1000.0) / 1000.0;
+        return Math.round(rawFactor * 1000.0) / 1000.0;
+    }
 
+    static void scale(double[] arr, double factor) {
         for (int i = 0; i < arr.length; i++) {
             arr[i] *= factor;
         }
@@ -0,0 +1,167 @@
+package simcore.io;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Чтение столбца чисел (одно число в строке) из файла, отображённого в память.
+ *
+ * Числа разбираются прямо из байтов, без строки на каждую строку файла. Разделитель дробной части —
+ * точка или запятая. Правила те же, что у прежнего BufferedReader + trim + replace(",", ".") + parseDouble:
+ * строки разделяются \n, \r или \r\n, пробелы и управляющие символы по краям отбрасываются,
+ * пустые строки пропускаются.
+ *
+ * Быстрый путь — [знак] цифры [.|,] цифры [e[знак]цифры] с мантиссой до 2^53 и порядком до 22:
+ * тогда m * 10^e (или m / 10^e) вычисляется одним округлением и совпадает с parseDouble.
+ * Всё остальное (длинная мантисса, NaN, ошибки формата) уходит в Double.parseDouble
+ * с тем же результатом или тем же NumberFormatException.
+ */
+final class NumericColumnReader {
+
+    /** 10^0..10^22 точно представимы в double */
+    private static final double[] POW10 = new double[23];
+
+    static {
+        double p = 1.0;
+        for (int i = 0; i < POW10.length; i++) {
+            POW10[i] = p;
+            p *= 10.0;
+        }
+    }
+
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private NumericColumnReader() {}
+
+    /**
+     * Заполнить {@code target} числами из файла по порядку; строки сверх target.length не читаются.
+     *
+     * @return сколько чисел прочитано (меньше target.length, если файл короче)
+     */
+    static int readInto(String filePath, double[] target) throws IOException {
+        try (FileChannel ch = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Файл слишком большой: " + filePath);
+            }
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return parseLines(buf, (int) size, target);
+        }
+    }
+
+    private static int parseLines(MappedByteBuffer buf, int size, double[] target) {
+        int i = 0;
+        int pos = 0;
+
+        while (pos < size && i < target.length) {
+            int lineEnd = pos;
+            while (lineEnd < size) {
+                byte b = buf.get(lineEnd);
+                if (b == '\n' || b == '\r') break;
+                lineEnd++;
+            }
+
+            int from = pos;
+            int to = lineEnd;
+            while (from < to && (buf.get(from) & 0xFF) <= ' ') from++;
+            while (to > from && (buf.get(to - 1) & 0xFF) <= ' ') to--;
+
+            if (from < to) {
+                target[i++] = parseNumber(buf, from, to);
+            }
+
+            // \r\n даёт пустую строку между \r и \n, она пропускается как пустая
+            pos = lineEnd + 1;
+        }
+        return i;
+    }
+
+    private static double parseNumber(MappedByteBuffer buf, int from, int to) {
+        int p = from;
+
+        boolean negative = false;
+        byte c = buf.get(p);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            p++;
+        }
+
+        long mantissa = 0;
+        int exp10 = 0;
+        int digits = 0;
+        boolean overflow = false;
+
+        while (p < to && isDigit(c = buf.get(p))) {
+            overflow |= !appendDigit(mantissa, c);
+            if (!overflow) mantissa = mantissa * 10 + (c - '0');
+            digits++;
+            p++;
+        }
+        if (p < to && (buf.get(p) == '.' || buf.get(p) == ',')) {
+            p++;
+            while (p < to && isDigit(c = buf.get(p))) {
+                overflow |= !appendDigit(mantissa, c);
+                if (!overflow) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    exp10--;
+                }
+                digits++;
+                p++;
+            }
+        }
+        if (digits == 0 || overflow) return slowParse(buf, from, to);
+
+        if (p < to && (buf.get(p) == 'e' || buf.get(p) == 'E')) {
+            p++;
+            boolean expNegative = false;
+            if (p < to && (buf.get(p) == '-' || buf.get(p) == '+')) {
+                expNegative = buf.get(p) == '-';
+                p++;
+            }
+            int exp = 0;
+            int expDigits = 0;
+            while (p < to && isDigit(c = buf.get(p))) {
+                if (exp > 1000) return slowParse(buf, from, to);
+                exp = exp * 10 + (c - '0');
+                expDigits++;
+                p++;
+            }
+            if (expDigits == 0) return slowParse(buf, from, to);
+            exp10 += expNegative ? -exp : exp;
+        }
+
+        if (p != to) return slowParse(buf, from, to);
+
+        double v;
+        if (mantissa == 0) {
+            v = 0.0;
+        } else if (exp10 >= 0 && exp10 < POW10.length) {
+            v = mantissa * POW10[exp10];
+        } else if (exp10 < 0 && -exp10 < POW10.length) {
+            v = mantissa / POW10[-exp10];
+        } else {
+            return slowParse(buf, from, to);
+        }
+        return negative ? -v : v;
+    }
+
+    /** мантисса после добавления цифры остаётся точной в double */
+    private static boolean appendDigit(long mantissa, byte digit) {
+        return mantissa * 10 + (digit - '0') <= MAX_EXACT_MANTISSA;
+    }
+
+    private static boolean isDigit(byte c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static double slowParse(MappedByteBuffer buf, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        buf.get(from, bytes);
+        String s = new String(bytes, Charset.defaultCharset());
+        return Double.parseDouble(s.replace(",", "."));
+    }
+}
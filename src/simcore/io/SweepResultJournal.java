@@ -0,0 +1,262 @@
+package simcore.io;
+
+import simcore.config.ParameterDigest;
+import simcore.config.SystemParameters;
+import simcore.engine.MonteCarloEstimate;
+import simcore.engine.MonteCarloMetric;
+import simcore.engine.MonteCarloStats;
+import simcore.engine.MonteCarloRunner;
+import simcore.engine.SimInput;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал завершённых точек sweep: после каждой точки в конец файла дописывается
+ * запись фиксированного размера с её {@link MonteCarloEstimate}, и файл сбрасывается на диск.
+ * После падения или kill перезапуск того же sweep пропускает точки из журнала,
+ * а отчёт строится из журнала целиком.
+ *
+ * <pre>
+ * заголовок (little-endian, {@value #HEADER_BYTES} байт):
+ *   "SCRJ", int32 version, int32 recordBytes, int32 pointCount, int64 runKey, int64 0
+ * запись ({@value #RECORD_BYTES} байт):
+ *   int32 pointIndex, int64 fingerprint(SystemParameters),
+ *   ENS: double mean, ciLow, ciHigh, int32 requiredN, actualN,
+ *   15 x double средних (порядок — {@link #putMeans}), int32 CRC32 предыдущих байт
+ * </pre>
+ *
+ * runKey описывает весь прогон (конфиг, входные ряды, итерации, seed, настройки runner'а):
+ * журнал от другого прогона не используется. Записи с неверной CRC (оборванный хвост)
+ * и всё после них отбрасываются, файл обрезается до последней целой записи.
+ * Записи, у которых fingerprint параметров не совпал с точкой, пропускаются.
+ *
+ * В журнал не попадают singleRun (trace) и статистики по {@link MonteCarloMetric}:
+ * в восстановленных оценках они null, отчёты их не используют.
+ */
+public final class SweepResultJournal implements Closeable {
+
+    private static final int MAGIC = 'S' | ('C' << 8) | ('R' << 16) | ('J' << 24);
+    private static final int VERSION = 1;
+
+    static final int HEADER_BYTES = 32;
+    private static final int MEANS = 15;
+    static final int RECORD_BYTES = Integer.BYTES + Long.BYTES
+            + 3 * Double.BYTES + 2 * Integer.BYTES
+            + MEANS * Double.BYTES
+            + Integer.BYTES;
+
+    private final FileChannel ch;
+    private final long[] fingerprints;
+    private final MonteCarloEstimate[] completed;
+    private long end;
+
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private final CRC32 crc = new CRC32();
+
+    private SweepResultJournal(FileChannel ch, long[] fingerprints) {
+        this.ch = ch;
+        this.fingerprints = fingerprints;
+        this.completed = new MonteCarloEstimate[fingerprints.length];
+    }
+
+    /**
+     * Открыть журнал sweep (или создать новый).
+     *
+     * @param runKey    {@link #runKey} прогона
+     * @param paramSets точки sweep в порядке индексов
+     * @throws IOException если файл — журнал другого прогона или не журнал вовсе
+     */
+    public static SweepResultJournal open(String path, long runKey, List<SystemParameters> paramSets)
+            throws IOException {
+
+        long[] fps = new long[paramSets.size()];
+        for (int k = 0; k < fps.length; k++) fps[k] = fingerprint(paramSets.get(k));
+
+        FileChannel ch = FileChannel.open(Path.of(path),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            SweepResultJournal j = new SweepResultJournal(ch, fps);
+            if (ch.size() < HEADER_BYTES) {
+                j.writeHeader(runKey);
+            } else {
+                j.checkHeader(path, runKey);
+                j.replay();
+            }
+            return j;
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    /** Оценка точки из журнала или null, если точка ещё не считалась. */
+    public MonteCarloEstimate completed(int pointIndex) {
+        return completed[pointIndex];
+    }
+
+    public int completedCount() {
+        int n = 0;
+        for (MonteCarloEstimate e : completed) if (e != null) n++;
+        return n;
+    }
+
+    /** Точки, которых в журнале ещё нет, по возрастанию. */
+    public List<Integer> pendingPoints() {
+        List<Integer> pending = new ArrayList<>();
+        for (int k = 0; k < completed.length; k++) if (completed[k] == null) pending.add(k);
+        return pending;
+    }
+
+    /** Все оценки в порядке точек; исключение, если какая-то точка не завершена. */
+    public List<MonteCarloEstimate> estimates() {
+        List<MonteCarloEstimate> out = new ArrayList<>(completed.length);
+        for (int k = 0; k < completed.length; k++) {
+            if (completed[k] == null) throw new IllegalStateException("Point " + k + " is not in the journal");
+            out.add(completed[k]);
+        }
+        return out;
+    }
+
+    /** Дописать точку и сбросить на диск. Можно вызывать из разных потоков. */
+    public synchronized void append(int pointIndex, MonteCarloEstimate e) throws IOException {
+        record.clear();
+        record.putInt(pointIndex).putLong(fingerprints[pointIndex]);
+
+        MonteCarloStats.Stats s = e.ensStats;
+        record.putDouble(s.getMean()).putDouble(s.getCiLow()).putDouble(s.getCiHigh())
+                .putInt(s.getRequiredSampleSize()).putInt(s.getActualSampleSize());
+        putMeans(record, e);
+
+        crc.reset();
+        crc.update(record.array(), 0, RECORD_BYTES - Integer.BYTES);
+        record.putInt((int) crc.getValue());
+        record.flip();
+
+        writeFully(record, end);
+        ch.force(false);
+        end += RECORD_BYTES;
+        completed[pointIndex] = e;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        ch.close();
+    }
+
+    // ===== fingerprints =====
+
+    /** Отпечаток всех полей {@link SystemParameters}. */
+    public static long fingerprint(SystemParameters p) {
+        MessageDigest md = ParameterDigest.sha256();
+        ParameterDigest.update(md, p);
+        return ParameterDigest.toLong(md.digest());
+    }
+
+    /**
+     * Ключ прогона: всё, кроме параметров точек, от чего зависят оценки
+     * (настройки runner'а — {@link MonteCarloRunner#updateSettingsDigest}).
+     */
+    public static long runKey(SimInput baseInput, int mcIterations, long mcBaseSeed, MonteCarloRunner runner) {
+        MessageDigest md = ParameterDigest.sha256();
+        ParameterDigest.update(md, mcIterations);
+        ParameterDigest.update(md, mcBaseSeed);
+        ParameterDigest.updateFlags(md, baseInput.getConfig());
+        ParameterDigest.update(md, baseInput.getTotalLoadKw());
+        ParameterDigest.update(md, baseInput.getConfig().getWindMs());
+        runner.updateSettingsDigest(md);
+        return ParameterDigest.toLong(md.digest());
+    }
+
+    // ===== file =====
+
+    private void writeHeader(long runKey) throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        b.putInt(MAGIC).putInt(VERSION).putInt(RECORD_BYTES).putInt(fingerprints.length)
+                .putLong(runKey).putLong(0L).flip();
+        ch.truncate(0);
+        writeFully(b, 0);
+        ch.force(true);
+        end = HEADER_BYTES;
+    }
+
+    private void checkHeader(String path, long runKey) throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(b, 0);
+        if (b.getInt(0) != MAGIC || b.getInt(4) != VERSION || b.getInt(8) != RECORD_BYTES) {
+            throw new IOException("Not a sweep journal: " + path);
+        }
+        if (b.getInt(12) != fingerprints.length || b.getLong(16) != runKey) {
+            throw new IOException("Journal " + path + " belongs to a different sweep; remove it to start over");
+        }
+    }
+
+    private void replay() throws IOException {
+        long size = ch.size();
+        long pos = HEADER_BYTES;
+
+        while (pos + RECORD_BYTES <= size) {
+            record.clear();
+            readFully(record, pos);
+
+            crc.reset();
+            crc.update(record.array(), 0, RECORD_BYTES - Integer.BYTES);
+            if ((int) crc.getValue() != record.getInt(RECORD_BYTES - Integer.BYTES)) break;
+
+            int k = record.getInt(0);
+            if (k >= 0 && k < fingerprints.length && record.getLong(4) == fingerprints[k]) {
+                completed[k] = readEstimate(record);
+            }
+            pos += RECORD_BYTES;
+        }
+
+        // оборванная или испорченная запись в конце: следующая запись пойдёт на её место
+        if (pos < size) ch.truncate(pos);
+        end = pos;
+    }
+
+    private static MonteCarloEstimate readEstimate(ByteBuffer r) {
+        r.position(Integer.BYTES + Long.BYTES);
+        MonteCarloStats.Stats ens = new MonteCarloStats.Stats(
+                r.getDouble(), r.getDouble(), r.getDouble(), r.getInt(), r.getInt());
+
+        double[] m = new double[MEANS];
+        for (int i = 0; i < MEANS; i++) m[i] = r.getDouble();
+
+        return new MonteCarloEstimate(null, ens,
+                m[0], m[1], m[2], m[3], m[4], m[5], m[6], m[7],
+                null,
+                m[8], m[9], m[10], m[11], m[12], m[13], m[14]);
+    }
+
+    /** Порядок средних — как в конструкторе {@link MonteCarloEstimate}. */
+    private static void putMeans(ByteBuffer b, MonteCarloEstimate e) {
+        b.putDouble(e.meanEnsCat1Kwh).putDouble(e.meanEnsCat2Kwh)
+                .putDouble(e.meanFuelLiters).putDouble(e.meanMotoHours)
+                .putDouble(e.meanWre)
+                .putDouble(e.meanWtPct).putDouble(e.meanDgPct).putDouble(e.meanBtPct)
+                .putDouble(e.meanFailRoom).putDouble(e.meanFailBus).putDouble(e.meanFailDg)
+                .putDouble(e.meanFailWt).putDouble(e.meanFailBt).putDouble(e.meanFailBrk)
+                .putDouble(e.meanRepBt);
+    }
+
+    private void writeFully(ByteBuffer src, long pos) throws IOException {
+        int n = 0;
+        while (src.hasRemaining()) n += ch.write(src, pos + n);
+    }
+
+    private void readFully(ByteBuffer dst, long pos) throws IOException {
+        while (dst.hasRemaining()) {
+            if (ch.read(dst, pos + dst.position()) < 0) throw new IOException("Unexpected end of journal");
+        }
+    }
+}
@@ -1,7 +1,7 @@
 package simcore.io;
 
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import simcore.config.BusSystemType;
 import simcore.config.SimulationConfig;
 import simcore.config.SystemParameters;
@@ -10,11 +10,28 @@ import simcore.engine.MonteCarloStats;
 
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 
+/**
+ * Результаты перебора в xlsx: лист RAW (строка на точку + блок цен для формулы Econ)
+ * и для SWEEP_2 лист сеток с формулами AVERAGEIFS по RAW.
+ *
+ * Книга пишется через {@link SXSSFWorkbook}: в памяти держится только окно из
+ * {@link #ROW_ACCESS_WINDOW} строк, остальные сбрасываются во временный файл, поэтому память
+ * не зависит от числа точек. Строки каждого листа создаются строго по порядку.
+ * autoSizeColumn в потоковом режиме видит только окно, поэтому ширины колонок считаются
+ * по длине выведенного текста ({@link ColumnWidths}); стили создаются один раз на книгу.
+ */
 public final class SweepResultsExcelWriter {
 
+    /** строк листа в памяти; более ранние уже сброшены на диск */
+    public static final int ROW_ACCESS_WINDOW = 200;
+
+    /** предел ширины колонки в Excel, 1/256 символа */
+    private static final int MAX_COLUMN_WIDTH = 255 * 256;
+
     private SweepResultsExcelWriter() {}
 
     public static void writeXlsx(String path,
@@ -30,7 +47,10 @@ public final class SweepResultsExcelWriter {
             throw new IllegalArgumentException("paramSets.size != estimates.size");
         }
 
-        try (Workbook wb = new XSSFWorkbook()) {
+        SXSSFWorkbook wb = new SXSSFWorkbook(ROW_ACCESS_WINDOW);
+        wb.setCompressTempFiles(true);
+
+        try (wb) {
 
             // ===== Styles =====
             DataFormat df = wb.createDataFormat();
@@ -63,6 +83,7 @@ public final class SweepResultsExcelWriter {
 
             // ===== RAW sheet =====
             Sheet raw = wb.createSheet("RAW");
+            ColumnWidths rawWidths = new ColumnWidths();
 
             int r = 0;
 
@@ -82,50 +103,46 @@ public final class SweepResultsExcelWriter {
 
             // Inputs (params)
             if (mode == simcore.Main.RunMode.SWEEP_2) {
-                Cell h1 = hdr.createCell(c++);
-                h1.setCellValue("param1");
-                h1.setCellStyle(headerStyle);
-
-                Cell h2 = hdr.createCell(c++);
-                h2.setCellValue("param2");
-                h2.setCellStyle(headerStyle);
+                c = writeHeader(hdr, c, "param1", headerStyle, rawWidths);
+                c = writeHeader(hdr, c, "param2", headerStyle, rawWidths);
 
             } else if (mode == simcore.Main.RunMode.SWEEP_1) {
-                Cell h1 = hdr.createCell(c++);
-                h1.setCellValue("param1");
-                h1.setCellStyle(headerStyle);
+                c = writeHeader(hdr, c, "param1", headerStyle, rawWidths);
             }
 
             // Per-run equipment sizes (must be per-row, not from baseParams)
-            c = writeHeader(hdr, c, "DG_kW", headerStyle);      // суммарная мощность ДГУ
-            c = writeHeader(hdr, c, "DG1_kW", headerStyle);     // мощность одной ДГУ (нужно для моточасных затрат)
-            c = writeHeader(hdr, c, "WT_kW", headerStyle);
-            c = writeHeader(hdr, c, "BT_kWh", headerStyle);
+            c = writeHeader(hdr, c, "DG_kW", headerStyle, rawWidths);      // суммарная мощность ДГУ
+            c = writeHeader(hdr, c, "DG1_kW", headerStyle, rawWidths);     // мощность одной ДГУ (нужно для моточасных затрат)
+            c = writeHeader(hdr, c, "WT_kW", headerStyle, rawWidths);
+            c = writeHeader(hdr, c, "BT_kWh", headerStyle, rawWidths);
 
             // Outputs (Economics must be first output column)
-            c = writeHeader(hdr, c, "Econ", headerStyle);
-
-            c = writeHeader(hdr, c, "ENS_mean", headerStyle);
-            c = writeHeader(hdr, c, "ENS_ciLo", headerStyle);
-            c = writeHeader(hdr, c, "ENS_ciHi", headerStyle);
-            c = writeHeader(hdr, c, "ENS_reqN", headerStyle);
-            c = writeHeader(hdr, c, "ENS1_mean", headerStyle);
-            c = writeHeader(hdr, c, "ENS2_mean", headerStyle);
-            c = writeHeader(hdr, c, "Fuel_ML", headerStyle);
-            c = writeHeader(hdr, c, "Moto_kh", headerStyle); // тыс. моточасов
-            c = writeHeader(hdr, c, "WRE_%", headerStyle);
-            c = writeHeader(hdr, c, "WT_%", headerStyle);
-            c = writeHeader(hdr, c, "DG_%", headerStyle);
-            c = writeHeader(hdr, c, "BT_%", headerStyle);
+            c = writeHeader(hdr, c, "Econ", headerStyle, rawWidths);
+
+            c = writeHeader(hdr, c, "ENS_mean", headerStyle, rawWidths);
+            c = writeHeader(hdr, c, "ENS_ciLo", headerStyle, rawWidths);
+            c = writeHeader(hdr, c, "ENS_ciHi", headerStyle, rawWidths);
+            c = writeHeader(hdr, c, "ENS_reqN", headerStyle, rawWidths);
+            c = writeHeader(hdr, c, "ENS1_mean", headerStyle, rawWidths);
+            c = writeHeader(hdr, c, "ENS2_mean", headerStyle, rawWidths);
+            c = writeHeader(hdr, c, "Fuel_ML", headerStyle, rawWidths);
+            c = writeHeader(hdr, c, "Moto_kh", headerStyle, rawWidths); // тыс. моточасов
+            c = writeHeader(hdr, c, "WRE_%", headerStyle, rawWidths);
+            c = writeHeader(hdr, c, "WT_%", headerStyle, rawWidths);
+            c = writeHeader(hdr, c, "DG_%", headerStyle, rawWidths);
+            c = writeHeader(hdr, c, "BT_%", headerStyle, rawWidths);
 
             // Failures + replacements
-            c = writeHeader(hdr, c, "FailRoom", headerStyle);
-            c = writeHeader(hdr, c, "FailBus", headerStyle);
-            c = writeHeader(hdr, c, "FailDg", headerStyle);
-            c = writeHeader(hdr, c, "FailWt", headerStyle);
-            c = writeHeader(hdr, c, "FailBt", headerStyle);
-            c = writeHeader(hdr, c, "BtRepl", headerStyle);
-            c = writeHeader(hdr, c, "FailBrk", headerStyle);
+            c = writeHeader(hdr, c, "FailRoom", headerStyle, rawWidths);
+            c = writeHeader(hdr, c, "FailBus", headerStyle, rawWidths);
+            c = writeHeader(hdr, c, "FailDg", headerStyle, rawWidths);
+            c = writeHeader(hdr, c, "FailWt", headerStyle, rawWidths);
+            c = writeHeader(hdr, c, "FailBt", headerStyle, rawWidths);
+            c = writeHeader(hdr, c, "BtRepl", headerStyle, rawWidths);
+            c = writeHeader(hdr, c, "FailBrk", headerStyle, rawWidths);
+
+            // строка заголовка уйдёт из окна SXSSF раньше, чем понадобится число колонок
+            final int rawCols = c;
 
             // ===== RAW rows =====
             // Economics inputs block is written BELOW the results (prices only).
@@ -172,32 +189,25 @@ public final class SweepResultsExcelWriter {
                         p2Val = sp.getSecondCat();
                     }
 
-                    Cell p1 = rr.createCell(cc++);
-                    p1.setCellValue(r2(p1Val));
-                    p1.setCellStyle(centeredNumberStyle);
-
-                    Cell p2 = rr.createCell(cc++);
-                    p2.setCellValue(r2(p2Val));
-                    p2.setCellStyle(centeredNumberStyle);
+                    writeNumber(rr, cc++, p1Val, centeredNumberStyle, rawWidths);
+                    writeNumber(rr, cc++, p2Val, centeredNumberStyle, rawWidths);
 
                 } else if (mode == simcore.Main.RunMode.SWEEP_1) {
-                    Cell p1 = rr.createCell(cc++);
-                    p1.setCellValue(r2(param1[k]));
-                    p1.setCellStyle(centeredNumberStyle);
+                    writeNumber(rr, cc++, param1[k], centeredNumberStyle, rawWidths);
                 }
 
                 // ---- per-run sizes ----
                 final int dgTotKwColIdx = cc;
-                writeNumber(rr, cc++, dgTotalKw, centeredNumberStyle);
+                writeNumber(rr, cc++, dgTotalKw, centeredNumberStyle, rawWidths);
 
                 final int dg1KwColIdx = cc;
-                writeNumber(rr, cc++, dg1Kw, centeredNumberStyle);
+                writeNumber(rr, cc++, dg1Kw, centeredNumberStyle, rawWidths);
 
                 final int wtKwColIdx = cc;
-                writeNumber(rr, cc++, wtTotalKw, centeredNumberStyle);
+                writeNumber(rr, cc++, wtTotalKw, centeredNumberStyle, rawWidths);
 
                 final int btKwhColIdx = cc;
-                writeNumber(rr, cc++, btTotalKwh, centeredNumberStyle);
+                writeNumber(rr, cc++, btTotalKwh, centeredNumberStyle, rawWidths);
 
                 // ---- Econ cell ----
                 final int econColIdx = cc;
@@ -213,27 +223,27 @@ public final class SweepResultsExcelWriter {
                 final int btReplColIdx = econColIdx + 18; // fixed by header order after Econ
 
                 // ---- outputs ----
-                writeNumber(rr, cc++, s.getMean(), centeredNumberStyle);
-                writeNumber(rr, cc++, s.getCiLow(), centeredNumberStyle);
-                writeNumber(rr, cc++, s.getCiHigh(), centeredNumberStyle);
-                writeInt(rr, cc++, s.getRequiredSampleSize(), centeredIntStyle);
-
-                writeNumber(rr, cc++, e.meanEnsCat1Kwh, centeredNumberStyle);
-                writeNumber(rr, cc++, e.meanEnsCat2Kwh, centeredNumberStyle);
-                writeNumber(rr, cc++, fuelML, centeredNumberStyle);
-                writeNumber(rr, cc++, motoKh, centeredNumberStyle);
-                writeNumber(rr, cc++, e.meanWre, centeredNumberStyle);
-                writeNumber(rr, cc++, e.meanWtPct, centeredNumberStyle);
-                writeNumber(rr, cc++, e.meanDgPct, centeredNumberStyle);
-                writeNumber(rr, cc++, e.meanBtPct, centeredNumberStyle);
-
-                writeNumber(rr, cc++, e.meanFailRoom, centeredNumberStyle);
-                writeNumber(rr, cc++, e.meanFailBus, centeredNumberStyle);
-                writeNumber(rr, cc++, e.meanFailDg, centeredNumberStyle);
-                writeNumber(rr, cc++, e.meanFailWt, centeredNumberStyle);
-                writeNumber(rr, cc++, e.meanFailBt, centeredNumberStyle);
-                writeNumber(rr, cc++, e.meanRepBt, centeredNumberStyle);
-                writeNumber(rr, cc++, e.meanFailBrk, centeredNumberStyle);
+                writeNumber(rr, cc++, s.getMean(), centeredNumberStyle, rawWidths);
+                writeNumber(rr, cc++, s.getCiLow(), centeredNumberStyle, rawWidths);
+                writeNumber(rr, cc++, s.getCiHigh(), centeredNumberStyle, rawWidths);
+                writeInt(rr, cc++, s.getRequiredSampleSize(), centeredIntStyle, rawWidths);
+
+                writeNumber(rr, cc++, e.meanEnsCat1Kwh, centeredNumberStyle, rawWidths);
+                writeNumber(rr, cc++, e.meanEnsCat2Kwh, centeredNumberStyle, rawWidths);
+                writeNumber(rr, cc++, fuelML, centeredNumberStyle, rawWidths);
+                writeNumber(rr, cc++, motoKh, centeredNumberStyle, rawWidths);
+                writeNumber(rr, cc++, e.meanWre, centeredNumberStyle, rawWidths);
+                writeNumber(rr, cc++, e.meanWtPct, centeredNumberStyle, rawWidths);
+                writeNumber(rr, cc++, e.meanDgPct, centeredNumberStyle, rawWidths);
+                writeNumber(rr, cc++, e.meanBtPct, centeredNumberStyle, rawWidths);
+
+                writeNumber(rr, cc++, e.meanFailRoom, centeredNumberStyle, rawWidths);
+                writeNumber(rr, cc++, e.meanFailBus, centeredNumberStyle, rawWidths);
+                writeNumber(rr, cc++, e.meanFailDg, centeredNumberStyle, rawWidths);
+                writeNumber(rr, cc++, e.meanFailWt, centeredNumberStyle, rawWidths);
+                writeNumber(rr, cc++, e.meanFailBt, centeredNumberStyle, rawWidths);
+                writeNumber(rr, cc++, e.meanRepBt, centeredNumberStyle, rawWidths);
+                writeNumber(rr, cc++, e.meanFailBrk, centeredNumberStyle, rawWidths);
 
                 // ---- Econ formula ----
                 int baseExcel = econBlockStartRow0 + 1; // 1-based
@@ -294,15 +304,15 @@ public final class SweepResultsExcelWriter {
 
             // ===== Economics inputs table (RAW, below results) =====
             r++; // one blank row
-            r = writeEconomicsInputsBlock(raw, r, econMoneyStyle, headerStyle);
+            r = writeEconomicsInputsBlock(raw, r, econMoneyStyle, headerStyle, rawWidths);
 
-            // Autosize RAW columns except A (keep narrow A)
-            int rawCols = hdr.getLastCellNum();
-            autosizeFrom(raw, rawCols, 1);
+            // Fit RAW columns except A (keep narrow A)
+            rawWidths.applyTo(raw, 1, rawCols);
 
             // ===== SWEEP_2 grid (only for SWEEP_2) =====
             if (mode == simcore.Main.RunMode.SWEEP_2) {
                 Sheet grid = wb.createSheet("SWEEP_2");
+                ColumnWidths gridWidths = new ColumnWidths();
 
                 boolean isTriangular = (param1 != null && param2 != null)
                         && paramSets.size() < (long) param1.length * (long) param2.length;
@@ -334,89 +344,96 @@ public final class SweepResultsExcelWriter {
 
                 if (isTriangular) {
                     top = writeTriangularGridBlock(grid, "Econ", top, param1, param2,
-                            econRange, p1Range, p2Range, centeredNumberStyle, headerStyle);
+                            econRange, p1Range, p2Range, centeredNumberStyle, headerStyle, gridWidths);
                     top = writeTriangularGridBlock(grid, "ENS_mean", top + 2, param1, param2,
-                            ensMeanRange, p1Range, p2Range, centeredNumberStyle, headerStyle);
+                            ensMeanRange, p1Range, p2Range, centeredNumberStyle, headerStyle, gridWidths);
                     top = writeTriangularGridBlock(grid, "Fuel_ML", top + 2, param1, param2,
-                            fuelRange, p1Range, p2Range, centeredNumberStyle, headerStyle);
+                            fuelRange, p1Range, p2Range, centeredNumberStyle, headerStyle, gridWidths);
                     top = writeTriangularGridBlock(grid, "Moto_kh", top + 2, param1, param2,
-                            motoRange, p1Range, p2Range, centeredNumberStyle, headerStyle);
+                            motoRange, p1Range, p2Range, centeredNumberStyle, headerStyle, gridWidths);
                     top = writeTriangularGridBlock(grid, "ENS1_mean", top + 2, param1, param2,
-                            ens1Range, p1Range, p2Range, centeredNumberStyle, headerStyle);
+                            ens1Range, p1Range, p2Range, centeredNumberStyle, headerStyle, gridWidths);
                     top = writeTriangularGridBlock(grid, "ENS2_mean", top + 2, param1, param2,
-                            ens2Range, p1Range, p2Range, centeredNumberStyle, headerStyle);
+                            ens2Range, p1Range, p2Range, centeredNumberStyle, headerStyle, gridWidths);
                     top = writeTriangularGridBlock(grid, "FailRoom", top + 2, param1, param2,
-                            failRoomRange, p1Range, p2Range, centeredNumberStyle, headerStyle);
+                            failRoomRange, p1Range, p2Range, centeredNumberStyle, headerStyle, gridWidths);
                     top = writeTriangularGridBlock(grid, "FailBus", top + 2, param1, param2,
-                            failBusRange, p1Range, p2Range, centeredNumberStyle, headerStyle);
+                            failBusRange, p1Range, p2Range, centeredNumberStyle, headerStyle, gridWidths);
                     top = writeTriangularGridBlock(grid, "FailDg", top + 2, param1, param2,
-                            failDgRange, p1Range, p2Range, centeredNumberStyle, headerStyle);
+                            failDgRange, p1Range, p2Range, centeredNumberStyle, headerStyle, gridWidths);
                     top = writeTriangularGridBlock(grid, "FailWt", top + 2, param1, param2,
-                            failWtRange, p1Range, p2Range, centeredNumberStyle, headerStyle);
+                            failWtRange, p1Range, p2Range, centeredNumberStyle, headerStyle, gridWidths);
                     top = writeTriangularGridBlock(grid, "FailBt", top + 2, param1, param2,
-                            failBtRange, p1Range, p2Range, centeredNumberStyle, headerStyle);
+                            failBtRange, p1Range, p2Range, centeredNumberStyle, headerStyle, gridWidths);
                     top = writeTriangularGridBlock(grid, "BtRepl", top + 2, param1, param2,
-                            btReplRange, p1Range, p2Range, centeredNumberStyle, headerStyle);
+                            btReplRange, p1Range, p2Range, centeredNumberStyle, headerStyle, gridWidths);
                     top = writeTriangularGridBlock(grid, "FailBrk", top + 2, param1, param2,
-                            failBrkRange, p1Range, p2Range, centeredNumberStyle, headerStyle);
+                            failBrkRange, p1Range, p2Range, centeredNumberStyle, headerStyle, gridWidths);
 
                 } else {
                     top = writeGridBlock(grid, "Econ", top, param1, param2,
-                            econRange, p1Range, p2Range, centeredNumberStyle, headerStyle);
+                            econRange, p1Range, p2Range, centeredNumberStyle, headerStyle, gridWidths);
                     top = writeGridBlock(grid, "ENS_mean", top + 2, param1, param2,
-                            ensMeanRange, p1Range, p2Range, centeredNumberStyle, headerStyle);
+                            ensMeanRange, p1Range, p2Range, centeredNumberStyle, headerStyle, gridWidths);
                     top = writeGridBlock(grid, "Fuel_ML", top + 2, param1, param2,
-                            fuelRange, p1Range, p2Range, centeredNumberStyle, headerStyle);
+                            fuelRange, p1Range, p2Range, centeredNumberStyle, headerStyle, gridWidths);
                     top = writeGridBlock(grid, "Moto_kh", top + 2, param1, param2,
-                            motoRange, p1Range, p2Range, centeredNumberStyle, headerStyle);
+                            motoRange, p1Range, p2Range, centeredNumberStyle, headerStyle, gridWidths);
                     top = writeGridBlock(grid, "ENS1_mean", top + 2, param1, param2,
-                            ens1Range, p1Range, p2Range, centeredNumberStyle, headerStyle);
+                            ens1Range, p1Range, p2Range, centeredNumberStyle, headerStyle, gridWidths);
                     top = writeGridBlock(grid, "ENS2_mean", top + 2, param1, param2,
-                            ens2Range, p1Range, p2Range, centeredNumberStyle, headerStyle);
+                            ens2Range, p1Range, p2Range, centeredNumberStyle, headerStyle, gridWidths);
                     top = writeGridBlock(grid, "FailRoom", top + 2, param1, param2,
-                            failRoomRange, p1Range, p2Range, centeredNumberStyle, headerStyle);
+                            failRoomRange, p1Range, p2Range, centeredNumberStyle, headerStyle, gridWidths);
                     top = writeGridBlock(grid, "FailBus", top + 2, param1, param2,
-                            failBusRange, p1Range, p2Range, centeredNumberStyle, headerStyle);
+                            failBusRange, p1Range, p2Range, centeredNumberStyle, headerStyle, gridWidths);
                     top = writeGridBlock(grid, "FailDg", top + 2, param1, param2,
-                            failDgRange, p1Range, p2Range, centeredNumberStyle, headerStyle);
+                            failDgRange, p1Range, p2Range, centeredNumberStyle, headerStyle, gridWidths);
                     top = writeGridBlock(grid, "FailWt", top + 2, param1, param2,
-                            failWtRange, p1Range, p2Range, centeredNumberStyle, headerStyle);
+                            failWtRange, p1Range, p2Range, centeredNumberStyle, headerStyle, gridWidths);
                     top = writeGridBlock(grid, "FailBt", top + 2, param1, param2,
-                            failBtRange, p1Range, p2Range, centeredNumberStyle, headerStyle);
+                            failBtRange, p1Range, p2Range, centeredNumberStyle, headerStyle, gridWidths);
                     top = writeGridBlock(grid, "BtRepl", top + 2, param1, param2,
-                            btReplRange, p1Range, p2Range, centeredNumberStyle, headerStyle);
+                            btReplRange, p1Range, p2Range, centeredNumberStyle, headerStyle, gridWidths);
                     top = writeGridBlock(grid, "FailBrk", top + 2, param1, param2,
-                            failBrkRange, p1Range, p2Range, centeredNumberStyle, headerStyle);
+                            failBrkRange, p1Range, p2Range, centeredNumberStyle, headerStyle, gridWidths);
                 }
 
-                autosizeFrom(grid, Math.max(2, param2.length + 1), 0);
+                gridWidths.applyTo(grid, 0, Math.max(2, param2.length + 1));
             }
 
             try (FileOutputStream out = new FileOutputStream(path)) {
                 wb.write(out);
             }
+        } finally {
+            // временные файлы окна строк
+            wb.dispose();
         }
     }
 
     // ===== Helpers =====
 
-    private static int writeHeader(Row hdr, int col, String text, CellStyle headerStyle) {
+    private static int writeHeader(Row hdr, int col, String text, CellStyle headerStyle, ColumnWidths widths) {
         Cell cell = hdr.createCell(col);
         cell.setCellValue(text);
         cell.setCellStyle(headerStyle);
+        widths.fit(col, text.length());
         return col + 1;
     }
 
-    private static void writeNumber(Row row, int col, double value, CellStyle numStyle) {
+    private static void writeNumber(Row row, int col, double value, CellStyle numStyle, ColumnWidths widths) {
+        double v = r2(value);
         Cell cell = row.createCell(col);
-        cell.setCellValue(r2(value));
+        cell.setCellValue(v);
         cell.setCellStyle(numStyle);
+        widths.fit(col, fixed2Length(v));
     }
 
-    private static void writeInt(Row row, int col, long value, CellStyle intStyle) {
+    private static void writeInt(Row row, int col, long value, CellStyle intStyle, ColumnWidths widths) {
         Cell cell = row.createCell(col);
         cell.setCellValue(value);
         cell.setCellStyle(intStyle);
+        widths.fit(col, Long.toString(value).length());
     }
 
     /**
@@ -428,20 +445,21 @@ public final class SweepResultsExcelWriter {
     private static int writeEconomicsInputsBlock(Sheet raw,
                                                  int startRow0,
                                                  CellStyle moneyStyle,
-                                                 CellStyle headerStyle) {
+                                                 CellStyle headerStyle,
+                                                 ColumnWidths widths) {
 
         // базовые стоимости (целые значения, без дробной части)
-        startRow0 = writeEconRow(raw, startRow0, 2_700_000L,  "РУ", moneyStyle, headerStyle);
-        startRow0 = writeEconRow(raw, startRow0, 60_000L,     "ДГУ 1кВт", moneyStyle, headerStyle);
-        startRow0 = writeEconRow(raw, startRow0, 1_600L,      "ДГУ 1 тыс.мчт/1 кВт", moneyStyle, headerStyle);
-        startRow0 = writeEconRow(raw, startRow0, 90_000_000L, "топливо 1 кт", moneyStyle, headerStyle);
-        startRow0 = writeEconRow(raw, startRow0, 200_000L,    "ВЭУ 1 кВт", moneyStyle, headerStyle);
-        startRow0 = writeEconRow(raw, startRow0, 3_000L,      "ВЭУ 1 кВт/год", moneyStyle, headerStyle);
-        startRow0 = writeEconRow(raw, startRow0, 88_000L,     "АКБ 1 кВт*ч", moneyStyle, headerStyle);
-        startRow0 = writeEconRow(raw, startRow0, 2_200L,      "АКБ 1 кВт*ч/год", moneyStyle, headerStyle);
-        startRow0 = writeEconRow(raw, startRow0, 7_000L,      "ущерб 1 кат за 1 кВт*ч", moneyStyle, headerStyle);
-        startRow0 = writeEconRow(raw, startRow0, 2_100L,      "ущерб 2 кат за 1 кВт*ч", moneyStyle, headerStyle);
-        startRow0 = writeEconRow(raw, startRow0, 700L,        "ущерб 3 кат за 1 кВт*ч", moneyStyle, headerStyle);
+        startRow0 = writeEconRow(raw, startRow0, 2_700_000L,  "РУ", moneyStyle, headerStyle, widths);
+        startRow0 = writeEconRow(raw, startRow0, 60_000L,     "ДГУ 1кВт", moneyStyle, headerStyle, widths);
+        startRow0 = writeEconRow(raw, startRow0, 1_600L,      "ДГУ 1 тыс.мчт/1 кВт", moneyStyle, headerStyle, widths);
+        startRow0 = writeEconRow(raw, startRow0, 90_000_000L, "топливо 1 кт", moneyStyle, headerStyle, widths);
+        startRow0 = writeEconRow(raw, startRow0, 200_000L,    "ВЭУ 1 кВт", moneyStyle, headerStyle, widths);
+        startRow0 = writeEconRow(raw, startRow0, 3_000L,      "ВЭУ 1 кВт/год", moneyStyle, headerStyle, widths);
+        startRow0 = writeEconRow(raw, startRow0, 88_000L,     "АКБ 1 кВт*ч", moneyStyle, headerStyle, widths);
+        startRow0 = writeEconRow(raw, startRow0, 2_200L,      "АКБ 1 кВт*ч/год", moneyStyle, headerStyle, widths);
+        startRow0 = writeEconRow(raw, startRow0, 7_000L,      "ущерб 1 кат за 1 кВт*ч", moneyStyle, headerStyle, widths);
+        startRow0 = writeEconRow(raw, startRow0, 2_100L,      "ущерб 2 кат за 1 кВт*ч", moneyStyle, headerStyle, widths);
+        startRow0 = writeEconRow(raw, startRow0, 700L,        "ущерб 3 кат за 1 кВт*ч", moneyStyle, headerStyle, widths);
 
         raw.setColumnWidth(1, Math.max(raw.getColumnWidth(1), 42 * 256)); // label
         raw.setColumnWidth(0, Math.max(raw.getColumnWidth(0), 16 * 256)); // price/value
@@ -454,7 +472,8 @@ public final class SweepResultsExcelWriter {
                                     long unitValue,
                                     String label,
                                     CellStyle moneyStyle,
-                                    CellStyle headerStyle) {
+                                    CellStyle headerStyle,
+                                    ColumnWidths widths) {
 
         Row r = raw.createRow(row0);
 
@@ -468,6 +487,9 @@ public final class SweepResultsExcelWriter {
         b.setCellValue(label);
         b.setCellStyle(headerStyle);
 
+        widths.fit(0, groupedLength(unitValue));
+        widths.fit(1, label.length());
+
         return row0 + 1;
     }
 
@@ -480,12 +502,14 @@ public final class SweepResultsExcelWriter {
                                       String critRangeP1,
                                       String critRangeP2,
                                       CellStyle numStyle,
-                                      CellStyle headerStyle) {
+                                      CellStyle headerStyle,
+                                      ColumnWidths widths) {
 
         Row t = sh.createRow(topRow++);
         Cell titleCell = t.createCell(0);
         titleCell.setCellValue(title);
         titleCell.setCellStyle(headerStyle);
+        widths.fit(0, title.length());
 
         Row hdr = sh.createRow(topRow++);
         Cell corner = hdr.createCell(0, CellType.STRING);
@@ -493,17 +517,21 @@ public final class SweepResultsExcelWriter {
         corner.setCellStyle(headerStyle);
 
         for (int j = 0; j < param2.length; j++) {
+            String label = fmt2(param2[j]);
             Cell cell = hdr.createCell(1 + j, CellType.STRING);
-            cell.setCellValue(fmt2(param2[j]));
+            cell.setCellValue(label);
             cell.setCellStyle(headerStyle);
+            widths.fit(1 + j, label.length());
         }
 
         for (int i = 0; i < param1.length; i++) {
             Row r = sh.createRow(topRow + i);
 
+            String label = fmt2(param1[i]);
             Cell p1 = r.createCell(0, CellType.STRING);
-            p1.setCellValue(fmt2(param1[i]));
+            p1.setCellValue(label);
             p1.setCellStyle(headerStyle);
+            widths.fit(0, label.length());
 
             int rowExcel = (topRow + i) + 1;
             int hdrExcel = (topRow - 1) + 1;
@@ -533,12 +561,14 @@ public final class SweepResultsExcelWriter {
                                                 String critRangeP1,
                                                 String critRangeP2,
                                                 CellStyle numStyle,
-                                                CellStyle headerStyle) {
+                                                CellStyle headerStyle,
+                                                ColumnWidths widths) {
 
         Row t = sh.createRow(topRow++);
         Cell titleCell = t.createCell(0);
         titleCell.setCellValue(title);
         titleCell.setCellStyle(headerStyle);
+        widths.fit(0, title.length());
 
         Row hdr = sh.createRow(topRow++);
         Cell corner = hdr.createCell(0, CellType.STRING);
@@ -546,17 +576,21 @@ public final class SweepResultsExcelWriter {
         corner.setCellStyle(headerStyle);
 
         for (int j = 0; j < param2.length; j++) {
+            String label = fmt2(param2[j]);
             Cell cell = hdr.createCell(1 + j, CellType.STRING);
-            cell.setCellValue(fmt2(param2[j]));
+            cell.setCellValue(label);
             cell.setCellStyle(headerStyle);
+            widths.fit(1 + j, label.length());
         }
 
         for (int i = 0; i < param1.length; i++) {
             Row r = sh.createRow(topRow + i);
 
+            String label = fmt2(param1[i]);
             Cell p1 = r.createCell(0, CellType.STRING);
-            p1.setCellValue(fmt2(param1[i]));
+            p1.setCellValue(label);
             p1.setCellStyle(headerStyle);
+            widths.fit(0, label.length());
 
             int rowExcel = (topRow + i) + 1;
             int hdrExcel = (topRow - 1) + 1;
@@ -594,8 +628,48 @@ public final class SweepResultsExcelWriter {
         return sb.toString();
     }
 
-    private static void autosizeFrom(Sheet sh, int cols, int fromCol) {
-        for (int i = fromCol; i < cols; i++) sh.autoSizeColumn(i);
+    /**
+     * Ширины колонок по числу символов выведенного текста, как у autoSizeColumn:
+     * самая длинная ячейка плюс один символ запаса. Формулы не учитываются —
+     * у них нет вычисленного значения при записи.
+     */
+    private static final class ColumnWidths {
+        private int[] chars = new int[32];
+
+        void fit(int col, int len) {
+            if (col >= chars.length) chars = Arrays.copyOf(chars, Math.max(col + 1, 2 * chars.length));
+            if (len > chars[col]) chars[col] = len;
+        }
+
+        /** колонки [fromCol, toCol); пустые колонки не трогаются */
+        void applyTo(Sheet sh, int fromCol, int toCol) {
+            for (int i = fromCol; i < toCol && i < chars.length; i++) {
+                if (chars[i] == 0) continue;
+                sh.setColumnWidth(i, Math.min(MAX_COLUMN_WIDTH, (chars[i] + 1) * 256));
+            }
+        }
+    }
+
+    /** длина числа в формате "0.00" */
+    private static int fixed2Length(double v) {
+        if (!Double.isFinite(v)) return 4;
+        long ip = (long) Math.abs(v);
+        return (v < 0 ? 1 : 0) + digits(ip) + 3;
+    }
+
+    /** длина целого в формате "#,##0" */
+    private static int groupedLength(long v) {
+        int d = digits(Math.abs(v));
+        return (v < 0 ? 1 : 0) + d + (d - 1) / 3;
+    }
+
+    private static int digits(long v) {
+        int n = 1;
+        while (v >= 10) {
+            v /= 10;
+            n++;
+        }
+        return n;
     }
 
     private static double r2(double v) {
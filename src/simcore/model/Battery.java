@@ -4,7 +4,7 @@ package simcore.model;
 import simcore.config.SimulationConstants;
 import simcore.config.SystemParameters;
 
-import java.util.Random;
+import java.util.random.RandomGenerator;
 
 /**
  * Аккумуляторная батарея для почасового моделирования.
@@ -41,10 +41,23 @@ public class Battery extends Equipment {
     }
 
     @Override
-    public void initFailureModel(Random rnd, boolean considerFailures) {
+    public void initFailureModel(RandomGenerator rnd, boolean considerFailures) {
         super.initFailureModel(rnd, considerFailures);
     }
 
+    /**
+     * Новая батарея: паспортная ёмкость, стартовый SOC, без накопленной деградации и замен.
+     */
+    @Override
+    public void resetState() {
+        super.resetState();
+        this.maxCapacityKwh = nominalCapacityKwh;
+        this.soc = SimulationConstants.BATTERY_START_SOC;
+        this.efcEff = 0.0;
+        this.replaceOnRepair = false;
+        this.replacementCount = 0;
+    }
+
     /**
      * 1 час: ремонт/отказ (super), затем календарная деградация (опц.), саморазряд, и контроль порога деградации.
      */
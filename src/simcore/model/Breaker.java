@@ -8,6 +8,9 @@ public class Breaker extends Equipment {
     /** true = замкнут, false = разомкнут. */
     private boolean closed;
 
+    /** Состояние, в которое автомат возвращается при {@link #resetState()}. */
+    private final boolean initiallyClosed;
+
     /**
      * @param id                 id автомата
      * @param initiallyClosed    начальное состояние (замкнут/разомкнут)
@@ -20,6 +23,13 @@ public class Breaker extends Equipment {
                    int repairTimeHours) {
         super("BRK", id, failureRatePerYear, repairTimeHours);
         this.closed = initiallyClosed;
+        this.initiallyClosed = initiallyClosed;
+    }
+
+    @Override
+    public void resetState() {
+        super.resetState();
+        this.closed = initiallyClosed;
     }
 
     public boolean isClosed() {
@@ -0,0 +1,99 @@
+package simcore.model;
+
+import java.util.Arrays;
+
+/**
+ * Порядок диспетчеризации ДГУ одной шины, поддерживаемый инкрементально.
+ *
+ * Порядок совпадает с устойчивой сортировкой списка ДГУ шины по
+ * {@link DieselGenerator#DISPATCH_COMPARATOR} (сначала работающие, затем по возрастанию наработки;
+ * при равенстве — в порядке добавления на шину). ДГУ сообщает о каждом изменении
+ * isWorking/timeWorked, и её позиция поправляется сдвигом на соседние места,
+ * вместо полной сортировки при каждом запросе.
+ */
+public final class DgDispatchOrder {
+
+    /** Текущий порядок (всегда отсортирован). */
+    private DieselGenerator[] order = new DieselGenerator[0];
+
+    /** Буфер, который отдаётся наружу через {@link #snapshot()}. */
+    private DieselGenerator[] snapshot = new DieselGenerator[0];
+
+    DgDispatchOrder() {}
+
+    /**
+     * Добавляет ДГУ в конец списка шины (вызывается при сборке системы, не в почасовом цикле).
+     */
+    void add(DieselGenerator dg) {
+        int n = order.length;
+        order = Arrays.copyOf(order, n + 1);
+        snapshot = new DieselGenerator[n + 1];
+
+        dg.dispatchOrder = this;
+        dg.dispatchSlot = n;
+        dg.dispatchPos = n;
+        order[n] = dg;
+        onKeyChanged(dg);
+    }
+
+    public int size() {
+        return order.length;
+    }
+
+    /**
+     * Копия текущего порядка в буфер шины.
+     * Буфер общий для всех вызовов по этой шине: следующий вызов перезаписывает его содержимое.
+     */
+    public DieselGenerator[] snapshot() {
+        System.arraycopy(order, 0, snapshot, 0, order.length);
+        return snapshot;
+    }
+
+    /**
+     * Слияние порядков двух шин в out (длина = сумма числа ДГУ).
+     * Результат совпадает с устойчивой сортировкой списка "ДГУ шины a, затем ДГУ шины b".
+     */
+    public static DieselGenerator[] merge(DgDispatchOrder a, DgDispatchOrder b, DieselGenerator[] out) {
+        DieselGenerator[] oa = a.order;
+        DieselGenerator[] ob = b.order;
+        int i = 0, j = 0, k = 0;
+        while (i < oa.length && j < ob.length) {
+            // при равенстве ключей первой идёт ДГУ шины a
+            if (DieselGenerator.DISPATCH_COMPARATOR.compare(ob[j], oa[i]) < 0) {
+                out[k++] = ob[j++];
+            } else {
+                out[k++] = oa[i++];
+            }
+        }
+        while (i < oa.length) out[k++] = oa[i++];
+        while (j < ob.length) out[k++] = ob[j++];
+        return out;
+    }
+
+    /**
+     * Восстанавливает порядок после изменения ключа одной ДГУ (остальные не менялись).
+     */
+    void onKeyChanged(DieselGenerator dg) {
+        int pos = dg.dispatchPos;
+
+        while (pos > 0 && before(dg, order[pos - 1])) {
+            move(order[pos - 1], pos);
+            pos--;
+        }
+        while (pos < order.length - 1 && before(order[pos + 1], dg)) {
+            move(order[pos + 1], pos);
+            pos++;
+        }
+        move(dg, pos);
+    }
+
+    private void move(DieselGenerator dg, int pos) {
+        order[pos] = dg;
+        dg.dispatchPos = pos;
+    }
+
+    private static boolean before(DieselGenerator x, DieselGenerator y) {
+        int c = DieselGenerator.DISPATCH_COMPARATOR.compare(x, y);
+        return c < 0 || (c == 0 && x.dispatchSlot < y.dispatchSlot);
+    }
+}
@@ -3,7 +3,7 @@ package simcore.model;
 import simcore.config.SimulationConstants;
 
 import java.util.Comparator;
-import java.util.Random;
+import java.util.random.RandomGenerator;
 
 /**
  * Дизель-генератор с:
@@ -33,6 +33,13 @@ public class DieselGenerator extends Equipment {
     private boolean inMaintenance = false;
     private boolean isIdle = false;
 
+    // ===== Порядок диспетчеризации на шине (см. DgDispatchOrder) =====
+    DgDispatchOrder dispatchOrder;
+    /** Номер ДГУ в списке шины. */
+    int dispatchSlot;
+    /** Текущая позиция в порядке диспетчеризации. */
+    int dispatchPos;
+
     // ===== Fuel model constants (из старого кода) =====
     private static final double K11 = 0.0185;
     private static final double K21 = -0.0361;
@@ -116,19 +123,41 @@ public class DieselGenerator extends Equipment {
     }
 
     @Override
-    public void initFailureModel(Random rnd, boolean considerFailures) {
+    public void initFailureModel(RandomGenerator rnd, boolean considerFailures) {
         super.initFailureModel(rnd, considerFailures);
         this.hoursSinceMaintenance = 0.0;
         this.maintenanceCount = 0;
         this.inMaintenance = false;
+        dispatchKeyChanged();
+    }
+
+    @Override
+    public void resetState() {
+        super.resetState();
+        this.currentLoad = 0.0;
+        this.totalTimeWorked = 0;
+        this.idleTime = 0;
+        this.hoursSinceMaintenance = 0.0;
+        this.maintenanceCount = 0;
+        this.isWorking = true;
+        this.inMaintenance = false;
+        this.isIdle = false;
+        this.wasIdleThisHour = false;
+        dispatchKeyChanged();
     }
 
     public void startWork() {
-        if (isAvailable()) isWorking = true;
+        if (isAvailable() && !isWorking) {
+            isWorking = true;
+            dispatchKeyChanged();
+        }
     }
 
     public void stopWork() {
-        isWorking = false;
+        if (isWorking) {
+            isWorking = false;
+            dispatchKeyChanged();
+        }
     }
 
     public void addWorkTime(int hours, int motoHours) {
@@ -136,9 +165,38 @@ public class DieselGenerator extends Equipment {
             timeWorked += motoHours;
             totalTimeWorked += motoHours;
             hoursSinceMaintenance += hours;
+            dispatchKeyChanged();
+            if (isFailureDue()) notifyFailureStateChanged();
         }
     }
 
+    /**
+     * Кроме случайного отказа учитывает наступление срока ТО.
+     */
+    @Override
+    public boolean isFailureDue() {
+        return hoursSinceMaintenance >= MAINTENANCE_INTERVAL_HOURS || super.isFailureDue();
+    }
+
+    @Override
+    public void addWorkTime(int hours) {
+        super.addWorkTime(hours);
+        dispatchKeyChanged();
+    }
+
+    @Override
+    public void forceFailNow() {
+        super.forceFailNow();
+        dispatchKeyChanged();
+    }
+
+    /**
+     * Сообщает шине, что изменился ключ сортировки (isWorking / timeWorked).
+     */
+    private void dispatchKeyChanged() {
+        if (dispatchOrder != null) dispatchOrder.onKeyChanged(this);
+    }
+
     public double getAvailablePowerKw(double demandedKw) {
         if (!isAvailable()) return 0.0;
         if (demandedKw <= 0.0) return 0.0;
@@ -171,11 +229,13 @@ public class DieselGenerator extends Equipment {
                 status = true;
 
                 if (!inMaintenance) {
+                    closeFailureDraw(false);
                     timeWorked = 0;
+                    dispatchKeyChanged();
 
                     double lambdaYear = getFailureRatePerYear();
                     if (lambdaYear > 0.0 && failureRandom != null) {
-                        nextFailureTimeHours = generateNextFailureTime(lambdaYear, failureRandom);
+                        nextFailureTimeHours = drawNextFailureTime(lambdaYear);
                     } else {
                         nextFailureTimeHours = Double.POSITIVE_INFINITY;
                     }
@@ -203,11 +263,13 @@ public class DieselGenerator extends Equipment {
 
             isWorking = false;
             currentLoad = 0.0;
+            dispatchKeyChanged();
             return;
         }
 
         // Случайный отказ
         if (getFailureRatePerYear() > 0.0 && timeWorked >= nextFailureTimeHours) {
+            closeFailureDraw(true);
             status = false;
             inMaintenance = false;
             failureCount++;
@@ -215,6 +277,7 @@ public class DieselGenerator extends Equipment {
 
             isWorking = false;
             currentLoad = 0.0;
+            dispatchKeyChanged();
         }
     }
 
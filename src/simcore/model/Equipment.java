@@ -1,6 +1,6 @@
 package simcore.model;
 
-import java.util.Random;
+import java.util.random.RandomGenerator;
 
 /**
  * Базовый класс оборудования.
@@ -35,7 +35,31 @@ public abstract class Equipment {
     protected int failureCount = 0;
 
     /** Генератор случайных чисел для отказов. */
-    protected transient Random failureRandom;
+    protected transient RandomGenerator failureRandom;
+
+    /**
+     * Importance sampling: время до отказа разыгрывается с интенсивностью failureRateBias * λ,
+     * а логарифм отношения правдоподобия исходной и смещённой моделей копится в logLikelihoodRatio.
+     * 1.0 — без смещения (учёт не ведётся).
+     */
+    private double failureRateBias = 1.0;
+    private double logLikelihoodRatio;
+
+    /** λ (1/год) и время текущего, ещё не закрытого розыгрыша; NaN — открытого розыгрыша нет. */
+    private double drawRatePerYear = Double.NaN;
+    private double drawHours;
+
+    /**
+     * Центрированное число отказов: сумма по розыгрышам 1{t ≤ τ} - λ' min(t, τ), где τ — наработка
+     * розыгрыша, λ' — интенсивность, с которой он сделан. Компенсатор пуассоновского потока по наработке,
+     * поэтому среднее ровно 0 при любых правилах наработки и ремонта (контрольная переменная MC).
+     * Принудительные отказы ({@link #forceFailNow()}) сюда не входят.
+     */
+    private double centredFailureCount;
+
+    /** Планировщик событий отказов (null — оборудование обновляется каждый час). */
+    private transient FailureEventListener failureEventListener;
+    private int failureEventSlot;
 
     protected Equipment(String typeCode, int id) {
         this(typeCode, id, 0.0, 0);
@@ -67,6 +91,33 @@ public abstract class Equipment {
         this.failureRatePerYear = failureRatePerYear;
     }
 
+    /**
+     * Множитель интенсивности отказов для importance sampling (1.0 — выключено).
+     * Задаётся до {@link #initFailureModel}.
+     */
+    public void setFailureRateBias(double failureRateBias) {
+        if (!(failureRateBias > 0.0)) throw new IllegalArgumentException("failureRateBias must be > 0");
+        this.failureRateBias = failureRateBias;
+    }
+
+    /**
+     * Закрывает открытый розыгрыш как цензурированный (отказа не было до конца прогона)
+     * и возвращает ln отношения правдоподобия прогона для этой единицы; 0 без смещения.
+     */
+    public double finishLogLikelihoodRatio() {
+        closeFailureDraw(false);
+        return logLikelihoodRatio;
+    }
+
+    /**
+     * Закрывает открытый розыгрыш как цензурированный и возвращает центрированное число отказов
+     * за прогон (см. {@link #centredFailureCount}); 0, если отказы не разыгрывались.
+     */
+    public double finishCentredFailureCount() {
+        closeFailureDraw(false);
+        return centredFailureCount;
+    }
+
     public int getRepairTimeHours() {
         return repairTimeHours;
     }
@@ -79,10 +130,45 @@ public abstract class Equipment {
         return timeWorked;
     }
 
+    /**
+     * Оставшееся время ремонта, ч.
+     * Для оборудования, обновляемого планировщиком событий, промежуточные часы ремонта
+     * не отсчитываются (см. {@link #skipToLastRepairHour()}), значит здесь важен только признак &gt; 0.
+     */
     public int getRepairDurationHours() {
         return repairDurationHours;
     }
 
+    /**
+     * Подписка на изменения состояния отказа (null — отписка).
+     *
+     * @param slot номер оборудования у подписчика, передаётся обратно в callback
+     */
+    public void setFailureEventListener(FailureEventListener listener, int slot) {
+        this.failureEventListener = listener;
+        this.failureEventSlot = slot;
+    }
+
+    /**
+     * true, если исправное оборудование откажет при ближайшем {@link #updateFailureOneHour(boolean)}.
+     */
+    public boolean isFailureDue() {
+        return failureRatePerYear > 0.0 && timeWorked >= nextFailureTimeHours;
+    }
+
+    /**
+     * Пропуск промежуточных часов ремонта: остаётся один час, который снимет
+     * ближайший {@link #updateFailureOneHour(boolean)} (и завершит ремонт).
+     * Используется планировщиком событий отказов в час окончания ремонта.
+     */
+    public void skipToLastRepairHour() {
+        if (repairDurationHours > 1) repairDurationHours = 1;
+    }
+
+    protected final void notifyFailureStateChanged() {
+        if (failureEventListener != null) failureEventListener.onFailureStateChanged(failureEventSlot);
+    }
+
     public int getFailureCount() {
         return failureCount;
     }
@@ -97,23 +183,44 @@ public abstract class Equipment {
     /**
      * Инициализация модели отказов перед одним прогоном Monte Carlo.
      *
-     * @param rnd              генератор случайных чисел для этого типа оборудования
+     * @param rnd              генератор случайных чисел (общий для типа или свой у компонента,
+     *                         см. {@code SeedScheme})
      * @param considerFailures учитывать ли отказы
      */
-    public void initFailureModel(Random rnd, boolean considerFailures) {
+    public void initFailureModel(RandomGenerator rnd, boolean considerFailures) {
         this.failureRandom = rnd;
         this.timeWorked = 0;
         this.repairDurationHours = 0;
         this.failureCount = 0;
         this.status = true;
+        this.logLikelihoodRatio = 0.0;
+        this.centredFailureCount = 0.0;
+        this.drawRatePerYear = Double.NaN;
 
         if (considerFailures && failureRatePerYear > 0.0 && failureRandom != null) {
-            this.nextFailureTimeHours = generateNextFailureTime(failureRatePerYear, failureRandom);
+            this.nextFailureTimeHours = drawNextFailureTime(failureRatePerYear);
         } else {
             this.nextFailureTimeHours = Double.POSITIVE_INFINITY;
         }
     }
 
+    /**
+     * Сброс динамического состояния к исходному (как сразу после конструктора).
+     * Используется при переиспользовании одного и того же PowerSystem между итерациями Monte Carlo;
+     * после сброса по-прежнему нужно вызвать {@link #initFailureModel(RandomGenerator, boolean)}.
+     */
+    public void resetState() {
+        this.status = true;
+        this.timeWorked = 0;
+        this.nextFailureTimeHours = Double.POSITIVE_INFINITY;
+        this.repairDurationHours = 0;
+        this.failureCount = 0;
+        this.failureRandom = null;
+        this.logLikelihoodRatio = 0.0;
+        this.centredFailureCount = 0.0;
+        this.drawRatePerYear = Double.NaN;
+    }
+
     /**
      * Базовое обновление состояния отказа/ремонта на один час.
      * Используется для оборудования без особых правил (например, ВЭУ, шины, автомат).
@@ -130,10 +237,11 @@ public abstract class Equipment {
             if (repairDurationHours <= 0) {
                 repairDurationHours = 0;
                 status = true;
+                closeFailureDraw(false); // замена АКБ по деградации прерывает наработку без отказа
                 timeWorked = 0;
 
                 if (failureRatePerYear > 0.0 && failureRandom != null) {
-                    nextFailureTimeHours = generateNextFailureTime(failureRatePerYear, failureRandom);
+                    nextFailureTimeHours = drawNextFailureTime(failureRatePerYear);
                 } else {
                     nextFailureTimeHours = Double.POSITIVE_INFINITY;
                 }
@@ -150,6 +258,7 @@ public abstract class Equipment {
         // Проверка на случайный отказ по наработке
         if (failureRatePerYear > 0.0
                 && timeWorked >= nextFailureTimeHours) {
+            closeFailureDraw(true);
             status = false;
             failureCount++;
             repairDurationHours = repairTimeHours;
@@ -166,6 +275,7 @@ public abstract class Equipment {
         }
         if (status && repairDurationHours == 0) {
             timeWorked += hours;
+            if (isFailureDue()) notifyFailureStateChanged();
         }
     }
 
@@ -173,10 +283,12 @@ public abstract class Equipment {
      * Принудительный вывод оборудования в отказ с назначением ремонта.
      */
     public void forceFailNow() {
+        closeFailureDraw(false);
         this.status = false;
         this.timeWorked = 0;
         this.repairDurationHours = repairTimeHours;
         this.failureCount++;
+        notifyFailureStateChanged();
     }
 
     /**
@@ -187,6 +299,42 @@ public abstract class Equipment {
         // по умолчанию — ничего
     }
 
+    /**
+     * Время до следующего отказа: по исходной интенсивности или, при importance sampling,
+     * по смещённой (failureRateBias * λ). Розыгрыш запоминается до {@link #closeFailureDraw}.
+     */
+    protected final double drawNextFailureTime(double failureRatePerYear) {
+        double t = generateNextFailureTime(failureRatePerYear * failureRateBias, failureRandom);
+        drawRatePerYear = failureRatePerYear;
+        drawHours = t;
+        return t;
+    }
+
+    /**
+     * Закрывает открытый розыгрыш.
+     * Центрированное число отказов: + 1{t ≤ τ} - kλ min(t, τ), τ — наработка к моменту закрытия.
+     * Отношение правдоподобия (при k != 1): розыгрыш истёк (t ≤ τ — отказ случился или был бы отмечен,
+     * но наработку прервали конец горизонта, принудительный отказ, замена или ТО) — f(t) / g(t) = e^{(k-1) λ t} / k;
+     * наработка прервана раньше, t > τ — S_f(τ) / S_g(τ) = e^{(k-1) λ τ} (k — failureRateBias, λ в 1/ч).
+     */
+    protected final void closeFailureDraw(boolean realized) {
+        if (Double.isNaN(drawRatePerYear)) return;
+
+        double ratePerHour = drawRatePerYear / 8760.0;
+        double exposure = realized ? drawHours : Math.min(timeWorked, drawHours);
+        boolean expired = realized || timeWorked >= drawHours;
+        centredFailureCount += (expired ? 1.0 : 0.0) - failureRateBias * ratePerHour * exposure;
+
+        if (failureRateBias != 1.0) {
+            if (expired) {
+                logLikelihoodRatio += (failureRateBias - 1.0) * ratePerHour * drawHours - Math.log(failureRateBias);
+            } else {
+                logLikelihoodRatio += (failureRateBias - 1.0) * ratePerHour * exposure;
+            }
+        }
+        drawRatePerYear = Double.NaN;
+    }
+
     /**
      * Генерация времени до отказа по экспоненциальному распределению.
      *
@@ -194,7 +342,7 @@ public abstract class Equipment {
      * @param rnd                генератор случайных чисел
      * @return время до отказа в часах
      */
-    protected static double generateNextFailureTime(double failureRatePerYear, Random rnd) {
+    protected static double generateNextFailureTime(double failureRatePerYear, RandomGenerator rnd) {
         if (failureRatePerYear <= 0.0) {
             return Double.POSITIVE_INFINITY;
         }
@@ -0,0 +1,16 @@
+package simcore.model;
+
+/**
+ * Подписчик изменений состояния отказа оборудования (планировщик событий отказов прогона).
+ *
+ * Оборудование сообщает о моменте, когда ему снова нужно обновление отказа:
+ * наработка достигла времени отказа / ТО, либо оборудование выведено в ремонт извне.
+ */
+public interface FailureEventListener {
+
+    /**
+     * @param slot номер оборудования, выданный при подписке
+     *             ({@link Equipment#setFailureEventListener(FailureEventListener, int)})
+     */
+    void onFailureStateChanged(int slot);
+}
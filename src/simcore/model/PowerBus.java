@@ -16,6 +16,13 @@ public class PowerBus extends Equipment {
     private final List<DieselGenerator> dieselGenerators = new ArrayList<>();
     private Battery battery;
 
+    // read-only представления создаются один раз: геттеры вызываются в почасовом цикле
+    private final List<WindTurbine> windTurbinesView = Collections.unmodifiableList(windTurbines);
+    private final List<DieselGenerator> dieselGeneratorsView = Collections.unmodifiableList(dieselGenerators);
+
+    /** Порядок диспетчеризации ДГУ шины, обновляется самими ДГУ. */
+    private final DgDispatchOrder dgDispatchOrder = new DgDispatchOrder();
+
     /**
      * @param id                 id шины
      * @param loadKw             массив нагрузки по часам, кВт
@@ -35,23 +42,39 @@ public class PowerBus extends Equipment {
     }
 
     public List<WindTurbine> getWindTurbines() {
-        return Collections.unmodifiableList(windTurbines);
+        return windTurbinesView;
     }
 
     public List<DieselGenerator> getDieselGenerators() {
-        return Collections.unmodifiableList(dieselGenerators);
+        return dieselGeneratorsView;
+    }
+
+    public DgDispatchOrder getDgDispatchOrder() {
+        return dgDispatchOrder;
     }
 
     public Battery getBattery() {
         return battery;
     }
 
+    /**
+     * Сбрасывает состояние шины и всего подключённого оборудования (ВЭУ, ДГУ, АКБ).
+     */
+    @Override
+    public void resetState() {
+        super.resetState();
+        for (WindTurbine wt : windTurbines) wt.resetState();
+        for (DieselGenerator dg : dieselGenerators) dg.resetState();
+        if (battery != null) battery.resetState();
+    }
+
     public void addWindTurbine(WindTurbine wt) {
         windTurbines.add(wt);
     }
 
     public void addDieselGenerator(DieselGenerator dg) {
         dieselGenerators.add(dg);
+        dgDispatchOrder.add(dg);
     }
 
     public void setBattery(Battery battery) {
@@ -23,15 +23,20 @@ public class PowerSystem {
      */
     private final int[] roomIndexByBus;
 
+    private final List<PowerBus> busesView;
+    private final List<SwitchgearRoom> roomsView;
+
     public PowerSystem(List<PowerBus> buses, Breaker tieBreaker, List<SwitchgearRoom> rooms, int[] roomIndexByBus) {
         this.buses = buses;
         this.tieBreaker = tieBreaker;
         this.rooms = rooms;
         this.roomIndexByBus = roomIndexByBus;
+        this.busesView = Collections.unmodifiableList(buses);
+        this.roomsView = Collections.unmodifiableList(rooms);
     }
 
     public List<PowerBus> getBuses() {
-        return Collections.unmodifiableList(buses);
+        return busesView;
     }
 
     /**
@@ -43,7 +48,7 @@ public class PowerSystem {
     }
 
     public List<SwitchgearRoom> getRooms() {
-        return Collections.unmodifiableList(rooms);
+        return roomsView;
     }
 
     public int[] getRoomIndexByBus() {
@@ -53,4 +58,15 @@ public class PowerSystem {
     public SwitchgearRoom getRoomForBus(int busIndex) {
         return rooms.get(roomIndexByBus[busIndex]);
     }
+
+    /**
+     * Возвращает всю систему в исходное состояние (как сразу после {@link PowerSystemBuilder#build}),
+     * не пересоздавая объекты: отказы/ремонты, наработка, счётчики, таймеры ДГУ, SOC и деградация АКБ.
+     * Модели отказов после сброса нужно инициализировать заново.
+     */
+    public void reset() {
+        for (PowerBus bus : buses) bus.resetState();
+        if (tieBreaker != null) tieBreaker.resetState();
+        for (SwitchgearRoom room : rooms) room.resetState();
+    }
 }
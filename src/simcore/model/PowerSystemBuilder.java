@@ -16,12 +16,26 @@ public class PowerSystemBuilder {
      * @param totalLoadKw общий профиль нагрузки (как в исходном файле), кВт
      */
     public PowerSystem build(SystemParameters params, double[] totalLoadKw) {
+        // Распределение нагрузки по шинам
+        double[][] busLoads = splitLoad(totalLoadKw, busCountFor(params.getBusSystemType()));
+        return build(params, busLoads);
+    }
 
-        BusSystemType busType = params.getBusSystemType();
-        int busCount = (busType == BusSystemType.SINGLE_NOT_SECTIONAL_BUS) ? 1 : 2;
+    /**
+     * Вариант с готовыми профилями нагрузки по шинам (см. {@link #splitLoad(double[], int)}).
+     * Массивы не копируются и используются только на чтение, поэтому их можно разделять
+     * между итерациями Monte Carlo и потоками.
+     *
+     * @param params   параметры энергосистемы
+     * @param busLoads профили нагрузки по шинам, кВт; длина = {@link #busCountFor(BusSystemType)}
+     */
+    public PowerSystem build(SystemParameters params, double[][] busLoads) {
 
-        // Распределение нагрузки по шинам
-        double[][] busLoads = splitLoad(totalLoadKw, busCount);
+        BusSystemType busType = params.getBusSystemType();
+        int busCount = busCountFor(busType);
+        if (busLoads.length != busCount) {
+            throw new IllegalArgumentException("busLoads.length=" + busLoads.length + ", expected " + busCount);
+        }
 
         // ===== Разложение отказов: независимый отказ секции + отказ помещения/РУ (CCF) =====
         // Если switchgearRoomFailureRatePerYear задан явно (>0) — используем его.
@@ -160,13 +174,20 @@ public class PowerSystemBuilder {
         return new PowerSystem(buses, breaker, rooms, roomIndexByBus);
     }
 
+    /**
+     * Количество шин (секций) для заданного типа системы шин.
+     */
+    public static int busCountFor(BusSystemType busType) {
+        return (busType == BusSystemType.SINGLE_NOT_SECTIONAL_BUS) ? 1 : 2;
+    }
+
     /**
      * Простейшее равномерное деление нагрузки по шинам.
      * Если 1 шина — вся нагрузка на неё.
      * Если 2 — половина на каждую.
      * Больше 2 шин сейчас не используем, но можно расширить при необходимости.
      */
-    private double[][] splitLoad(double[] totalLoadKw, int busCount) {
+    public static double[][] splitLoad(double[] totalLoadKw, int busCount) {
         double[][] result = new double[busCount][totalLoadKw.length];
 
         if (busCount == 1) {
@@ -30,7 +30,14 @@ public class WindTurbine extends Equipment {
         if (!isAvailable()) {
             return 0.0;
         }
+        return potentialGenerationKw(ratedPowerKw, windSpeedMs);
+    }
 
+    /**
+     * Выдача одной исправной ВЭУ заданной мощности при скорости ветра windSpeedMs, кВт.
+     * Не зависит от состояния оборудования, поэтому ряд по часам можно посчитать заранее.
+     */
+    public static double potentialGenerationKw(double ratedPowerKw, double windSpeedMs) {
         if (windSpeedMs < V_CUT_IN_MS || windSpeedMs >= V_CUT_OUT_MS) {
             return 0.0;
         }
@@ -45,4 +52,15 @@ public class WindTurbine extends Equipment {
         double p = EFFICIENCY * ratedPowerKw * (num / den);
         return Math.max(0.0, p);
     }
+
+    /**
+     * Почасовой ряд выдачи одной исправной ВЭУ, кВт.
+     */
+    public static double[] potentialGenerationSeriesKw(double ratedPowerKw, double[] windMs) {
+        double[] out = new double[windMs.length];
+        for (int t = 0; t < windMs.length; t++) {
+            out[t] = potentialGenerationKw(ratedPowerKw, windMs[t]);
+        }
+        return out;
+    }
 }
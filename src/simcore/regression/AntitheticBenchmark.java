@@ -0,0 +1,107 @@
+package simcore.regression;
+
+import simcore.config.BusSystemType;
+import simcore.config.SimulationConfig;
+import simcore.config.SystemParameters;
+import simcore.config.SystemParametersBuilder;
+import simcore.engine.MonteCarloEstimate;
+import simcore.engine.MonteCarloRunner;
+import simcore.engine.SimInput;
+import simcore.engine.SingleRunSimulator;
+import simcore.engine.failures.SeedScheme;
+import simcore.engine.trace.ColumnarTraceSession;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Сравнение обычного MC и антитетических пар ({@link MonteCarloRunner} с antithetic = true)
+ * при одинаковом числе прогонов: полуширина CI ENS, процессорное время и эффективность
+ * 1 / (halfWidth^2 * cpuSec) — во сколько раз меньше CPU нужно для той же точности.
+ * Выигрыш зависит от того, насколько ENS монотонен по временам отказов: при редких отказах
+ * (ENS — совпадения отказов) он мал, при частых — заметен; rateFactor умножает все интенсивности отказов.
+ *
+ * Usage: AntitheticBenchmark [iterations] [LEGACY|SPLITTABLE] [rateFactor]
+ */
+public final class AntitheticBenchmark {
+
+    private static final int HOURS = 24 * 365;
+    private static final long SEED = 123456789L;
+    private static final int WARMUP_ITERATIONS = 200;
+
+    private AntitheticBenchmark() {}
+
+    public static void main(String[] args) throws Exception {
+        int iterations = (args.length > 0) ? Integer.parseInt(args[0]) : 400;
+        SeedScheme scheme = (args.length > 1) ? SeedScheme.valueOf(args[1]) : SeedScheme.SPLITTABLE;
+        double rateFactor = (args.length > 2) ? Double.parseDouble(args[2]) : 1.0;
+
+        com.sun.management.OperatingSystemMXBean os =
+                (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+        SimInput input = input(BusSystemType.DOUBLE_BUS, rateFactor);
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            boolean[] modes = {false, true};
+            MonteCarloRunner[] runners = new MonteCarloRunner[modes.length];
+            for (int i = 0; i < modes.length; i++) {
+                runners[i] = new MonteCarloRunner(pool,
+                        new SingleRunSimulator(ColumnarTraceSession::new, scheme),
+                        false, 1.96, 0.1, null, null, modes[i]);
+            }
+            // прогрев JIT обоими режимами до замеров, иначе первый режим платит за компиляцию
+            for (MonteCarloRunner runner : runners) {
+                runner.evaluateForTheta(input, null, null, WARMUP_ITERATIONS, SEED + 1, false);
+            }
+
+            double plainEfficiency = 0.0;
+            for (int i = 0; i < modes.length; i++) {
+                boolean antithetic = modes[i];
+                MonteCarloRunner runner = runners[i];
+
+                long cpuBefore = os.getProcessCpuTime();
+                MonteCarloEstimate e = runner.evaluateForTheta(input, null, null, iterations, SEED, false);
+                double cpuSec = (os.getProcessCpuTime() - cpuBefore) / 1e9;
+
+                double halfWidth = 0.5 * (e.ensStats.getCiHigh() - e.ensStats.getCiLow());
+                double efficiency = 1.0 / (halfWidth * halfWidth * cpuSec);
+                if (!antithetic) plainEfficiency = efficiency;
+
+                System.out.printf("%-10s x%-4.1f %-10s runs=%d N=%d ENS=%.1f kWh, CI +-%.1f (%.1f%%), cpu=%.1f s, eff=%.3e%s%n",
+                        scheme, rateFactor, antithetic ? "antithetic" : "plain",
+                        iterations, e.ensStats.getActualSampleSize(),
+                        e.ensStats.getMean(), halfWidth, 100.0 * halfWidth / Math.abs(e.ensStats.getMean()),
+                        cpuSec, efficiency,
+                        antithetic ? String.format(" (x%.2f vs plain)", efficiency / plainEfficiency) : "");
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Годовые детерминированные ряды как в {@link HourLoopAllocationCheck}, АКБ 300 кВт·ч,
+     * отказы включены, интенсивности отказов умножены на rateFactor.
+     */
+    private static SimInput input(BusSystemType type, double rateFactor) {
+        final double[] wind = new double[HOURS];
+        final double[] load = new double[HOURS];
+        for (int t = 0; t < HOURS; t++) {
+            double dayPhase = 2.0 * Math.PI * (t % 24) / 24.0;
+            load[t] = Math.max(0.0, 600.0 + 200.0 * Math.sin(dayPhase) + 50.0 * Math.sin(2.0 * dayPhase));
+            double weekPhase = 2.0 * Math.PI * (t % (24 * 7)) / (24 * 7);
+            wind[t] = Math.max(0.0, 7.0 + 3.0 * Math.sin(weekPhase) + 1.0 * Math.sin(3.0 * weekPhase));
+        }
+        SystemParameters base = RegressionRunner.defaultParams(type, 300.0);
+        SystemParameters sp = SystemParametersBuilder.from(base)
+                .setWindTurbineFailureRatePerYear(base.getWindTurbineFailureRatePerYear() * rateFactor)
+                .setDieselGeneratorFailureRatePerYear(base.getDieselGeneratorFailureRatePerYear() * rateFactor)
+                .setBatteryFailureRatePerYear(base.getBatteryFailureRatePerYear() * rateFactor)
+                .setBusFailureRatePerYear(base.getBusFailureRatePerYear() * rateFactor)
+                .setBreakerFailureRatePerYear(base.getBreakerFailureRatePerYear() * rateFactor)
+                .setSwitchgearRoomFailureRatePerYear(base.getSwitchgearRoomFailureRatePerYear() * rateFactor)
+                .build();
+        SimulationConfig cfg = RegressionRunner.defaultConfig(wind);
+        return new SimInput(cfg, sp, load);
+    }
+}
@@ -0,0 +1,92 @@
+package simcore.regression;
+
+import simcore.config.BusSystemType;
+import simcore.config.SimulationConfig;
+import simcore.config.SystemParameters;
+import simcore.engine.SimInput;
+import simcore.engine.SingleRunSimulator;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Проверка, что почасовой цикл {@link SingleRunSimulator#simulate} не создаёт объектов.
+ *
+ * Сравнивает число байт, выделенных потоком за прогон на двух горизонтах (N и 2N часов):
+ * аллокации на уровне прогона (рабочие буферы, метрики) от горизонта не зависят,
+ * поэтому разница должна быть нулевой. Нужна HotSpot JVM (com.sun.management.ThreadMXBean).
+ *
+ * Usage: HourLoopAllocationCheck
+ */
+public final class HourLoopAllocationCheck {
+
+    private static final int BASE_HOURS = 24 * 7 * 4;
+    private static final int WARMUP_RUNS = 200;
+    private static final int MEASURE_RUNS = 20;
+    private static final long SEED = 123456789L;
+
+    private HourLoopAllocationCheck() {}
+
+    public static void main(String[] args) {
+        com.sun.management.ThreadMXBean mx =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!mx.isThreadAllocatedMemorySupported()) {
+            System.err.println("Thread allocated memory is not supported by this JVM");
+            System.exit(2);
+        }
+        mx.setThreadAllocatedMemoryEnabled(true);
+
+        boolean ok = true;
+        for (BusSystemType type : BusSystemType.values()) {
+            SimInput shortRun = input(type, BASE_HOURS);
+            SimInput longRun = input(type, 2 * BASE_HOURS);
+            SingleRunSimulator sim = new SingleRunSimulator();
+
+            for (int i = 0; i < WARMUP_RUNS; i++) {
+                sim.simulate(shortRun, SEED + i, false);
+                sim.simulate(longRun, SEED + i, false);
+            }
+
+            long shortBytes = minAllocatedBytes(mx, sim, shortRun);
+            long longBytes = minAllocatedBytes(mx, sim, longRun);
+            long perExtraHours = longBytes - shortBytes;
+
+            System.out.println(type + ": run(" + BASE_HOURS + "h)=" + shortBytes + " B, run("
+                    + (2 * BASE_HOURS) + "h)=" + longBytes + " B, delta=" + perExtraHours + " B");
+            if (perExtraHours != 0) ok = false;
+        }
+
+        if (!ok) {
+            throw new AssertionError("Hourly loop allocates: allocated bytes grow with the horizon");
+        }
+        System.out.println("OK: hourly loop is allocation-free");
+    }
+
+    private static long minAllocatedBytes(com.sun.management.ThreadMXBean mx,
+                                          SingleRunSimulator sim,
+                                          SimInput input) {
+        long tid = Thread.currentThread().getId();
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURE_RUNS; i++) {
+            long before = mx.getThreadAllocatedBytes(tid);
+            sim.simulate(input, SEED + i, false);
+            long after = mx.getThreadAllocatedBytes(tid);
+            min = Math.min(min, after - before);
+        }
+        return min;
+    }
+
+    /** Детерминированные ряды как в {@link RegressionRunner}, АКБ 300 кВт·ч, отказы включены. */
+    private static SimInput input(BusSystemType type, int hours) {
+        final double[] wind = new double[hours];
+        final double[] load = new double[hours];
+        for (int t = 0; t < hours; t++) {
+            double dayPhase = 2.0 * Math.PI * (t % 24) / 24.0;
+            load[t] = Math.max(0.0, 600.0 + 200.0 * Math.sin(dayPhase) + 50.0 * Math.sin(2.0 * dayPhase));
+            double weekPhase = 2.0 * Math.PI * (t % (24 * 7)) / (24 * 7);
+            wind[t] = Math.max(0.0, 7.0 + 3.0 * Math.sin(weekPhase) + 1.0 * Math.sin(3.0 * weekPhase));
+        }
+        SystemParameters sp = RegressionRunner.defaultParams(type, 300.0);
+        SimulationConfig cfg = RegressionRunner.defaultConfig(wind);
+        return new SimInput(cfg, sp, load);
+    }
+}
@@ -89,7 +89,7 @@ public final class RegressionRunner {
 
     // ---- defaults (скопированы из ScenarioFactory, но без io-зависимостей) ----
 
-    private static SystemParameters defaultParams(BusSystemType busSystemType, double batteryCapacityKwhPerBus) {
+    static SystemParameters defaultParams(BusSystemType busSystemType, double batteryCapacityKwhPerBus) {
         SystemParameters base = new SystemParameters(
                 busSystemType,
                 0.1, 0.40,
@@ -110,7 +110,7 @@ public final class RegressionRunner {
                 .build();
     }
 
-    private static SimulationConfig defaultConfig(double[] windMs) {
+    static SimulationConfig defaultConfig(double[] windMs) {
         return new SimulationConfig(
                 windMs,
                 1,
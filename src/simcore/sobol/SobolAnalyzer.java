@@ -5,6 +5,7 @@ import org.apache.commons.math3.random.SobolSequenceGenerator;
 import simcore.engine.MonteCarloEstimate;
 import simcore.engine.MonteCarloRunner;
 import simcore.engine.SimInput;
+import simcore.engine.SweepScheduler;
 
 import java.util.*;
 import java.util.concurrent.ExecutionException;
@@ -34,48 +35,37 @@ public final class SobolAnalyzer {
         double[][] A = ab[0];
         double[][] B = ab[1];
 
-        List<MonteCarloEstimate> yA = new ArrayList<>(N);
-        List<MonteCarloEstimate> yB = new ArrayList<>(N);
-        List<List<MonteCarloEstimate>> yAB = new ArrayList<>(d);
-        for (int j = 0; j < d; j++) yAB.add(new ArrayList<>(N));
-
+        // Весь план N x (d + 2) строк — одним набором задач (строка, MC-итерации) в общем пуле.
+        // Номер строки (sobolRowIdx) задаёт seed: A -> i, B -> i + N, AB_j -> i + (2 + j) * N.
+        List<SweepScheduler.Point> rows = new ArrayList<>(N * (d + 2));
         for (int i = 0; i < N; i++) {
-            ParameterSet thetaA = buildThetaFromUnitRow(A[i], cfg);
-            ParameterSet thetaB = buildThetaFromUnitRow(B[i], cfg);
-
-            yA.add(mcRunner.evaluateForTheta(
-                    baseInput, thetaA, cfg,
-                    cfg.getMcIterations(), cfg.getMcBaseSeed(),
-                    (long) i,
-                    false
-            ));
-
-            yB.add(mcRunner.evaluateForTheta(
-                    baseInput, thetaB, cfg,
-                    cfg.getMcIterations(), cfg.getMcBaseSeed(),
-                    (long) (i + N),
-                    false
-            ));
+            rows.add(row(baseInput, buildThetaFromUnitRow(A[i], cfg), cfg, i));
+        }
+        for (int i = 0; i < N; i++) {
+            rows.add(row(baseInput, buildThetaFromUnitRow(B[i], cfg), cfg, i + N));
         }
-
         for (int j = 0; j < d; j++) {
             for (int i = 0; i < N; i++) {
                 double[] row = new double[d];
                 System.arraycopy(A[i], 0, row, 0, d);
                 row[j] = B[i][j];
 
-                ParameterSet thetaAB = buildThetaFromUnitRow(row, cfg);
                 long sobolRowIdx = i + (2L + j) * (long) N;
-
-                yAB.get(j).add(mcRunner.evaluateForTheta(
-                        baseInput, thetaAB, cfg,
-                        cfg.getMcIterations(), cfg.getMcBaseSeed(),
-                        sobolRowIdx,
-                        false
-                ));
+                rows.add(row(baseInput, buildThetaFromUnitRow(row, cfg), cfg, sobolRowIdx));
             }
         }
 
+        List<MonteCarloEstimate> y = new SweepScheduler(mcRunner).runPoints(
+                rows, cfg.getMcIterations(), cfg.getMcBaseSeed(), false, null);
+
+        List<MonteCarloEstimate> yA = new ArrayList<>(y.subList(0, N));
+        List<MonteCarloEstimate> yB = new ArrayList<>(y.subList(N, 2 * N));
+        List<List<MonteCarloEstimate>> yAB = new ArrayList<>(d);
+        for (int j = 0; j < d; j++) {
+            int from = (2 + j) * N;
+            yAB.add(new ArrayList<>(y.subList(from, from + N)));
+        }
+
         double[] sEns = new double[d], stEns = new double[d];
         double[] sFuel = new double[d], stFuel = new double[d];
         double[] sMoto = new double[d], stMoto = new double[d];
@@ -87,6 +77,10 @@ public final class SobolAnalyzer {
         return new SobolResult(cfg, yA, yB, yAB, sEns, stEns, sFuel, stFuel, sMoto, stMoto);
     }
 
+    private static SweepScheduler.Point row(SimInput baseInput, ParameterSet theta, SobolConfig cfg, long sobolRowIdx) {
+        return new SweepScheduler.Point(MonteCarloRunner.applyTheta(baseInput, theta, cfg), theta, sobolRowIdx);
+    }
+
     private enum Metric { ENS, FUEL, MOTO }
 
     private static void computeSobolIndicesSaltelli2010(List<MonteCarloEstimate> yA,